@@ -0,0 +1,72 @@
+package com.mt.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mt.core.AddressType;
+import com.mt.core.Wallet;
+import com.mt.crypto.CryptoAddressGenerator;
+import com.mt.crypto.Hash160;
+
+/**
+ * The address generation of every supported address type, both from the
+ * serialized public key (hashing included) and from the public key hash.
+ *
+ * @author mkrajcovic
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AddressBenchmark {
+
+	private static final int KEYS = 1024; // power of two
+
+	@Param({ "P2PKH", "P2SH", "BECH32" })
+	public AddressType type;
+
+	private CryptoAddressGenerator generator;
+	private byte[][] publicKeys;
+	private byte[][] publicKeyHashes;
+	private final byte[] hash = new byte[Hash160.LENGTH];
+	private int next;
+
+	@Setup
+	public void prepare() {
+		Fixtures.registerProvider();
+		generator = type.getGenerator();
+		List<Wallet> wallets = Fixtures.wallets(KEYS, Fixtures.SEED);
+		publicKeys = new byte[KEYS][];
+		publicKeyHashes = new byte[KEYS][];
+		for (int i = 0; i < KEYS; i++) {
+			publicKeys[i] = wallets.get(i).getPublicKeyBytes();
+			publicKeyHashes[i] = wallets.get(i).getPublicKeyHash();
+		}
+	}
+
+	@Benchmark
+	public String getAddress() {
+		byte[] publicKey = publicKeys[next++ & (KEYS - 1)];
+		generator.getPublicKeyHash(publicKey, 0, publicKey.length, hash, 0);
+		return generator.getAddressFromHash(hash);
+	}
+
+	@Benchmark
+	public String getAddressFromHash() {
+		return generator.getAddressFromHash(publicKeyHashes[next++ & (KEYS - 1)]);
+	}
+}
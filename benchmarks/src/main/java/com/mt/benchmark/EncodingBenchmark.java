@@ -0,0 +1,93 @@
+package com.mt.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mt.crypto.Base58;
+import com.mt.crypto.Base58Check;
+import com.mt.crypto.Bech32;
+import com.mt.crypto.Hash160;
+
+/**
+ * The address encodings alone on the inputs of the size of an address - the
+ * 25-byte version + hash + checksum of the Base58Check and the 33 5-bit values
+ * of the version 0 witness program.
+ * <p>
+ * The generic encoders are compared with the specialized ones the address
+ * generators use - {@link Base58Check} on the same payloads and
+ * {@link Bech32#encodeP2wpkh} on the 20-byte hashes, both writing into a
+ * reused buffer.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+	private static final int INPUTS = 1024; // power of two
+
+	private byte[][] base58Inputs;
+	private byte[][] bech32Inputs;
+	private byte[][] hashes;
+	private final byte[] output = new byte[Math.max(Base58Check.MAX_ENCODED_LENGTH, Bech32.P2WPKH_LENGTH)];
+	private int next;
+
+	@Setup
+	public void prepare() {
+		Random random = Fixtures.random();
+		base58Inputs = new byte[INPUTS][25];
+		bech32Inputs = new byte[INPUTS][33];
+		hashes = new byte[INPUTS][Hash160.LENGTH];
+		for (int i = 0; i < INPUTS; i++) {
+			random.nextBytes(base58Inputs[i]);
+			base58Inputs[i][0] = 0x00; // a leading zero as in the legacy addresses
+			for (int j = 1; j < bech32Inputs[i].length; j++) {
+				bech32Inputs[i][j] = (byte) random.nextInt(32);
+			}
+			random.nextBytes(hashes[i]);
+		}
+	}
+
+	@Benchmark
+	public String base58Encode() {
+		return Base58.encode(base58Inputs[next++ & (INPUTS - 1)]);
+	}
+
+	@Benchmark
+	public String base58CheckEncode() {
+		return Base58Check.encode(base58Inputs[next++ & (INPUTS - 1)], 0);
+	}
+
+	@Benchmark
+	public byte[] base58CheckEncodeToBuffer() {
+		Base58Check.encode(base58Inputs[next++ & (INPUTS - 1)], 0, output, 0);
+		return output;
+	}
+
+	@Benchmark
+	public String bech32Encode() {
+		return Bech32.encode("bc", bech32Inputs[next++ & (INPUTS - 1)]);
+	}
+
+	@Benchmark
+	public byte[] bech32EncodeP2wpkhToBuffer() {
+		Bech32.encodeP2wpkh(hashes[next++ & (INPUTS - 1)], 0, output, 0);
+		return output;
+	}
+}
@@ -0,0 +1,64 @@
+package com.mt.benchmark;
+
+import static com.mt.config.ConfigurationKey.GENERATOR_MODE;
+import static com.mt.config.ConfigurationKey.GENERATOR_RELATED_KEYS;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import com.mt.config.TestConfiguration;
+import com.mt.core.Wallet;
+import com.mt.crypto.SweepKeyGenerator;
+import com.mt.main.WalletGenerator;
+
+/**
+ * Inputs shared by the benchmarks. All of them are derived from fixed seeds,
+ * so every run measures exactly the same work. The only exceptions are the
+ * key pairs of the key generation and the random generator mode, which come
+ * from {@code SecureRandom} as in the application.
+ *
+ * @author mkrajcovic
+ */
+final class Fixtures {
+
+	static final long SEED = 0x5eed_b17L;
+
+	private Fixtures() {
+		throw new IllegalStateException("Fixtures was not designed to be instantiated");
+	}
+
+	static void registerProvider() {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	static Random random() {
+		return new Random(SEED);
+	}
+
+	/**
+	 * @param count - number of wallets
+	 * @param seed  - determines the first private key
+	 * @return wallets of consecutive private keys as created by the range
+	 *         generator mode
+	 */
+	static List<Wallet> wallets(int count, long seed) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(GENERATOR_MODE.toString(), "range");
+		properties.put(GENERATOR_RELATED_KEYS.toString(), "false");
+		return new WalletGenerator(TestConfiguration.of(properties)).generateWallets(sweepGenerator(seed), count);
+	}
+
+	/**
+	 * @param seed - determines the first private key
+	 * @return walk over the key space from a random looking but fixed key
+	 */
+	static SweepKeyGenerator sweepGenerator(long seed) {
+		return new SweepKeyGenerator(new BigInteger(240, new Random(seed)).add(BigInteger.valueOf(2)));
+	}
+}
@@ -0,0 +1,60 @@
+package com.mt.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mt.core.BitcoinWallet;
+import com.mt.core.Wallet;
+import com.mt.crypto.AsymetricKeyGenerator;
+import com.mt.crypto.BouncyCastleKeyGenerator;
+import com.mt.crypto.Secp256k1KeyGenerator;
+
+/**
+ * The random key pair generation by the native secp256k1 engine and by the
+ * security provider - the key pairs cannot be seeded, their cost does not
+ * depend on the key though.
+ *
+ * @author mkrajcovic
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyGenerationBenchmark {
+
+	@Param({ "native", "bouncycastle" })
+	public String engine;
+
+	private AsymetricKeyGenerator generator;
+
+	@Setup
+	public void prepare() {
+		Fixtures.registerProvider();
+		generator = "native".equals(engine) ? new Secp256k1KeyGenerator() : new BouncyCastleKeyGenerator();
+	}
+
+	@Benchmark
+	public KeyPair generateAsymetricKeyPair() throws GeneralSecurityException {
+		return generator.generateAsymetricKeyPair();
+	}
+
+	@Benchmark
+	public Wallet newBitcoinWallet() {
+		return new BitcoinWallet();
+	}
+}
@@ -0,0 +1,121 @@
+package com.mt.benchmark;
+
+import static com.mt.config.ConfigurationKey.DATABASE_PASSWORD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_HASH_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_URL;
+import static com.mt.config.ConfigurationKey.DATABASE_USER;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mt.config.TestConfiguration;
+import com.mt.core.AddressHash;
+import com.mt.core.AddressType;
+import com.mt.core.Database;
+import com.mt.core.Wallet;
+
+/**
+ * The lookup of a batch of generated wallets against an in-memory H2 database
+ * standing in for the lookup table. The batches do not match any address,
+ * which is the usual case. The score is in batches per second.
+ *
+ * @author mkrajcovic
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+	private static final int ACTIVE_ADDRESSES = 100_000;
+	private static final String URL = "jdbc:h2:mem:lookup;DB_CLOSE_DELAY=-1";
+
+	@Param({ "1000", "10000" })
+	public int batchSize;
+
+	private Connection setup;
+	private Database db;
+	private List<String> addresses;
+	private List<byte[]> hashes;
+	private final Set<AddressType> types = EnumSet.allOf(AddressType.class);
+
+	@Setup(Level.Trial)
+	public void prepare() throws SQLException {
+		Fixtures.registerProvider();
+		Database.disableLogging();
+		setup = DriverManager.getConnection(URL, "sa", "");
+		try (Statement stmt = setup.createStatement()) {
+			stmt.execute("CREATE SCHEMA bitcoin");
+			stmt.execute("CREATE TABLE bitcoin.t_address (s_address VARCHAR(74) PRIMARY KEY, s_private_key VARCHAR(64),"
+				+ " b_hash160 VARBINARY(20), n_address_type SMALLINT)");
+			stmt.execute("CREATE INDEX t_address_hash160_idx ON bitcoin.t_address (b_hash160)");
+		}
+		try (PreparedStatement insert = setup.prepareStatement("INSERT INTO bitcoin.t_address (s_address) VALUES (?)")) {
+			for (Wallet wallet : Fixtures.wallets(ACTIVE_ADDRESSES, Fixtures.SEED)) {
+				insert.setString(1, wallet.getAddress());
+				insert.addBatch();
+			}
+			insert.executeBatch();
+		}
+
+		Map<String, String> properties = new HashMap<>();
+		properties.put(DATABASE_URL.toString(), URL);
+		properties.put(DATABASE_USER.toString(), "sa");
+		properties.put(DATABASE_PASSWORD.toString(), "");
+		properties.put(DATABASE_TABLE_ADDRESS_HASH_FIELD.toString(), "b_hash160");
+		db = new Database(TestConfiguration.of(properties));
+		db.fillAddressHashes();
+
+		addresses = new ArrayList<>(batchSize);
+		hashes = new ArrayList<>(batchSize);
+		for (Wallet wallet : Fixtures.wallets(batchSize, Fixtures.SEED + 1)) {
+			addresses.add(wallet.getAddress());
+			hashes.add(wallet.getPublicKeyHash());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void release() throws SQLException {
+		db.close();
+		try (Statement stmt = setup.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		setup.close();
+	}
+
+	@Benchmark
+	public List<String> findAddresses() {
+		return db.findAddresses(addresses);
+	}
+
+	@Benchmark
+	public List<AddressHash> findAddressHashes() {
+		return db.findAddressHashes(hashes, types);
+	}
+}
@@ -0,0 +1,108 @@
+package com.mt.benchmark;
+
+import static com.mt.config.ConfigurationKey.GENERATOR_MODE;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.mt.config.TestConfiguration;
+import com.mt.core.Wallet;
+import com.mt.crypto.SweepKeyGenerator;
+import com.mt.main.WalletGenerator;
+
+/**
+ * The wallet generation as done by {@code WalletService.generateWallets} (which
+ * delegates to the shared {@link WalletGenerator} without the database the
+ * service needs) on several numbers of threads. The score is in wallets per
+ * second.
+ * <p>
+ * In the {@code sweep} mode every thread walks from its own key derived from
+ * the fixed seed. The {@code random} mode draws the private keys from the
+ * {@code SecureRandom} as the application does, the work per key does not
+ * depend on its value.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalletGenerationBenchmark {
+
+	// a whole number of keys with or without the related keys
+	private static final int BATCH_SIZE = 120;
+
+	@Param({ "random", "sweep" })
+	public String mode;
+
+	private WalletGenerator generator;
+
+	@Setup
+	public void prepare() {
+		Fixtures.registerProvider();
+		generator = new WalletGenerator(TestConfiguration.of(Collections.singletonMap(GENERATOR_MODE.toString(), mode)));
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Wallet> generateWallets1Thread(Walk walk) {
+		return generate(walk);
+	}
+
+	@Benchmark
+	@Threads(4)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Wallet> generateWallets4Threads(Walk walk) {
+		return generate(walk);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Wallet> generateWalletsAllProcessors(Walk walk) {
+		return generate(walk);
+	}
+
+	private List<Wallet> generate(Walk walk) {
+		if (walk.sweepGenerator == null) {
+			return generator.generateWallets(BATCH_SIZE);
+		}
+		return generator.generateWallets(walk.sweepGenerator, BATCH_SIZE / generator.getWalletsPerKey());
+	}
+
+	/**
+	 * The sweep of the benchmark thread, none in the {@code random} mode.
+	 */
+	@State(Scope.Thread)
+	public static class Walk {
+
+		private SweepKeyGenerator sweepGenerator;
+
+		@Setup
+		public void prepare(WalletGenerationBenchmark benchmark, ThreadParams thread) {
+			if ("sweep".equals(benchmark.mode)) {
+				sweepGenerator = Fixtures.sweepGenerator(Fixtures.SEED + thread.getThreadIndex());
+			}
+		}
+	}
+}
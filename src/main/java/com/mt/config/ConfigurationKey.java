@@ -5,16 +5,47 @@ public enum ConfigurationKey implements ApplicationConfiguration.Key {
 	DATABASE_URL("db.url"),
 	DATABASE_USER("db.usr"),
 	DATABASE_PASSWORD("db.pwd"),
+	DATABASE_POOL_SIZE("db.pool.size"),
+	DATABASE_DIALECT("db.dialect"),
 
 	DATABASE_SCHEMA("db.schema"),
 	DATABASE_TABLE_ADDRESS("db.table.address"),
 	DATABASE_TABLE_ADDRESS_FIELD("db.table.address.addressField"),
 	DATABASE_TABLE_ADDRESS_PRIVATE_KEY_FIELD("db.table.address.privateKeyField"),
+	DATABASE_TABLE_ADDRESS_HASH_FIELD("db.table.address.hashField"),
+	DATABASE_TABLE_ADDRESS_TYPE_FIELD("db.table.address.typeField"),
+	DATABASE_LOOKUP_TEMP_TABLE_THRESHOLD("db.lookup.tempTableThreshold"),
 
 	DATABASE_ENABLE_WALLET_SAVING("db.enableWalletSaving"),
 	DATABASE_TABLE_SAVE_WALLET("db.table.save_wallet"),
 	DATABASE_TABLE_SAVE_WALLET_ADDRESS_FIELD("db.table.save_wallet.addressField"),
 	DATABASE_TABLE_SAVE_WALLET_ADDRESS_PRIVATE_KEY_FIELD("db.table.save_wallet.privateKeyField"),
+	DATABASE_TABLE_SAVE_WALLET_FORMAT("db.table.save_wallet.format"),
+	DATABASE_TABLE_SAVE_KEY("db.table.save_key"),
+	DATABASE_TABLE_SAVE_KEY_START_FIELD("db.table.save_key.startField"),
+	DATABASE_TABLE_SAVE_KEY_COUNT_FIELD("db.table.save_key.countField"),
+	DATABASE_TABLE_KEYSPACE_LEASE("db.table.keyspace_lease"),
+
+	GENERATOR_MODE("generator.mode"),
+	GENERATOR_THREADS("generator.threads"),
+	GENERATOR_BATCH_SIZE("generator.batchSize"),
+	GENERATOR_RANDOM_WINDOW_BITS("generator.random.windowBits"),
+	GENERATOR_RELATED_KEYS("generator.relatedKeys"),
+	GENERATOR_RANGE_SEED("generator.range.seed"),
+	GENERATOR_RANGE_START("generator.range.start"),
+	GENERATOR_RANGE_SIZE("generator.range.size"),
+	GENERATOR_RANGE_STORE("generator.range.store"),
+	GENERATOR_RANGE_CHECKPOINT("generator.range.checkpoint"),
+	GENERATOR_RANGE_OWNER("generator.range.owner"),
+	GENERATOR_RANGE_LEASE_SECONDS("generator.range.leaseSeconds"),
+	PIPELINE_CAPACITY("pipeline.capacity"),
+	PROCESSING_THREADS("processing.threads"),
+	JOURNAL_DIRECTORY("journal.dir"),
+	LOOKUP_MODE("lookup.mode"),
+	LOOKUP_FILTER_FALSE_POSITIVE_RATE("lookup.filter.falsePositiveRate"),
+	LOOKUP_INDEX_FILE("lookup.file.path"),
+	METRICS_JMX("metrics.jmx"),
+	METRICS_PROMETHEUS_PORT("metrics.prometheus.port"),
 
 	NOTIFICATION_RECIPIENT_EMAIL("notification.recipient.email"),
 	NOTIFICATION_RECIPIENT_PHONE("notification.recipient.phone"),
@@ -0,0 +1,139 @@
+package com.mt.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.mt.crypto.Hash160;
+
+/**
+ * This class represents a compact probabilistic set of public key hashes -
+ * a counting Bloom filter with 4-bit counters. It never gives a false
+ * negative answer, while the rate of false positives is given by its size.
+ * <p>
+ * Unlike the plain Bloom filter, the counters allow to remove the found
+ * addresses without rebuilding the whole filter. A counter saturated at its
+ * maximum value is never decremented, so the removals cannot introduce false
+ * negatives.
+ * </p>
+ * As the public key hashes are uniformly distributed already, the bit
+ * positions are derived directly from their bytes by double hashing.
+ * The instances are thread safe.
+ *
+ * @author mkrajcovic
+ */
+public final class AddressFilter {
+
+	private static final int COUNTER_BITS = 4;
+	private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+	private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+	private final AtomicLongArray counters;
+	private final long counterCount;
+	private final int hashFunctions;
+
+	/**
+	 * @param expectedSize      - number of hashes to be held
+	 * @param falsePositiveRate - desired probability of false positive answers
+	 */
+	public AddressFilter(long expectedSize, double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False positive rate must be within (0, 1): " + falsePositiveRate);
+		}
+		long size = Math.max(1, expectedSize);
+		long optimalCounters = (long) Math.ceil(-size * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		long words = (optimalCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD;
+		if (words > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Filter too large for " + expectedSize + " hashes");
+		}
+		this.counters = new AtomicLongArray((int) words);
+		this.counterCount = words * COUNTERS_PER_WORD;
+		this.hashFunctions = Math.max(1, (int) Math.round((double) counterCount / size * Math.log(2)));
+	}
+
+	/**
+	 * @param hash - 20-byte public key hash
+	 * @return false if the hash is definitely not present, true if it might be
+	 */
+	public boolean mightContain(byte[] hash) {
+		long h1 = readLong(hash, 0);
+		long h2 = readLong(hash, 8) | 1;
+		for (int i = 0; i < hashFunctions; i++) {
+			if (counter(index(h1, h2, i)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param hash - 20-byte public key hash to be added
+	 */
+	public void add(byte[] hash) {
+		update(hash, 1);
+	}
+
+	/**
+	 * Removes the hash previously added to this filter. Removing a hash which
+	 * was not added may lead to false negative answers.
+	 *
+	 * @param hash - 20-byte public key hash to be removed
+	 */
+	public void remove(byte[] hash) {
+		update(hash, -1);
+	}
+
+	/**
+	 * @return approximate memory occupied by the counters in bytes
+	 */
+	public long getSizeInBytes() {
+		return counterCount / 2;
+	}
+
+	private void update(byte[] hash, int delta) {
+		long h1 = readLong(hash, 0);
+		long h2 = readLong(hash, 8) | 1;
+		for (int i = 0; i < hashFunctions; i++) {
+			updateCounter(index(h1, h2, i), delta);
+		}
+	}
+
+	private long index(long h1, long h2, int i) {
+		return Long.remainderUnsigned(h1 + i * h2, counterCount);
+	}
+
+	private long counter(long index) {
+		long word = counters.get((int) (index / COUNTERS_PER_WORD));
+		return (word >>> shift(index)) & COUNTER_MAX;
+	}
+
+	private void updateCounter(long index, int delta) {
+		int wordIndex = (int) (index / COUNTERS_PER_WORD);
+		int shift = shift(index);
+		while (true) {
+			long word = counters.get(wordIndex);
+			long value = (word >>> shift) & COUNTER_MAX;
+			// saturated counters stay, the removals must not underflow
+			if (value == COUNTER_MAX || (delta < 0 && value == 0)) {
+				return;
+			}
+			long updated = (word & ~(COUNTER_MAX << shift)) | ((value + delta) << shift);
+			if (counters.compareAndSet(wordIndex, word, updated)) {
+				return;
+			}
+		}
+	}
+
+	private static int shift(long index) {
+		return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+	}
+
+	private static long readLong(byte[] hash, int offset) {
+		if (hash.length != Hash160.LENGTH) {
+			throw new IllegalArgumentException("Invalid hash length: " + hash.length);
+		}
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (hash[offset + i] & 0xFF);
+		}
+		return value;
+	}
+}
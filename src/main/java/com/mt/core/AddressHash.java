@@ -0,0 +1,103 @@
+package com.mt.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import com.mt.crypto.Hash160;
+
+/**
+ * This class represents an address in its raw form - the 20-byte public key
+ * hash tagged with the type of the address. It allows to match the generated
+ * wallets without encoding their addresses into the human readable form.
+ *
+ * @author mkrajcovic
+ */
+public final class AddressHash {
+
+	private final AddressType type;
+	private final byte[] hash;
+
+	public AddressHash(AddressType type, byte[] hash) {
+		this.type = requireNonNull(type, "address type cannot be null");
+		this.hash = requireNonNull(hash, "hash cannot be null");
+		if (hash.length != Hash160.LENGTH) {
+			throw new IllegalArgumentException("Invalid hash length: " + hash.length);
+		}
+	}
+
+	/**
+	 * Decodes the human readable address into its raw form.
+	 *
+	 * @param address - P2PKH, P2SH or BECH32 address
+	 * @return the decoded address or null if the address is not one of the
+	 *         supported types or is not valid
+	 */
+	public static AddressHash fromAddress(String address) {
+		AddressType type = detectType(address);
+		if (type == null) {
+			return null;
+		}
+		try {
+			return new AddressHash(type, type.getGenerator().getHashFromAddress(address));
+		} catch (IllegalArgumentException | ApplicationFailure invalidAddress) {
+			return null;
+		}
+	}
+
+	private static AddressType detectType(String address) {
+		if (address == null || address.isEmpty()) {
+			return null;
+		}
+		switch (address.charAt(0)) {
+		case '1':
+			return AddressType.P2PKH;
+		case '3':
+			return AddressType.P2SH;
+		case 'b':
+		case 'B':
+			return address.regionMatches(true, 0, "bc1", 0, 3) ? AddressType.BECH32 : null;
+		default:
+			return null;
+		}
+	}
+
+	public AddressType getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the 20-byte public key hash which must not be modified
+	 */
+	public byte[] getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * @return the human readable form of this address
+	 */
+	public String getAddress() {
+		return type.getGenerator().getAddressFromHash(hash);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * type.hashCode() + Arrays.hashCode(hash);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof AddressHash) {
+			AddressHash otherHash = (AddressHash) other;
+			return type == otherHash.type && Arrays.equals(hash, otherHash.hash);
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "AddressHash [type=" + type + ", hash=" + new String(Hex.encode(hash)) + "]";
+	}
+}
@@ -0,0 +1,36 @@
+package com.mt.core;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This interface represents a store of the active addresses which the
+ * generated wallets are matched against.
+ *
+ * @author mkrajcovic
+ */
+public interface AddressLookup {
+
+	/**
+	 * Finds the addresses of the given types derived from the provided public
+	 * key hashes which are present in this store and were not found yet.
+	 *
+	 * @param publicKeyHashes - 20-byte hashes to find a match for
+	 * @param addressTypes    - address types the hashes stand for
+	 * @return the matched addresses in their raw form
+	 */
+	public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes);
+
+	/**
+	 * Excludes the given addresses from any further lookups once their
+	 * private keys have been persisted. The default implementation is noop
+	 * for the stores that exclude them on their own.
+	 *
+	 * @param addresses - found addresses
+	 */
+	public default void markFound(Collection<AddressHash> addresses) {
+		// noop
+	}
+
+}
@@ -10,25 +10,47 @@ public enum AddressType {
 	/**
 	 * Describes the Bitcoin Legacy address format starting with '1'
 	 */
-	P2PKH(new BtcLegacyAddressGenerator()),
+	P2PKH(0, new BtcLegacyAddressGenerator()),
 	
 	/**
 	 * Describes the Bitcoin SegWit address format starting with '3'
 	 */
-	P2SH(new BtcSegWitAddressGenerator()),
+	P2SH(1, new BtcSegWitAddressGenerator()),
 
 	/**
 	 * Describes the Bitcoin Native SegWit address format starting with 'bc1'
 	 */
-	BECH32(new BtcNativeSegWitAddressGenerator());
+	BECH32(2, new BtcNativeSegWitAddressGenerator());
 
+	private int code;
 	private CryptoAddressGenerator generator;
 
-	private AddressType(CryptoAddressGenerator generator) {
+	private AddressType(int code, CryptoAddressGenerator generator) {
+		this.code = code;
 		this.generator = generator;
 	}
 
+	/**
+	 * @return stable numeric tag of this type used for the persistent storage
+	 */
+	public int getCode() {
+		return this.code;
+	}
+
 	public CryptoAddressGenerator getGenerator() {
 		return this.generator;
 	}
+
+	/**
+	 * @param code - numeric tag as returned by {@link #getCode()}
+	 * @return the corresponding address type
+	 */
+	public static AddressType fromCode(int code) {
+		for (AddressType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown address type code: " + code);
+	}
 }
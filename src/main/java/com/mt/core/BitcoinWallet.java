@@ -5,11 +5,14 @@ import static com.mt.core.AddressType.P2PKH;
 import static com.mt.core.AddressType.P2SH;
 import static java.util.Collections.unmodifiableSet;
 
-import java.security.GeneralSecurityException;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.bouncycastle.util.encoders.Hex;
+
+import com.mt.crypto.AsymetricKeyGenerator;
+
 public class BitcoinWallet extends Wallet {
 
 	private static final Set<AddressType> SUPPORTED_ADDRESS_TYPES = unmodifiableSet(EnumSet.of(P2PKH, P2SH, BECH32));
@@ -24,11 +27,39 @@ public class BitcoinWallet extends Wallet {
 		super(P2PKH.getGenerator());
 	}
 
+	/**
+	 * Creates new Bitcoin Wallet with P2PKH (Legacy) address and the key pair
+	 * of the given generator.
+	 */
+	public BitcoinWallet(AsymetricKeyGenerator keyGenerator) {
+		super(P2PKH.getGenerator(), keyGenerator);
+	}
+
+	/**
+	 * Creates Bitcoin Wallet from already generated keys.
+	 *
+	 * @param privateKey - 64 digit hex private key
+	 * @param publicKey  - hex encoded non compressed public key
+	 */
+	public BitcoinWallet(String privateKey, String publicKey) {
+		this(Hex.decode(privateKey), Hex.decode(publicKey));
+	}
+
+	/**
+	 * Creates Bitcoin Wallet from already generated keys held without copying.
+	 *
+	 * @param privateKey - 32-byte private key
+	 * @param publicKey  - 65-byte non compressed public key
+	 */
+	public BitcoinWallet(byte[] privateKey, byte[] publicKey) {
+		super(P2PKH.getGenerator(), privateKey, publicKey);
+	}
+
 	@Override
 	public String getAddress(AddressType addressType) {
 		switch(addressType) {
 		case P2PKH:
-			return address;
+			return getAddress();
 		case P2SH:
 			if (p2shAddress == null) {
 				p2shAddress = initAddress(P2SH);
@@ -45,11 +76,7 @@ public class BitcoinWallet extends Wallet {
 	}
 
 	private String initAddress(AddressType addressType) {
-		try {
-			return addressType.getGenerator().getAddress(publicKey);
-		} catch (GeneralSecurityException gex) {
-			throw new ApplicationFailure("Error during " + addressType + " address creation: " + gex);
-		}
+		return encodeAddress(addressType.getGenerator());
 	}
 
 	@Override
@@ -75,8 +102,8 @@ public class BitcoinWallet extends Wallet {
 		return "BitcoinWallet [bech32Address=" + getAddress(BECH32)
 			+ ", p2shAddress=" + getAddress(P2SH)
 			+ ", p2pkhAddress=" + getAddress(P2PKH)
-			+ ", privateKey=" + privateKey
-			+ ", publicKey=" + publicKey + "]";
+			+ ", privateKey=" + getPrivateKey()
+			+ ", publicKey=" + getPublicKey() + "]";
 	}
 
 }
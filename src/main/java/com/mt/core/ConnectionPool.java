@@ -0,0 +1,194 @@
+package com.mt.core;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class represents a fixed size pool of database connections shared by
+ * the concurrent {@link Database} operations.
+ * <p>
+ * The connections are opened lazily and kept open between the leases.
+ * A connection found closed (e.g. after a network failure) is dropped and
+ * replaced by a new one on the next lease, so the pool recovers the same way
+ * as the former single connection did.
+ * </p>
+ * <p>
+ * Every connection keeps the statements prepared by {@link Lease#prepare(String)}
+ * for its whole life, so the frequent queries are parsed and planned by the
+ * database server only once per connection (PostgreSQL driver switches a
+ * reused statement to the server side prepared one after a few executions).
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+final class ConnectionPool implements AutoCloseable {
+
+	private static final Logger LOG = new WalkingDeadLogger(ConnectionPool.class);
+
+	private final String url;
+	private final String usr;
+	private final String pwd;
+	private final int size;
+
+	private final Semaphore permits;
+	private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+	private volatile boolean closed;
+
+	ConnectionPool(String url, String usr, String pwd, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Connection pool size must be positive: " + size);
+		}
+		this.url = url;
+		this.usr = usr;
+		this.pwd = pwd;
+		this.size = size;
+		this.permits = new Semaphore(size, true);
+	}
+
+	/**
+	 * Waits for a free connection. The returned lease must be closed to give
+	 * the connection back to the pool.
+	 *
+	 * @return exclusive use of one connection
+	 */
+	Lease lease() {
+		if (closed) {
+			throw new IllegalStateException("Could not re-/connect to the database, the connection pool has been closed");
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a database connection", iex);
+		}
+		try {
+			return new Lease(idleOrNewConnection());
+		} catch (SQLException | RuntimeException error) {
+			permits.release();
+			throw new IllegalStateException("Could not re-/connect to the database", error);
+		}
+	}
+
+	private PooledConnection idleOrNewConnection() throws SQLException {
+		PooledConnection pooled;
+		while ((pooled = idle.poll()) != null) {
+			if (!pooled.connection.isClosed()) {
+				return pooled;
+			}
+			LOG.warning("Dropping closed database connection");
+		}
+		Connection connection = DriverManager.getConnection(url, usr, pwd);
+		connection.setAutoCommit(true);
+		return new PooledConnection(connection);
+	}
+
+	private void release(PooledConnection pooled) {
+		try {
+			if (closed || pooled.connection.isClosed()) {
+				closeQuietly(pooled.connection);
+			} else {
+				idle.add(pooled);
+			}
+		} catch (SQLException sqle) {
+			closeQuietly(pooled.connection);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * @return maximum number of the connections open at once
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Closes the idle connections, the leased ones are closed as soon as they
+	 * are given back. No further leases are possible.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		PooledConnection pooled;
+		while ((pooled = idle.poll()) != null) {
+			closeQuietly(pooled.connection);
+		}
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException sqle) {
+			LOG.warning("Error closing database connection: " + sqle);
+		}
+	}
+
+	// closing the connection closes its statements as well
+	private static final class PooledConnection {
+
+		private final Connection connection;
+		private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+	}
+
+	/**
+	 * Exclusive use of a pooled connection for the duration of a single
+	 * database operation.
+	 */
+	final class Lease implements AutoCloseable {
+
+		private final PooledConnection pooled;
+		private boolean released;
+
+		private Lease(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		Connection connection() {
+			return pooled.connection;
+		}
+
+		/**
+		 * Returns the statement prepared on this connection before or prepares
+		 * a new one. The statement is owned by the connection and must not be
+		 * closed by the caller.
+		 *
+		 * @param sql - statement text with parameter placeholders
+		 * @return reusable prepared statement
+		 */
+		PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement pstmt = pooled.statements.get(sql);
+			if (pstmt == null || pstmt.isClosed()) {
+				pstmt = pooled.connection.prepareStatement(sql);
+				pooled.statements.put(sql, pstmt);
+			}
+			return pstmt;
+		}
+
+		@Override
+		public void close() {
+			if (!released) {
+				released = true;
+				release(pooled);
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.mt.core;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * This class streams rows into a PostgreSQL table by the
+ * {@code COPY ... FROM STDIN} command in the text format, which is by far the
+ * cheapest way of loading many rows - there is neither a statement execution
+ * nor a network round trip per row.
+ * <p>
+ * The rows are encoded directly into a reusable byte buffer which is sent to
+ * the server whenever it fills up. The values must not contain any of the
+ * characters having a special meaning in the text format (tab, new line,
+ * backslash), which holds for the addresses, hex encoded keys and hashes.
+ * </p>
+ * An unfinished copy is cancelled on {@link #close()}, so nothing is loaded.
+ *
+ * @author mkrajcovic
+ */
+final class CopyWriter implements AutoCloseable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+	private final CopyIn copyIn;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private boolean rowStart = true;
+
+	CopyWriter(CopyIn copyIn) {
+		this.copyIn = copyIn;
+	}
+
+	/**
+	 * @param connection - connection of the PostgreSQL driver
+	 * @return whether the connection is able to perform the copy
+	 */
+	static boolean isSupported(Connection connection) {
+		try {
+			return connection.isWrapperFor(PGConnection.class);
+		} catch (SQLException sqle) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param connection - connection of the PostgreSQL driver
+	 * @param table      - fully qualified table name
+	 * @param columns    - filled in the order of the written fields
+	 * @return writer of the rows
+	 */
+	static CopyWriter open(Connection connection, String table, String... columns) throws SQLException {
+		String copy = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN";
+		return new CopyWriter(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copy));
+	}
+
+	/**
+	 * @param value - ASCII text without the special characters
+	 */
+	CopyWriter field(String value) throws SQLException {
+		int length = value.length();
+		reserve(length + 1);
+		separate();
+		for (int i = 0; i < length; i++) {
+			buffer[position++] = (byte) value.charAt(i);
+		}
+		return this;
+	}
+
+	/**
+	 * @param value - written as the bytea hex format
+	 */
+	CopyWriter field(byte[] value) throws SQLException {
+		reserve(value.length * 2 + 4);
+		separate();
+		// escaped backslash of the \x prefix
+		buffer[position++] = '\\';
+		buffer[position++] = '\\';
+		buffer[position++] = 'x';
+		for (byte b : value) {
+			buffer[position++] = HEX[(b >>> 4) & 0xF];
+			buffer[position++] = HEX[b & 0xF];
+		}
+		return this;
+	}
+
+	CopyWriter field(int value) throws SQLException {
+		return field(Integer.toString(value));
+	}
+
+	void endRow() throws SQLException {
+		reserve(1);
+		buffer[position++] = '\n';
+		rowStart = true;
+	}
+
+	/**
+	 * @return the number of rows loaded
+	 */
+	long finish() throws SQLException {
+		flush();
+		return copyIn.endCopy();
+	}
+
+	private void separate() {
+		if (!rowStart) {
+			buffer[position++] = '\t';
+		}
+		rowStart = false;
+	}
+
+	private void reserve(int length) throws SQLException {
+		if (length + 1 > BUFFER_SIZE) {
+			throw new IllegalArgumentException("Field too long for COPY: " + length);
+		}
+		if (position + length + 1 > BUFFER_SIZE) {
+			flush();
+		}
+	}
+
+	private void flush() throws SQLException {
+		if (position > 0) {
+			copyIn.writeToCopy(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (copyIn.isActive()) {
+			copyIn.cancelCopy();
+		}
+	}
+}
@@ -1,31 +1,49 @@
 package com.mt.core;
 
+import static com.mt.config.ConfigurationKey.DATABASE_DIALECT;
 import static com.mt.config.ConfigurationKey.DATABASE_ENABLE_WALLET_SAVING;
+import static com.mt.config.ConfigurationKey.DATABASE_LOOKUP_TEMP_TABLE_THRESHOLD;
 import static com.mt.config.ConfigurationKey.DATABASE_PASSWORD;
+import static com.mt.config.ConfigurationKey.DATABASE_POOL_SIZE;
 import static com.mt.config.ConfigurationKey.DATABASE_SCHEMA;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_HASH_FIELD;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_PRIVATE_KEY_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_TYPE_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_KEY;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_KEY_COUNT_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_KEY_START_FIELD;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_ADDRESS_FIELD;
 import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_ADDRESS_PRIVATE_KEY_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_FORMAT;
 import static com.mt.config.ConfigurationKey.DATABASE_URL;
 import static com.mt.config.ConfigurationKey.DATABASE_USER;
-import static com.mt.utils.StringHelper.keepFirst;
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
 import static com.mt.utils.StringHelper.repeat;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.mt.config.ApplicationConfiguration;
+import com.mt.crypto.Secp256k1;
+import com.mt.metrics.Counter;
 import com.mt.utils.WalkingDeadLogger;
 
 /**
@@ -33,20 +51,26 @@ import com.mt.utils.WalkingDeadLogger;
  * objects.<p>
  * Its main purpose is to support the following goals:
  * <ul>
- * <li>finding the wallets matched on addresses in the configured table</li>
+ * <li>finding the wallets matched on addresses (or their raw public key hashes) in the configured table</li>
  * <li>updating the configured table by assigning the private key to the found addresses</li>
  * <li>saving the generated (usually searched) wallets into a separate table if configured</li>
  * </ul>
+ * All the operations are safe to be called concurrently, each of them runs on
+ * its own connection leased from a pool of {@code db.pool.size} connections.
  *
  * @author mkrajcovic
  */
-public final class Database implements AutoCloseable {
+public final class Database implements AddressLookup, AutoCloseable {
 
 	private static final Logger LOG = new WalkingDeadLogger(Database.class);
+	private static final int UNSUPPORTED_TYPE_CODE = -1;
+	private static final int MIGRATION_BATCH_SIZE = 10_000;
+	// SQLState classes
+	static final String CONNECTION_EXCEPTION = "08";
+	static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
 
 	// database connection settings
-	private Connection connection;
-	private boolean recover;
+	private final ConnectionPool pool;
 	private final String url;
 	private final String usr;
 	private final String pwd;
@@ -56,48 +80,54 @@ public final class Database implements AutoCloseable {
 	private final String table;
 	private final String addressField;
 	private final String privateKeyField;
+	// optional raw form of the addresses allowing lookups without encoding
+	private final String hashField;
+	private final String typeField;
+	private final SqlDialect dialect;
 
 	// side table for saving generated (searched) wallets
 	private final boolean isWalletSavingAllowed;
 	private String walletSaveTable;
 	private String walletSaveAddressField;
 	private String walletSavePrivateKeyField;
+	// compact form storing only the runs of consecutive private keys
+	private boolean isKeySavingFormat;
+	private String keySaveTable;
+	private String keySaveStartField;
+	private String keySaveCountField;
 
 	public Database(ApplicationConfiguration config) {
 		requireNonNull(config);
-		recover = true;
 
 		url = requireNonNull(config.get(DATABASE_URL), "jdbc database URL configuration cannot be null");
 		usr = requireNonNull(config.get(DATABASE_USER), "database username configuration cannot be null");
 		pwd = requireNonNull(config.get(DATABASE_PASSWORD), "database password configuration cannot be null");
+		pool = new ConnectionPool(url, usr, pwd, Integer.parseInt(config.get(DATABASE_POOL_SIZE, "4")));
 
 		// this comes from the provided DDL script
 		schema = config.get(DATABASE_SCHEMA, "bitcoin");
 		table = config.get(DATABASE_TABLE_ADDRESS, "t_address");
 		addressField = config.get(DATABASE_TABLE_ADDRESS_FIELD, "s_address");
 		privateKeyField = config.get(DATABASE_TABLE_ADDRESS_PRIVATE_KEY_FIELD, "s_private_key");
+		hashField = config.get(DATABASE_TABLE_ADDRESS_HASH_FIELD);
+		typeField = config.get(DATABASE_TABLE_ADDRESS_TYPE_FIELD, "n_address_type");
+		// batches of at least this size are joined through a temporary table
+		int tempTableThreshold = Integer.parseInt(config.get(DATABASE_LOOKUP_TEMP_TABLE_THRESHOLD, "10000"));
+		dialect = SqlDialect.of(url, config.get(DATABASE_DIALECT), schema, tempTableThreshold);
 
 		isWalletSavingAllowed = Boolean.valueOf(config.get(DATABASE_ENABLE_WALLET_SAVING));
 		if (isWalletSavingAllowed) {
 			walletSaveTable = config.get(DATABASE_TABLE_SAVE_WALLET, "t_generated_address");
 			walletSaveAddressField = config.get(DATABASE_TABLE_SAVE_WALLET_ADDRESS_FIELD, addressField);
 			walletSavePrivateKeyField = config.get(DATABASE_TABLE_SAVE_WALLET_ADDRESS_PRIVATE_KEY_FIELD, privateKeyField);
+			isKeySavingFormat = "keys".equals(config.get(DATABASE_TABLE_SAVE_WALLET_FORMAT, "addresses"));
+			keySaveTable = config.get(DATABASE_TABLE_SAVE_KEY, "t_generated_key");
+			keySaveStartField = config.get(DATABASE_TABLE_SAVE_KEY_START_FIELD, "b_private_key");
+			keySaveCountField = config.get(DATABASE_TABLE_SAVE_KEY_COUNT_FIELD, "n_count");
 		}
 
 		// initialize and fail immediately if we cannot connect
-		getConnection();
-	}
-
-	private Connection getConnection() {
-		try {
-			if (recover && (connection == null || connection.isClosed())) {
-				connection = DriverManager.getConnection(url, usr, pwd);
-				connection.setAutoCommit(true);
-			}
-		} catch (SQLException sqle) {
-			throw new IllegalStateException("Could not re-/connect to the database", sqle);
-		}
-		return connection;
+		pool.lease().close();
 	}
 
 	/**
@@ -107,34 +137,166 @@ public final class Database implements AutoCloseable {
 	 * @return list of wallets which the match was found for
 	 */
 	public List<String> findAddresses(List<String> searchedAddresses) {
-		String query = createParameterizedQuery(searchedAddresses.size());
-		LOG.info(() -> keepFirst(100, query));
+		MatchQuery query = new MatchQuery(addressField, schema + "." + table, privateKeyField + " IS NULL", addressField, false);
+		LOG.info(() -> query.select("IN (...)") + " (" + searchedAddresses.size() + " addresses)");
 
-		try (PreparedStatement pstmt = getConnection().prepareStatement(query)) {
-			return queryForAddresses(pstmt, searchedAddresses);
+		List<String> foundAddresses = new ArrayList<>();
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			dialect.selectMatching(lease, query, searchedAddresses, rs -> foundAddresses.add(rs.getString(1)));
+			return foundAddresses;
 		} catch (SQLException | IllegalStateException error) {
-			throw new ApplicationFailure("Error calling select: " + query + " with params " + searchedAddresses, error);
+			throw failure("Error calling select: " + query.select("IN (...)") + " with params " + searchedAddresses, error);
 		}
 	}
 
-	private String createParameterizedQuery(int placeholders) {
-		return "SELECT " + addressField
-			+ " FROM " + schema + "." + table
-			+ " WHERE " + privateKeyField + " IS NULL"
-			+ " AND " + addressField + " IN ("
-			+ repeat("?", placeholders, ",") + ");";
+	/**
+	 * Queries the database for a match on provided public key hashes of the
+	 * given address types. If the hash column is not configured, the hashes
+	 * are encoded into addresses and matched by {@link #findAddresses(List)}.
+	 * <p>
+	 * The way the batch is passed to the database is chosen by the
+	 * {@link SqlDialect}, the large batches (see {@code db.lookup.tempTableThreshold})
+	 * are joined through a temporary table where supported.
+	 * </p>
+	 *
+	 * @param publicKeyHashes - 20-byte hashes to find a match for
+	 * @param addressTypes    - address types the hashes stand for
+	 * @return the matched addresses in their raw form
+	 */
+	@Override
+	public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+		if (hashField == null) {
+			return findEncodedAddresses(publicKeyHashes, addressTypes);
+		}
+		MatchQuery query = new MatchQuery(hashField + ", " + typeField, schema + "." + table, privateKeyField + " IS NULL", hashField, true);
+		LOG.info(() -> query.select("IN (...)") + " (" + publicKeyHashes.size() + " hashes)");
+
+		List<AddressHash> found = new ArrayList<>();
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			dialect.selectMatching(lease, query, publicKeyHashes, rs -> {
+				AddressType type = AddressType.fromCode(rs.getInt(2));
+				if (addressTypes.contains(type)) {
+					found.add(new AddressHash(type, rs.getBytes(1)));
+				}
+			});
+			return found;
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error calling select: " + query.select("IN (...)") + " with " + publicKeyHashes.size() + " hashes", error);
+		}
 	}
 
-	private List<String> queryForAddresses(PreparedStatement pstmt, List<String> lookup) throws SQLException {
-		for (int i = 0; i < lookup.size(); i++) {
-			pstmt.setString(i + 1, lookup.get(i));
+	private List<AddressHash> findEncodedAddresses(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+		Map<String, AddressHash> encoded = new HashMap<>();
+		for (byte[] hash : publicKeyHashes) {
+			for (AddressType type : addressTypes) {
+				AddressHash addressHash = new AddressHash(type, hash);
+				encoded.put(addressHash.getAddress(), addressHash);
+			}
 		}
-		ResultSet rs = pstmt.executeQuery();
-		List<String> foundAddresses = new ArrayList<>();
-		while (rs.next()) {
-			foundAddresses.add(rs.getString(addressField));
+		return findAddresses(new ArrayList<>(encoded.keySet()))
+			.stream()
+			.map(encoded::get)
+			.collect(toList());
+	}
+
+	/**
+	 * @return the number of addresses in their raw form which were not found yet
+	 */
+	public long countAddressHashes() {
+		requireNonNull(hashField, DATABASE_TABLE_ADDRESS_HASH_FIELD + " must be configured");
+		String query = "SELECT COUNT(*) FROM " + schema + "." + table + createActiveHashCondition();
+		LOG.info(query);
+
+		try (ConnectionPool.Lease lease = pool.lease();
+			 PreparedStatement pstmt = lease.connection().prepareStatement(query);
+			 ResultSet rs = pstmt.executeQuery()) {
+			rs.next();
+			return rs.getLong(1);
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error calling select: " + query, error);
+		}
+	}
+
+	/**
+	 * Streams all the addresses in their raw form which were not found yet
+	 * to the given consumer. The rows are fetched by a database cursor, so the
+	 * whole table is never held in memory.
+	 *
+	 * @param consumer - receiving the addresses
+	 */
+	public void forEachAddressHash(Consumer<AddressHash> consumer) {
+		requireNonNull(hashField, DATABASE_TABLE_ADDRESS_HASH_FIELD + " must be configured");
+		String query = "SELECT " + hashField + ", " + typeField + " FROM " + schema + "." + table + createActiveHashCondition();
+		LOG.info(query);
+
+		try (Connection reader = DriverManager.getConnection(url, usr, pwd);
+			 PreparedStatement pstmt = prepareCursor(reader, query);
+			 ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				consumer.accept(new AddressHash(AddressType.fromCode(rs.getInt(2)), rs.getBytes(1)));
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error calling select: " + query, error);
 		}
-		return foundAddresses;
+	}
+
+	private String createActiveHashCondition() {
+		return " WHERE " + privateKeyField + " IS NULL"
+			+ " AND " + hashField + " IS NOT NULL"
+			+ " AND " + typeField + " >= 0";
+	}
+
+	/**
+	 * Fills the public key hash and the address type columns of all the rows
+	 * not processed yet. Addresses which cannot be decoded into a supported
+	 * address type are marked by {@value #UNSUPPORTED_TYPE_CODE} type code and
+	 * never match any lookup.
+	 *
+	 * @return the number of processed rows
+	 */
+	public long fillAddressHashes() {
+		requireNonNull(hashField, DATABASE_TABLE_ADDRESS_HASH_FIELD + " must be configured");
+		String select = "SELECT " + addressField + " FROM " + schema + "." + table + " WHERE " + typeField + " IS NULL";
+		String update = "UPDATE " + schema + "." + table + " SET " + hashField + " = ?, " + typeField + " = ? WHERE " + addressField + " = ?";
+		LOG.info(update);
+
+		// the reading cursor needs its own transaction while the updates are committed as they go
+		try (Connection reader = DriverManager.getConnection(url, usr, pwd);
+			 PreparedStatement query = prepareCursor(reader, select);
+			 ConnectionPool.Lease lease = pool.lease();
+			 PreparedStatement pstmt = lease.connection().prepareStatement(update);
+			 ResultSet rs = query.executeQuery()) {
+
+			long processed = 0;
+			while (rs.next()) {
+				String address = rs.getString(1);
+				AddressHash addressHash = AddressHash.fromAddress(address);
+				if (addressHash == null) {
+					pstmt.setNull(1, Types.BINARY);
+					pstmt.setInt(2, UNSUPPORTED_TYPE_CODE);
+				} else {
+					pstmt.setBytes(1, addressHash.getHash());
+					pstmt.setInt(2, addressHash.getType().getCode());
+				}
+				pstmt.setString(3, address);
+				pstmt.addBatch();
+				if (++processed % MIGRATION_BATCH_SIZE == 0) {
+					pstmt.executeBatch();
+					LOG.info(processed + " addresses processed");
+				}
+			}
+			pstmt.executeBatch();
+			return processed;
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error filling address hashes: " + update, error);
+		}
+	}
+
+	private static PreparedStatement prepareCursor(Connection connection, String query) throws SQLException {
+		connection.setAutoCommit(false);
+		PreparedStatement pstmt = connection.prepareStatement(query);
+		pstmt.setFetchSize(MIGRATION_BATCH_SIZE);
+		return pstmt;
 	}
 
 	/**
@@ -142,6 +304,14 @@ public final class Database implements AutoCloseable {
 	 * otherwise it will save all the addresses and corresponding private keys
 	 * to the configured side table which is supposed to reside within the same
 	 * schema as the main lookup table used for searching.
+	 * <p>
+	 * On PostgreSQL the rows are streamed by a single {@code COPY} command,
+	 * other databases get a batch of inserts.
+	 * </p>
+	 * <p>
+	 * With {@code db.table.save_wallet.format=keys} only the runs of
+	 * consecutive private keys are saved (see {@link #saveKeyRanges(List)}).
+	 * </p>
 	 *
 	 * @param wallets
 	 *            that should be saved to database
@@ -150,28 +320,230 @@ public final class Database implements AutoCloseable {
 		if (!isWalletSavingAllowed) {
 			return;
 		}
+		if (isKeySavingFormat) {
+			saveKeyRanges(toKeyRanges(wallets));
+			return;
+		}
 		String insert = createParameterizedInsert(2);
-		LOG.info(() -> insert + " (" + wallets.size() + " wallets)");
 
-		try (PreparedStatement pstmt = getConnection().prepareStatement(insert)) {
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			if (CopyWriter.isSupported(lease.connection())) {
+				LOG.info(() -> "COPY " + schema + "." + walletSaveTable + " (" + wallets.size() + " wallets)");
+				copyWallets(lease.connection(), wallets);
+			} else {
+				LOG.info(() -> insert + " (" + wallets.size() + " wallets)");
+				insertWallets(lease.prepare(insert), wallets);
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error saving wallets into: " + schema + "." + walletSaveTable, error);
+		}
+	}
+
+	/**
+	 * Saves the wallets the same way as {@link #saveWallets(List)}, but the
+	 * rows saved already are skipped. A batch replayed after a crash may have
+	 * been saved before completely or partly, so when it fails on a unique
+	 * key the rows are inserted one by one ignoring the duplicates.
+	 *
+	 * @param wallets - that should be saved to database
+	 */
+	public void replayWallets(List<Wallet> wallets) {
+		try {
+			saveWallets(wallets);
+		} catch (ApplicationFailure failure) {
+			if (!hasSqlState(failure, INTEGRITY_CONSTRAINT_VIOLATION)) {
+				throw failure;
+			}
+			LOG.warning(() -> "Saving " + wallets.size() + " replayed wallets row by row, some of them were saved before");
+			if (isKeySavingFormat) {
+				String insert = "INSERT INTO " + schema + "." + keySaveTable + "(" + keySaveStartField + "," + keySaveCountField + ") VALUES (?,?)";
+				insertMissingRows(insert, toKeyRanges(wallets), (pstmt, range) -> {
+					pstmt.setBytes(1, toKeyBytes(range.getStart()));
+					pstmt.setLong(2, range.getCount());
+				});
+			} else {
+				List<String[]> rows = new ArrayList<>();
+				for (Wallet wallet : wallets) {
+					for (AddressType type : wallet.getSupportedAddressTypes()) {
+						rows.add(new String[] { wallet.getAddress(type), wallet.getPrivateKey() });
+					}
+				}
+				insertMissingRows(createParameterizedInsert(2), rows, (pstmt, row) -> {
+					pstmt.setString(1, row[0]);
+					pstmt.setString(2, row[1]);
+				});
+			}
+		}
+	}
+
+	// each row is committed on its own, so a duplicate does not affect the others
+	private <T> void insertMissingRows(String insert, List<T> rows, RowBinder<T> binder) {
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			PreparedStatement pstmt = lease.prepare(insert);
+			pstmt.clearBatch();
+			for (T row : rows) {
+				binder.bind(pstmt, row);
+				try {
+					pstmt.executeUpdate();
+				} catch (SQLException sqle) {
+					if (!hasSqlState(sqle, INTEGRITY_CONSTRAINT_VIOLATION)) {
+						throw sqle;
+					}
+				}
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error saving replayed rows by: " + insert, error);
+		}
+	}
+
+	@FunctionalInterface
+	private interface RowBinder<T> {
+		void bind(PreparedStatement pstmt, T row) throws SQLException;
+	}
+
+	private void copyWallets(Connection connection, List<Wallet> wallets) throws SQLException {
+		try (CopyWriter copy = CopyWriter.open(connection, schema + "." + walletSaveTable, walletSaveAddressField, walletSavePrivateKeyField)) {
 			for (Wallet wallet : wallets) {
+				String privateKey = wallet.getPrivateKey();
 				for (AddressType type : wallet.getSupportedAddressTypes()) {
-					pstmt.setString(1, wallet.getAddress(type));
-					pstmt.setString(2, wallet.getPrivateKey());
+					copy.field(wallet.getAddress(type)).field(privateKey).endRow();
+				}
+			}
+			copy.finish();
+		}
+	}
+
+	private void insertWallets(PreparedStatement pstmt, List<Wallet> wallets) throws SQLException {
+		pstmt.clearBatch(); // leftovers of a failed execution
+		for (Wallet wallet : wallets) {
+			for (AddressType type : wallet.getSupportedAddressTypes()) {
+				pstmt.setString(1, wallet.getAddress(type));
+				pstmt.setString(2, wallet.getPrivateKey());
+				pstmt.addBatch();
+			}
+		}
+		pstmt.executeBatch();
+	}
+
+	/**
+	 * Saves the ranges of private keys into the configured key table, one row
+	 * holding the 32-byte first key and the number of keys per range. This is
+	 * roughly ten times less data than saving every address with its hex
+	 * private key, the wallets can be derived again by
+	 * {@link com.mt.main.WalletDerivation}.
+	 *
+	 * @param ranges - of the generated private keys
+	 */
+	public void saveKeyRanges(List<KeyRange> ranges) {
+		if (ranges.isEmpty()) {
+			return;
+		}
+		String table = schema + "." + keySaveTable;
+		String insert = "INSERT INTO " + table + "(" + keySaveStartField + "," + keySaveCountField + ") VALUES (?,?)";
+
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			if (CopyWriter.isSupported(lease.connection())) {
+				LOG.info(() -> "COPY " + table + " (" + ranges.size() + " key ranges)");
+				try (CopyWriter copy = CopyWriter.open(lease.connection(), table, keySaveStartField, keySaveCountField)) {
+					for (KeyRange range : ranges) {
+						copy.field(toKeyBytes(range.getStart())).field(Long.toString(range.getCount())).endRow();
+					}
+					copy.finish();
+				}
+			} else {
+				LOG.info(() -> insert + " (" + ranges.size() + " key ranges)");
+				PreparedStatement pstmt = lease.prepare(insert);
+				pstmt.clearBatch();
+				for (KeyRange range : ranges) {
+					pstmt.setBytes(1, toKeyBytes(range.getStart()));
+					pstmt.setLong(2, range.getCount());
 					pstmt.addBatch();
 				}
+				pstmt.executeBatch();
 			}
-			pstmt.executeBatch();
 		} catch (SQLException | IllegalStateException error) {
-			throw new ApplicationFailure("Error calling insert: " + insert, error);
+			throw failure("Error saving key ranges into: " + table, error);
+		}
+	}
+
+	/**
+	 * Streams all the saved key ranges to the given consumer by a database
+	 * cursor.
+	 *
+	 * @param consumer - receiving the key ranges
+	 */
+	public void forEachSavedKeyRange(Consumer<KeyRange> consumer) {
+		String query = "SELECT " + keySaveStartField + ", " + keySaveCountField + " FROM " + schema + "." + keySaveTable;
+		LOG.info(query);
+
+		try (Connection reader = DriverManager.getConnection(url, usr, pwd);
+			 PreparedStatement pstmt = prepareCursor(reader, query);
+			 ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				consumer.accept(new KeyRange(new BigInteger(1, rs.getBytes(1)), rs.getLong(2)));
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw failure("Error calling select: " + query, error);
+		}
+	}
+
+	// merges the consecutive private keys (as generated by the sweep) into ranges
+	static List<KeyRange> toKeyRanges(List<Wallet> wallets) {
+		List<KeyRange> ranges = new ArrayList<>();
+		byte[] start = null;
+		byte[] previous = null;
+		long count = 0;
+		for (Wallet wallet : wallets) {
+			byte[] privateKey = wallet.getPrivateKeyBytes();
+			if (previous != null && isSuccessor(previous, privateKey)) {
+				count++;
+			} else {
+				if (start != null) {
+					ranges.add(new KeyRange(new BigInteger(1, start), count));
+				}
+				start = privateKey;
+				count = 1;
+			}
+			previous = privateKey;
+		}
+		if (start != null) {
+			ranges.add(new KeyRange(new BigInteger(1, start), count));
+		}
+		return ranges;
+	}
+
+	// whether the next is the previous + 1, both big endian of the same length
+	private static boolean isSuccessor(byte[] previous, byte[] next) {
+		int i = previous.length - 1;
+		// trailing 0xFF bytes of the previous overflow into zeros
+		while (i >= 0 && previous[i] == (byte) 0xFF) {
+			if (next[i] != 0) {
+				return false;
+			}
+			i--;
+		}
+		if (i < 0 || next[i] != (byte) (previous[i] + 1)) {
+			return false;
 		}
+		for (int j = i - 1; j >= 0; j--) {
+			if (next[j] != previous[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] toKeyBytes(BigInteger key) {
+		byte[] bytes = new byte[PRIVATE_KEY_LENGTH];
+		Secp256k1.writeUnsigned(key, bytes, 0);
+		return bytes;
 	}
 
 	private String createParameterizedInsert(int placeholders) {
 		// stick to the currently used schema
 		return "INSERT INTO " + schema + "." + walletSaveTable 
 			+ "(" + walletSaveAddressField + "," + walletSavePrivateKeyField 
-			+ ") VALUES (" + repeat("?", placeholders, ",") + ");";
+			+ ") VALUES (" + repeat("?", placeholders, ",") + ")";
 	}
 
 	/**
@@ -184,10 +556,12 @@ public final class Database implements AutoCloseable {
 		String update = createParameterizedUpdate(wallets.get(0).getSupportedAddressTypes().size());
 		LOG.info(update);
 
-		try (PreparedStatement pstmt = getConnection().prepareStatement(update)) {
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			PreparedStatement pstmt = lease.prepare(update);
+			pstmt.clearBatch();
 			insertPrivateKeysForAddresses(pstmt, wallets);
 		} catch (SQLException | IllegalStateException error) {
-			throw new ApplicationFailure("Error calling update: " + update + " for wallets: " + wallets, error);
+			throw failure("Error calling update: " + update + " for wallets: " + wallets, error);
 		}
 	}
 
@@ -195,7 +569,7 @@ public final class Database implements AutoCloseable {
 		return "UPDATE " + schema + "." + table 
 			+ " SET " + privateKeyField + " = ? WHERE " 
 			+ addressField + " IN (" 
-			+ repeat("?", placeholders, ",") + ");";
+			+ repeat("?", placeholders, ",") + ")";
 	}
 
 	private void insertPrivateKeysForAddresses(PreparedStatement pstmt, List<Wallet> wallets) throws SQLException {
@@ -212,28 +586,68 @@ public final class Database implements AutoCloseable {
 		pstmt.executeBatch();
 	}
 
+	// every failed operation is counted
+	static ApplicationFailure failure(String message, Throwable cause) {
+		Counter.DATABASE_ERRORS.increment();
+		return new ApplicationFailure(message, cause);
+	}
+
 	/**
-	 * Definitely terminates the underlying connection making it unrecoverable for
-	 * further operations.
+	 * @param error      - thrown by a database operation
+	 * @param stateClass - the first two characters of the SQLState, e.g.
+	 *                   {@value #CONNECTION_EXCEPTION} or
+	 *                   {@value #INTEGRITY_CONSTRAINT_VIOLATION}
+	 * @return whether any of the SQL exceptions causing the error (including
+	 *         the chained ones of a batch) is of the given class
 	 */
-	@Override
-	public void close() {
-		recover = false;
-		try {
-			if (connection != null && !connection.isClosed()) {
-				connection.close();
+	static boolean hasSqlState(Throwable error, String stateClass) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLException) {
+				for (SQLException sqle = (SQLException) cause; sqle != null; sqle = sqle.getNextException()) {
+					String state = sqle.getSQLState();
+					if (state != null && state.startsWith(stateClass)) {
+						return true;
+					}
+				}
 			}
-		} catch (SQLException sqle) {
-			LOG.warning("Error closing database connection: " + sqle);
 		}
+		return false;
 	}
 
 	/**
-	 * @return whether the close() on the underlying connection
+	 * Definitely terminates the underlying connections making them unrecoverable
+	 * for further operations.
+	 */
+	@Override
+	public void close() {
+		pool.close();
+	}
+
+	/**
+	 * @return whether the close() on the underlying connections
 	 * 		   has been called or not.
 	 */
 	public boolean isConnectionActive() {
-		return recover;
+		return !pool.isClosed();
+	}
+
+	/**
+	 * @return the number of database operations which can run concurrently
+	 */
+	public int getPoolSize() {
+		return pool.getSize();
+	}
+
+	/**
+	 * @return exclusive use of a pooled connection for the components sharing
+	 *         the pool of this database
+	 */
+	ConnectionPool.Lease leaseConnection() {
+		return pool.lease();
+	}
+
+	String getSchema() {
+		return schema;
 	}
 
 	/**
@@ -0,0 +1,83 @@
+package com.mt.core;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class represents an address lookup which checks every public key hash
+ * against the {@link AddressFilter} first and passes only the filter
+ * positives to the underlying lookup (usually the {@link Database}).<br>
+ * It is meant for the deployments where the whole address set cannot be held
+ * in memory by the {@link OffHeapAddressIndex}.
+ *
+ * @author mkrajcovic
+ */
+public final class FilteredAddressLookup implements AddressLookup {
+
+	private static final Logger LOG = new WalkingDeadLogger(FilteredAddressLookup.class);
+
+	private final AddressFilter filter;
+	private final AddressLookup delegate;
+
+	public FilteredAddressLookup(AddressFilter filter, AddressLookup delegate) {
+		this.filter = requireNonNull(filter, "filter cannot be null");
+		this.delegate = requireNonNull(delegate, "delegate lookup cannot be null");
+	}
+
+	/**
+	 * Creates the lookup with the filter built from all the addresses which
+	 * were not found yet in the main lookup table.
+	 *
+	 * @param db                - database configured with the public key hash columns
+	 * @param falsePositiveRate - desired probability of querying the database in vain
+	 * @return lookup querying the given database for the filter positives
+	 */
+	public static FilteredAddressLookup load(Database db, double falsePositiveRate) {
+		long start = System.currentTimeMillis();
+		AddressFilter filter = new AddressFilter(db.countAddressHashes(), falsePositiveRate);
+		db.forEachAddressHash(address -> filter.add(address.getHash()));
+		LOG.info(() -> "Address filter of " + filter.getSizeInBytes() + " bytes loaded in "
+			+ (System.currentTimeMillis() - start) + " ms");
+		return new FilteredAddressLookup(filter, db);
+	}
+
+	@Override
+	public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+		List<byte[]> candidates = new ArrayList<>(0);
+		for (byte[] hash : publicKeyHashes) {
+			if (filter.mightContain(hash)) {
+				candidates.add(hash);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return emptyList();
+		}
+		return delegate.findAddressHashes(candidates, addressTypes);
+	}
+
+	/**
+	 * Makes the newly added address visible to the lookups. The address must
+	 * be present in the underlying lookup as well.
+	 *
+	 * @param address - new active address
+	 */
+	public void add(AddressHash address) {
+		filter.add(address.getHash());
+	}
+
+	@Override
+	public void markFound(Collection<AddressHash> addresses) {
+		for (AddressHash address : addresses) {
+			filter.remove(address.getHash());
+		}
+		delegate.markFound(addresses);
+	}
+}
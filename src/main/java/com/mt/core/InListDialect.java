@@ -0,0 +1,40 @@
+package com.mt.core;
+
+import static com.mt.utils.StringHelper.repeat;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The portable lookup for the databases without array parameters - the batch
+ * is split into IN lists of at most {@value #MAX_IN_LIST} values (the Oracle
+ * limit of the IN list expressions).
+ * <p>
+ * The last chunk is padded by repeating its last value, so every chunk uses
+ * the same statement text which is parsed only once per connection. A padded
+ * value cannot produce duplicate rows as the IN list is a set predicate.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+class InListDialect implements SqlDialect {
+
+	static final int MAX_IN_LIST = 1000;
+
+	@Override
+	public void selectMatching(ConnectionPool.Lease lease, MatchQuery query, List<?> values, RowReader reader) throws SQLException {
+		if (values.isEmpty()) {
+			return;
+		}
+		int chunkSize = Math.min(values.size(), MAX_IN_LIST);
+		PreparedStatement pstmt = lease.prepare(query.select("IN (" + repeat("?", chunkSize, ",") + ")"));
+		for (int start = 0; start < values.size(); start += chunkSize) {
+			int end = Math.min(start + chunkSize, values.size());
+			for (int i = 0; i < chunkSize; i++) {
+				pstmt.setObject(i + 1, values.get(Math.min(start + i, end - 1)));
+			}
+			SqlDialect.readRows(pstmt, reader);
+		}
+	}
+}
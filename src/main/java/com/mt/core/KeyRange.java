@@ -0,0 +1,67 @@
+package com.mt.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigInteger;
+
+/**
+ * This class represents a run of consecutive private keys, which is all that
+ * needs to be stored about the wallets generated from them - the public keys
+ * and the addresses can always be derived again.
+ *
+ * @author mkrajcovic
+ */
+public final class KeyRange {
+
+	private final BigInteger start;
+	private final long count;
+
+	/**
+	 * @param start - the first private key
+	 * @param count - number of the consecutive keys
+	 */
+	public KeyRange(BigInteger start, long count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("Key range must contain at least one key: " + count);
+		}
+		this.start = requireNonNull(start, "start cannot be null");
+		this.count = count;
+	}
+
+	public BigInteger getStart() {
+		return start;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the first private key after this range
+	 */
+	public BigInteger getEnd() {
+		return start.add(BigInteger.valueOf(count));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof KeyRange)) {
+			return false;
+		}
+		KeyRange other = (KeyRange) obj;
+		return count == other.count && start.equals(other.start);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * start.hashCode() + Long.hashCode(count);
+	}
+
+	@Override
+	public String toString() {
+		return "KeyRange [start=" + start.toString(16) + ", count=" + count + "]";
+	}
+}
@@ -0,0 +1,42 @@
+package com.mt.core;
+
+/**
+ * This interface represents a coordinator of a key space sweep handing out
+ * the ranges of private keys to the generators, so that no range is swept
+ * twice and the completed ones are remembered.
+ *
+ * @author mkrajcovic
+ */
+public interface KeyRangeSource extends AutoCloseable {
+
+	/**
+	 * @return the next range to be swept exclusively by the caller, or null if
+	 *         the sweep has reached the end of the key space
+	 */
+	public KeyRange claim();
+
+	/**
+	 * Records the claimed range as swept, it is never handed out again.
+	 *
+	 * @param range - claimed by {@link #claim()} before
+	 */
+	public void complete(KeyRange range);
+
+	/**
+	 * Gives the claimed range back without completing it, so it is handed out
+	 * again.
+	 *
+	 * @param range - claimed by {@link #claim()} before
+	 */
+	public void release(KeyRange range);
+
+	/**
+	 * Gives back all the ranges claimed and not completed yet. The default
+	 * implementation is noop for the sources that keep their claims in memory
+	 * only.
+	 */
+	@Override
+	public default void close() {
+		// noop
+	}
+}
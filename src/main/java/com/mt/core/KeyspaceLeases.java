@@ -0,0 +1,321 @@
+package com.mt.core;
+
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.Secp256k1.N;
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.mt.crypto.Secp256k1;
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class coordinates a key space sweep of several nodes sharing one
+ * database through a table of leases on the key ranges.
+ *
+ * <p>
+ * The ranges follow the same layout as in {@link KeyspaceSweep} - the range
+ * number {@code i} covers the keys from {@code start + i * rangeSize} - and
+ * every row of the table is the lease of one range by one node. A node claims
+ * either the lowest range whose lease has expired or the next range after the
+ * highest one leased so far. Both are done by a single conditional statement
+ * (the insert is guarded by the primary key, the takeover by the expiration
+ * time it was based on), so two nodes can never hold the same range, no
+ * matter how many of them compete.
+ * </p>
+ * <p>
+ * The leases held by this node are renewed in the background, so a range is
+ * reclaimed by the other nodes only when this node stops renewing it - it
+ * died, or it lost the database for longer than the lease duration. The
+ * expiration times are taken from the clocks of the nodes, which are expected
+ * to be synchronized well within the lease duration.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class KeyspaceLeases implements KeyRangeSource {
+
+	private static final Logger LOG = new WalkingDeadLogger(KeyspaceLeases.class);
+
+	private static final BigInteger MAX_SCALAR = N.subtract(BigInteger.valueOf(2));
+	private static final String INTEGRITY_VIOLATION = "23";
+
+	private final Database db;
+	private final String table;
+	private final BigInteger start;
+	private final long rangeSize;
+	private final String owner;
+	private final long leaseMillis;
+
+	// range numbers of the leases held by this node
+	private final Map<Long, KeyRange> held = new HashMap<>();
+	private final ScheduledExecutorService renewal;
+
+	private KeyspaceLeases(Database db, String table, BigInteger start, long rangeSize, String owner, long leaseMillis) {
+		this.db = db;
+		this.table = db.getSchema() + "." + table;
+		this.start = start;
+		this.rangeSize = rangeSize;
+		this.owner = owner;
+		this.leaseMillis = leaseMillis;
+		this.renewal = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "keyspace-lease-renewal");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Joins the sweep coordinated through the given lease table.
+	 *
+	 * @param db           - holding the lease table
+	 * @param table        - name of the lease table within the schema
+	 * @param start        - the first private key of the first range
+	 * @param rangeSize    - number of keys per range
+	 * @param owner        - unique name of this node
+	 * @param leaseSeconds - how long a range is held without the renewal
+	 * @return source of the ranges leased by this node
+	 * @throws ApplicationFailure if the table holds the ranges of a different
+	 *                            layout
+	 */
+	public static KeyspaceLeases open(Database db, String table, BigInteger start, long rangeSize, String owner, long leaseSeconds) {
+		requireNonNull(start, "start cannot be null");
+		requireNonNull(owner, "owner cannot be null");
+		if (rangeSize < 1 || leaseSeconds < 1) {
+			throw new IllegalArgumentException("Range size and lease duration must be positive: " + rangeSize + ", " + leaseSeconds);
+		}
+		KeyspaceLeases leases = new KeyspaceLeases(db, table, start, rangeSize, owner, TimeUnit.SECONDS.toMillis(leaseSeconds));
+		leases.verifyLayout();
+		long period = Math.max(1, leases.leaseMillis / 3);
+		leases.renewal.scheduleWithFixedDelay(leases::renewLeases, period, period, TimeUnit.MILLISECONDS);
+		LOG.info(() -> owner + " leasing ranges of " + rangeSize + " keys from " + start.toString(16) + " for " + leaseSeconds + "s");
+		return leases;
+	}
+
+	private void verifyLayout() {
+		String query = "SELECT n_range, b_start, n_count FROM " + table + " WHERE n_range = (SELECT MIN(n_range) FROM " + table + ")";
+		try (ConnectionPool.Lease lease = db.leaseConnection();
+			 ResultSet rs = lease.prepare(query).executeQuery()) {
+			if (rs.next() && !rangeOf(rs.getLong(1)).equals(new KeyRange(new BigInteger(1, rs.getBytes(2)), rs.getLong(3)))) {
+				throw new ApplicationFailure("Lease table " + table + " holds ranges of a different sweep than ranges of "
+					+ rangeSize + " keys from " + start.toString(16));
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw Database.failure("Error calling select: " + query, error);
+		}
+	}
+
+	/**
+	 * @return the lowest expired range or the next range after the highest
+	 *         one leased so far
+	 */
+	@Override
+	public KeyRange claim() {
+		try (ConnectionPool.Lease lease = db.leaseConnection()) {
+			while (true) {
+				long now = System.currentTimeMillis();
+				long[] expired = findExpired(lease, now);
+				long index;
+				boolean claimed;
+				if (expired != null) {
+					index = expired[0];
+					claimed = takeOver(lease, index, expired[1], now);
+				} else {
+					index = highestRange(lease) + 1;
+					if (rangeOf(index).getEnd().compareTo(MAX_SCALAR) > 0) {
+						return null;
+					}
+					claimed = insertLease(lease, index, now);
+				}
+				if (claimed) {
+					KeyRange range = rangeOf(index);
+					synchronized (held) {
+						held.put(index, range);
+					}
+					return range;
+				}
+				// lost the race with another node
+			}
+		} catch (SQLException | IllegalStateException error) {
+			throw Database.failure("Could not claim a key range from " + table, error);
+		}
+	}
+
+	// the lowest range and its expiration time or null if none has expired
+	private long[] findExpired(ConnectionPool.Lease lease, long now) throws SQLException {
+		PreparedStatement select = lease.prepare("SELECT n_range, n_expires FROM " + table
+			+ " WHERE n_completed = 0 AND n_expires < ? ORDER BY n_range");
+		select.setMaxRows(1);
+		select.setLong(1, now);
+		try (ResultSet rs = select.executeQuery()) {
+			return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : null;
+		}
+	}
+
+	private boolean takeOver(ConnectionPool.Lease lease, long index, long expires, long now) throws SQLException {
+		PreparedStatement update = lease.prepare("UPDATE " + table + " SET s_owner = ?, n_expires = ?"
+			+ " WHERE n_range = ? AND n_completed = 0 AND n_expires = ?");
+		update.setString(1, owner);
+		update.setLong(2, now + leaseMillis);
+		update.setLong(3, index);
+		update.setLong(4, expires);
+		if (update.executeUpdate() != 1) {
+			return false;
+		}
+		LOG.info(() -> owner + " took over the expired range " + index);
+		return true;
+	}
+
+	private long highestRange(ConnectionPool.Lease lease) throws SQLException {
+		try (ResultSet rs = lease.prepare("SELECT MAX(n_range) FROM " + table).executeQuery()) {
+			rs.next();
+			long highest = rs.getLong(1);
+			return rs.wasNull() ? -1 : highest;
+		}
+	}
+
+	private boolean insertLease(ConnectionPool.Lease lease, long range, long now) throws SQLException {
+		PreparedStatement insert = lease.prepare("INSERT INTO " + table
+			+ " (n_range, b_start, n_count, s_owner, n_expires, n_completed) VALUES (?, ?, ?, ?, ?, 0)");
+		byte[] rangeStart = new byte[PRIVATE_KEY_LENGTH];
+		Secp256k1.writeUnsigned(rangeOf(range).getStart(), rangeStart, 0);
+		insert.setLong(1, range);
+		insert.setBytes(2, rangeStart);
+		insert.setLong(3, rangeSize);
+		insert.setString(4, owner);
+		insert.setLong(5, now + leaseMillis);
+		try {
+			insert.executeUpdate();
+			return true;
+		} catch (SQLException sqle) {
+			if (sqle.getSQLState() != null && sqle.getSQLState().startsWith(INTEGRITY_VIOLATION)) {
+				return false; // inserted by another node in the meantime
+			}
+			throw sqle;
+		}
+	}
+
+	/**
+	 * Marks the range as completed. If the lease has been taken over by
+	 * another node in the meantime, the range is left to that node.
+	 */
+	@Override
+	public void complete(KeyRange range) {
+		long index = indexOf(range);
+		String update = "UPDATE " + table + " SET n_completed = 1 WHERE n_range = ? AND s_owner = ? AND n_completed = 0";
+		if (updateHeld(update, index) == 0) {
+			LOG.warning(owner + " lost the lease of the range " + index + " before its completion");
+		}
+	}
+
+	/**
+	 * Lets the lease expire immediately, so the range is taken over by the
+	 * next claim of any node.
+	 */
+	@Override
+	public void release(KeyRange range) {
+		updateHeld("UPDATE " + table + " SET n_expires = 0 WHERE n_range = ? AND s_owner = ? AND n_completed = 0", indexOf(range));
+	}
+
+	private int updateHeld(String update, long index) {
+		synchronized (held) {
+			held.remove(index);
+		}
+		try (ConnectionPool.Lease lease = db.leaseConnection()) {
+			PreparedStatement pstmt = lease.prepare(update);
+			pstmt.setLong(1, index);
+			pstmt.setString(2, owner);
+			return pstmt.executeUpdate();
+		} catch (SQLException | IllegalStateException error) {
+			throw Database.failure("Error calling update: " + update, error);
+		}
+	}
+
+	// runs on the renewal thread, a failed renewal is retried on the next run
+	private void renewLeases() {
+		List<Long> ranges;
+		synchronized (held) {
+			ranges = new ArrayList<>(held.keySet());
+		}
+		if (ranges.isEmpty()) {
+			return;
+		}
+		String update = "UPDATE " + table + " SET n_expires = ? WHERE n_range = ? AND s_owner = ? AND n_completed = 0";
+		try (ConnectionPool.Lease lease = db.leaseConnection()) {
+			PreparedStatement pstmt = lease.prepare(update);
+			for (Long range : ranges) {
+				pstmt.setLong(1, System.currentTimeMillis() + leaseMillis);
+				pstmt.setLong(2, range);
+				pstmt.setString(3, owner);
+				if (pstmt.executeUpdate() == 0 && dropHeld(range)) {
+					LOG.warning(owner + " lost the lease of the range " + range + " to another node");
+				}
+			}
+		} catch (SQLException | RuntimeException error) {
+			LOG.warning("Renewal of " + ranges.size() + " key range leases has failed: " + error);
+		}
+	}
+
+	private boolean dropHeld(Long range) {
+		synchronized (held) {
+			return held.remove(range) != null;
+		}
+	}
+
+	private KeyRange rangeOf(long index) {
+		return new KeyRange(start.add(BigInteger.valueOf(index).multiply(BigInteger.valueOf(rangeSize))), rangeSize);
+	}
+
+	private long indexOf(KeyRange range) {
+		BigInteger[] division = range.getStart().subtract(start).divideAndRemainder(BigInteger.valueOf(rangeSize));
+		if (range.getCount() != rangeSize || division[0].signum() < 0 || division[1].signum() != 0) {
+			throw new IllegalArgumentException("Range does not belong to this sweep: " + range);
+		}
+		return division[0].longValueExact();
+	}
+
+	/**
+	 * @return number of the ranges completed by all the nodes
+	 */
+	public long getCompletedRanges() {
+		String query = "SELECT COUNT(*) FROM " + table + " WHERE n_completed = 1";
+		try (ConnectionPool.Lease lease = db.leaseConnection();
+			 ResultSet rs = lease.prepare(query).executeQuery()) {
+			rs.next();
+			return rs.getLong(1);
+		} catch (SQLException | IllegalStateException error) {
+			throw Database.failure("Error calling select: " + query, error);
+		}
+	}
+
+	/**
+	 * Stops the renewal and lets the uncompleted leases of this node expire
+	 * immediately. Must be called before the database is closed.
+	 */
+	@Override
+	public void close() {
+		renewal.shutdownNow();
+		List<KeyRange> ranges;
+		synchronized (held) {
+			ranges = new ArrayList<>(held.values());
+		}
+		for (KeyRange range : ranges) {
+			try {
+				release(range);
+			} catch (ApplicationFailure failure) {
+				LOG.warning("Could not release " + range + ", it is reclaimed after the lease expires: " + failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.mt.core;
+
+import static com.mt.crypto.Secp256k1.N;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class divides the key space into consecutive ranges of a fixed size
+ * starting at a given private key, hands them out to the generators and
+ * records the completed ones in a checkpoint file.
+ *
+ * <p>
+ * The layout of the ranges is fully determined by the start key and the range
+ * size, so the coverage is recorded per range instead of per key - the
+ * checkpoint holds the number of ranges completed in order plus the few
+ * completed out of order (by the concurrent generators). The checkpoint is
+ * replaced atomically after each completed range, so a restarted sweep
+ * continues with the first range not completed before. The ranges claimed but
+ * not completed before a crash are swept once again.
+ * </p>
+ * The instances are thread safe.
+ *
+ * @author mkrajcovic
+ */
+public final class KeyspaceSweep implements KeyRangeSource {
+
+	private static final Logger LOG = new WalkingDeadLogger(KeyspaceSweep.class);
+
+	// keep the ranges away from the scalars the sweep generator cannot walk through
+	private static final BigInteger MIN_SCALAR = BigInteger.valueOf(2);
+	private static final BigInteger MAX_SCALAR = N.subtract(MIN_SCALAR);
+
+	private static final String START = "start";
+	private static final String RANGE_SIZE = "rangeSize";
+	private static final String COMPLETED = "completed";
+	private static final String COMPLETED_OUT_OF_ORDER = "completedOutOfOrder";
+
+	private final Path checkpoint;
+	private final BigInteger start;
+	private final long rangeSize;
+
+	// guarded by this
+	private long completedInOrder;
+	private final TreeSet<Long> completedOutOfOrder = new TreeSet<>();
+	private final TreeSet<Long> claimed = new TreeSet<>();
+	private long nextIndex;
+
+	private KeyspaceSweep(Path checkpoint, BigInteger start, long rangeSize) {
+		this.checkpoint = checkpoint;
+		this.start = start;
+		this.rangeSize = rangeSize;
+	}
+
+	/**
+	 * Opens the sweep, continuing from its checkpoint file if it exists.
+	 *
+	 * @param checkpoint - file of the completed ranges
+	 * @param start      - the first private key of the first range
+	 * @param rangeSize  - number of keys per range
+	 * @return sweep ready for claiming the ranges
+	 * @throws ApplicationFailure if the checkpoint belongs to a sweep of a
+	 *                            different layout
+	 */
+	public static KeyspaceSweep open(Path checkpoint, BigInteger start, long rangeSize) {
+		requireNonNull(start, "start cannot be null");
+		if (start.compareTo(MIN_SCALAR) < 0 || start.compareTo(MAX_SCALAR) > 0) {
+			throw new IllegalArgumentException("Start scalar out of range [2, n-2]: " + start.toString(16));
+		}
+		if (rangeSize < 1) {
+			throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+		}
+		KeyspaceSweep sweep = new KeyspaceSweep(checkpoint, start, rangeSize);
+		try {
+			if (Files.exists(checkpoint)) {
+				sweep.readCheckpoint();
+			}
+		} catch (IOException | IllegalArgumentException error) {
+			throw new ApplicationFailure("Could not read the sweep checkpoint " + checkpoint, error);
+		}
+		sweep.nextIndex = sweep.completedInOrder;
+		LOG.info(() -> "Sweeping ranges of " + rangeSize + " keys from " + start.toString(16) + ", "
+			+ sweep.getCompletedRanges() + " ranges completed before");
+		return sweep;
+	}
+
+	/**
+	 * Derives the start key of a sweep from an arbitrary seed, so the nodes
+	 * sharing the seed share the same layout of the ranges.
+	 *
+	 * @param seed - any text
+	 * @return private key within the range the sweep can start at
+	 */
+	public static BigInteger startFromSeed(String seed) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(seed.getBytes(UTF_8));
+			return new BigInteger(1, digest).mod(MAX_SCALAR.subtract(MIN_SCALAR)).add(MIN_SCALAR);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException("SHA-256 is not available", nsae);
+		}
+	}
+
+	/**
+	 * @return the first range neither completed nor claimed by another
+	 *         generator, or null if the sweep has reached the end of the key
+	 *         space
+	 */
+	@Override
+	public synchronized KeyRange claim() {
+		while (completedOutOfOrder.contains(nextIndex) || claimed.contains(nextIndex)) {
+			nextIndex++;
+		}
+		BigInteger rangeStart = start.add(BigInteger.valueOf(nextIndex).multiply(BigInteger.valueOf(rangeSize)));
+		if (rangeStart.add(BigInteger.valueOf(rangeSize)).compareTo(MAX_SCALAR) > 0) {
+			return null;
+		}
+		claimed.add(nextIndex++);
+		return new KeyRange(rangeStart, rangeSize);
+	}
+
+	/**
+	 * Records the range as completed and writes the checkpoint.
+	 *
+	 * @param range - claimed by {@link #claim()} before
+	 */
+	@Override
+	public synchronized void complete(KeyRange range) {
+		long index = indexOf(range);
+		if (!claimed.remove(index)) {
+			throw new IllegalArgumentException("Range has not been claimed: " + range);
+		}
+		completedOutOfOrder.add(index);
+		while (completedOutOfOrder.remove(completedInOrder)) {
+			completedInOrder++;
+		}
+		try {
+			writeCheckpoint();
+		} catch (IOException ioex) {
+			throw new ApplicationFailure("Could not write the sweep checkpoint " + checkpoint, ioex);
+		}
+	}
+
+	/**
+	 * Gives the claimed range back without completing it, so it is claimed
+	 * again first.
+	 *
+	 * @param range - claimed by {@link #claim()} before
+	 */
+	@Override
+	public synchronized void release(KeyRange range) {
+		long index = indexOf(range);
+		if (claimed.remove(index)) {
+			nextIndex = Math.min(nextIndex, index);
+		}
+	}
+
+	private long indexOf(KeyRange range) {
+		BigInteger[] division = range.getStart().subtract(start).divideAndRemainder(BigInteger.valueOf(rangeSize));
+		if (range.getCount() != rangeSize || division[0].signum() < 0 || division[1].signum() != 0) {
+			throw new IllegalArgumentException("Range does not belong to this sweep: " + range);
+		}
+		return division[0].longValueExact();
+	}
+
+	/**
+	 * @return number of the ranges completed so far
+	 */
+	public synchronized long getCompletedRanges() {
+		return completedInOrder + completedOutOfOrder.size();
+	}
+
+	public BigInteger getStart() {
+		return start;
+	}
+
+	public long getRangeSize() {
+		return rangeSize;
+	}
+
+	private void readCheckpoint() throws IOException {
+		Properties content = new Properties();
+		try (InputStream input = Files.newInputStream(checkpoint)) {
+			content.load(input);
+		}
+		BigInteger savedStart = new BigInteger(content.getProperty(START), 16);
+		long savedRangeSize = Long.parseLong(content.getProperty(RANGE_SIZE));
+		if (!savedStart.equals(start) || savedRangeSize != rangeSize) {
+			throw new IllegalArgumentException("Checkpoint of ranges of " + savedRangeSize + " keys from "
+				+ savedStart.toString(16) + " does not match the configured sweep");
+		}
+		completedInOrder = Long.parseLong(content.getProperty(COMPLETED));
+		for (String index : content.getProperty(COMPLETED_OUT_OF_ORDER, "").split(",")) {
+			if (!index.isEmpty()) {
+				completedOutOfOrder.add(Long.valueOf(index));
+			}
+		}
+	}
+
+	private void writeCheckpoint() throws IOException {
+		Properties content = new Properties();
+		content.setProperty(START, start.toString(16));
+		content.setProperty(RANGE_SIZE, Long.toString(rangeSize));
+		content.setProperty(COMPLETED, Long.toString(completedInOrder));
+		StringBuilder outOfOrder = new StringBuilder();
+		for (Long index : completedOutOfOrder) {
+			outOfOrder.append(outOfOrder.length() == 0 ? "" : ",").append(index);
+		}
+		content.setProperty(COMPLETED_OUT_OF_ORDER, outOfOrder.toString());
+
+		Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+		try (FileOutputStream output = new FileOutputStream(temporary.toFile())) {
+			content.store(output, "BitGuesser key space sweep");
+			output.getFD().sync();
+		}
+		Files.move(temporary, checkpoint, ATOMIC_MOVE, REPLACE_EXISTING);
+	}
+}
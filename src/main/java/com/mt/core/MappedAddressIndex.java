@@ -0,0 +1,356 @@
+package com.mt.core;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.mt.crypto.Hash160;
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class represents an immutable store of the active addresses in their
+ * raw form which is memory mapped from a file written by
+ * {@link #build(Path, Consumer)}. Opening the index is near-instant, no
+ * deserialization takes place and the OS page cache holding the file is shared
+ * by all the JVMs on the same host.
+ *
+ * <p>
+ * The file consists of:
+ * <ul>
+ * <li>header - magic, version, number of prefix bits and number of records</li>
+ * <li>directory - index of the first record for every value of the leading
+ * prefix bits of the hash followed by the total number of records</li>
+ * <li>records - 20-byte public key hashes sorted as unsigned numbers, each
+ * followed by a byte with one bit per {@link AddressType#getCode()}</li>
+ * </ul>
+ * So a lookup is a directory jump followed by a short binary search within
+ * a single prefix bucket.
+ * </p>
+ * The found addresses are excluded by an in-heap set as the file itself is
+ * never modified.
+ *
+ * @author mkrajcovic
+ */
+public final class MappedAddressIndex implements AddressLookup, AutoCloseable {
+
+	private static final Logger LOG = new WalkingDeadLogger(MappedAddressIndex.class);
+
+	private static final int MAGIC = 0x42474958; // BGIX
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int RECORD_SIZE = Hash160.LENGTH + 1;
+	private static final int TYPE_OFFSET = Hash160.LENGTH;
+	// records per mapping to stay far below the 2GB mapping limit
+	private static final long CHUNK_RECORDS = 1L << 26;
+	private static final int DEFAULT_PREFIX_BITS = 20;
+
+	private final FileChannel channel;
+	private final int prefixBits;
+	private final long recordCount;
+	private final LongBuffer directory;
+	private final MappedByteBuffer[] records;
+	private final Set<AddressHash> found = ConcurrentHashMap.newKeySet();
+
+	private MappedAddressIndex(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = channel.map(READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not a version " + VERSION + " address index file");
+		}
+		prefixBits = header.getInt(8);
+		recordCount = header.getLong(12);
+
+		long directorySize = ((1L << prefixBits) + 1) * Long.BYTES;
+		directory = channel.map(READ_ONLY, HEADER_SIZE, directorySize).asLongBuffer();
+		records = mapRecords(channel, HEADER_SIZE + directorySize, recordCount, READ_ONLY);
+	}
+
+	/**
+	 * Maps the given index file into memory.
+	 *
+	 * @param file - written by {@link #build(Path, Consumer)}
+	 * @return opened index
+	 */
+	public static MappedAddressIndex open(Path file) {
+		try {
+			long start = System.currentTimeMillis();
+			MappedAddressIndex index = new MappedAddressIndex(FileChannel.open(file, READ));
+			LOG.info(() -> "Address index " + file + " with " + index.size() + " hashes opened in "
+				+ (System.currentTimeMillis() - start) + " ms");
+			return index;
+		} catch (IOException ioex) {
+			throw new ApplicationFailure("Unable to open address index " + file, ioex);
+		}
+	}
+
+	private static MappedByteBuffer[] mapRecords(FileChannel channel, long position, long count, MapMode mode) throws IOException {
+		MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((count + CHUNK_RECORDS - 1) / CHUNK_RECORDS)];
+		for (int i = 0; i < chunks.length; i++) {
+			long chunkRecords = Math.min(CHUNK_RECORDS, count - i * CHUNK_RECORDS);
+			chunks[i] = channel.map(mode, position + i * CHUNK_RECORDS * RECORD_SIZE, chunkRecords * RECORD_SIZE);
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return the number of distinct hashes held
+	 */
+	public long size() {
+		return recordCount;
+	}
+
+	@Override
+	public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+		List<AddressHash> matched = new ArrayList<>(0);
+		for (byte[] hash : publicKeyHashes) {
+			long record = findRecord(hash);
+			if (record >= 0) {
+				int mask = typeMask(record);
+				for (AddressType type : addressTypes) {
+					AddressHash address = new AddressHash(type, hash);
+					if ((mask & (1 << type.getCode())) != 0 && !found.contains(address)) {
+						matched.add(address);
+					}
+				}
+			}
+		}
+		return matched;
+	}
+
+	@Override
+	public void markFound(Collection<AddressHash> addresses) {
+		found.addAll(addresses);
+	}
+
+	// returns the record holding the hash or -1 when not present
+	private long findRecord(byte[] hash) {
+		int bucket = prefix(hash, prefixBits);
+		long low = directory.get(bucket);
+		long high = directory.get(bucket + 1) - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			int comparison = compare(middle, hash);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private int compare(long record, byte[] hash) {
+		ByteBuffer chunk = records[(int) (record / CHUNK_RECORDS)];
+		int offset = (int) (record % CHUNK_RECORDS) * RECORD_SIZE;
+		for (int i = 0; i < Hash160.LENGTH; i++) {
+			int difference = (chunk.get(offset + i) & 0xFF) - (hash[i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return 0;
+	}
+
+	private int typeMask(long record) {
+		return records[(int) (record / CHUNK_RECORDS)].get((int) (record % CHUNK_RECORDS) * RECORD_SIZE + TYPE_OFFSET);
+	}
+
+	private static int prefix(byte[] hash, int bits) {
+		int leading = ((hash[0] & 0xFF) << 24) | ((hash[1] & 0xFF) << 16) | ((hash[2] & 0xFF) << 8) | (hash[3] & 0xFF);
+		return leading >>> (Integer.SIZE - bits);
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException ioex) {
+			LOG.warning("Error closing address index: " + ioex);
+		}
+	}
+
+	/**
+	 * Writes the index file from the given source of addresses. The records
+	 * are distributed into the prefix buckets through temporary files residing
+	 * next to the index file, so the memory needed is given by the size of the
+	 * largest bucket only.
+	 *
+	 * @param file   - the index file to be written
+	 * @param source - passes all the addresses to the given consumer, e.g.
+	 *               {@link Database#forEachAddressHash(Consumer)}
+	 * @return the number of distinct hashes written
+	 */
+	public static long build(Path file, Consumer<Consumer<AddressHash>> source) {
+		Path directoryPath = file.toAbsolutePath().getParent();
+		Path unsorted = null;
+		Path bucketed = null;
+		try {
+			unsorted = Files.createTempFile(directoryPath, "address-index", ".tmp");
+			bucketed = Files.createTempFile(directoryPath, "address-index", ".tmp");
+
+			// the count of every bucket is kept at the position of the following one,
+			// so the running sum turns them into the bucket starts
+			long[] bucketStarts = new long[(1 << DEFAULT_PREFIX_BITS) + 1];
+			long count = writeUnsorted(unsorted, source, bucketStarts);
+			for (int i = 1; i < bucketStarts.length; i++) {
+				bucketStarts[i] += bucketStarts[i - 1];
+			}
+
+			distributeIntoBuckets(unsorted, bucketed, bucketStarts, count);
+			return writeIndex(file, bucketed, bucketStarts);
+		} catch (IOException ioex) {
+			throw new ApplicationFailure("Unable to build address index " + file, ioex);
+		} finally {
+			deleteQuietly(unsorted);
+			deleteQuietly(bucketed);
+		}
+	}
+
+	private static long writeUnsorted(Path unsorted, Consumer<Consumer<AddressHash>> source, long[] counts) throws IOException {
+		long[] count = { 0 };
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(unsorted), 1 << 16))) {
+			source.accept(address -> {
+				try {
+					output.write(address.getHash());
+					output.writeByte(1 << address.getType().getCode());
+					counts[prefix(address.getHash(), DEFAULT_PREFIX_BITS) + 1]++;
+					count[0]++;
+				} catch (IOException ioex) {
+					throw new ApplicationFailure("Unable to write temporary index file", ioex);
+				}
+			});
+		}
+		LOG.info(() -> count[0] + " addresses read");
+		return count[0];
+	}
+
+	private static void distributeIntoBuckets(Path unsorted, Path bucketed, long[] bucketStarts, long count) throws IOException {
+		long[] cursors = bucketStarts.clone();
+		byte[] record = new byte[RECORD_SIZE];
+		try (FileChannel output = FileChannel.open(bucketed, READ, WRITE);
+			 DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(unsorted), 1 << 16))) {
+			MappedByteBuffer[] chunks = mapRecords(output, 0, count, READ_WRITE);
+			for (long i = 0; i < count; i++) {
+				input.readFully(record);
+				long position = cursors[prefix(record, DEFAULT_PREFIX_BITS)]++;
+				ByteBuffer chunk = chunks[(int) (position / CHUNK_RECORDS)];
+				chunk.position((int) (position % CHUNK_RECORDS) * RECORD_SIZE);
+				chunk.put(record);
+			}
+		}
+	}
+
+	// sorts and merges the duplicates within every bucket while writing the final file
+	private static long writeIndex(Path file, Path bucketed, long[] bucketStarts) throws IOException {
+		int buckets = bucketStarts.length - 1;
+		long directorySize = (long) bucketStarts.length * Long.BYTES;
+		long[] directory = new long[bucketStarts.length];
+		long written = 0;
+
+		try (FileChannel output = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+			 FileChannel input = FileChannel.open(bucketed, READ)) {
+			MappedByteBuffer[] chunks = mapRecords(input, 0, bucketStarts[buckets], READ_ONLY);
+			output.position(HEADER_SIZE + directorySize);
+			OutputStream records = new BufferedOutputStream(Channels.newOutputStream(output), 1 << 16);
+
+			for (int bucket = 0; bucket < buckets; bucket++) {
+				directory[bucket] = written;
+				written += writeBucket(records, readBucket(chunks, bucketStarts[bucket], bucketStarts[bucket + 1]));
+			}
+			directory[buckets] = written;
+			records.flush();
+
+			ByteBuffer head = ByteBuffer.allocate((int) (HEADER_SIZE + directorySize));
+			head.putInt(MAGIC).putInt(VERSION).putInt(DEFAULT_PREFIX_BITS).putLong(written);
+			head.position(HEADER_SIZE);
+			head.asLongBuffer().put(directory);
+			head.rewind();
+			output.write(head, 0);
+			output.force(true);
+		}
+		long total = written;
+		LOG.info(() -> "Address index " + file + " written with " + total + " hashes");
+		return written;
+	}
+
+	private static List<byte[]> readBucket(MappedByteBuffer[] chunks, long start, long end) {
+		List<byte[]> bucket = new ArrayList<>((int) (end - start));
+		for (long position = start; position < end; position++) {
+			ByteBuffer chunk = chunks[(int) (position / CHUNK_RECORDS)];
+			chunk.position((int) (position % CHUNK_RECORDS) * RECORD_SIZE);
+			byte[] record = new byte[RECORD_SIZE];
+			chunk.get(record);
+			bucket.add(record);
+		}
+		bucket.sort(MappedAddressIndex::compareRecords);
+		return bucket;
+	}
+
+	private static int writeBucket(OutputStream output, List<byte[]> bucket) throws IOException {
+		int written = 0;
+		byte[] previous = null;
+		for (byte[] record : bucket) {
+			if (previous != null && compareRecords(previous, record) == 0) {
+				previous[TYPE_OFFSET] |= record[TYPE_OFFSET];
+				continue;
+			}
+			if (previous != null) {
+				output.write(previous);
+				written++;
+			}
+			previous = record;
+		}
+		if (previous != null) {
+			output.write(previous);
+			written++;
+		}
+		return written;
+	}
+
+	private static int compareRecords(byte[] first, byte[] second) {
+		for (int i = 0; i < Hash160.LENGTH; i++) {
+			int difference = (first[i] & 0xFF) - (second[i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return 0;
+	}
+
+	private static void deleteQuietly(Path path) {
+		if (path != null) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException ioex) {
+				LOG.warning("Unable to delete temporary file " + path + ": " + ioex);
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.mt.core;
+
+/**
+ * This class describes a query selecting the rows whose single column matches
+ * any of the given values, so the {@link SqlDialect} can choose how to pass
+ * the values to the database.
+ *
+ * @author mkrajcovic
+ */
+final class MatchQuery {
+
+	private final String selectList;
+	private final String table;
+	private final String condition;
+	private final String matchedField;
+	private final boolean binary;
+
+	/**
+	 * @param selectList   - selected columns of the table
+	 * @param table        - fully qualified table name
+	 * @param condition    - additional condition on the table rows
+	 * @param matchedField - column compared with the values
+	 * @param binary       - whether the values are byte arrays, strings otherwise
+	 */
+	MatchQuery(String selectList, String table, String condition, String matchedField, boolean binary) {
+		this.selectList = selectList;
+		this.table = table;
+		this.condition = condition;
+		this.matchedField = matchedField;
+		this.binary = binary;
+	}
+
+	/**
+	 * @param matchExpression - predicate applied on the matched field, e.g. {@code IN (?, ?)}
+	 * @return complete statement text
+	 */
+	String select(String matchExpression) {
+		return "SELECT " + selectList
+			+ " FROM " + table
+			+ " WHERE " + condition
+			+ " AND " + matchedField + " " + matchExpression;
+	}
+
+	/**
+	 * @param valueTable  - table holding the values
+	 * @param valueColumn - column of the value table holding the values
+	 * @return statement text joining the values from the given table
+	 */
+	String join(String valueTable, String valueColumn) {
+		return "SELECT " + selectList
+			+ " FROM " + table
+			+ " JOIN " + valueTable + " ON " + matchedField + " = " + valueTable + "." + valueColumn
+			+ " WHERE " + condition;
+	}
+
+	boolean isBinary() {
+		return binary;
+	}
+}
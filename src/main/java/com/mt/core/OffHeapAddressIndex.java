@@ -0,0 +1,288 @@
+package com.mt.core;
+
+import static java.nio.ByteBuffer.allocateDirect;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+import com.mt.crypto.Hash160;
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class represents an in-process store of the active addresses in their
+ * raw form, so the lookups do not need any database round trip.
+ *
+ * <p>
+ * The addresses are held in an open addressing hash table with linear probing
+ * residing in direct (off-heap) memory, so even tens of millions of entries
+ * neither inflate the Java heap nor prolong the GC pauses. The size of the
+ * direct memory is limited by the {@code -XX:MaxDirectMemorySize} JVM option
+ * which needs to be set accordingly (roughly 30 bytes per address).
+ * </p>
+ * <p>
+ * Each slot holds the 20-byte public key hash followed by a single byte with
+ * one bit per {@link AddressType#getCode()} present for that hash. As the
+ * public key hashes are uniformly distributed already, their leading bytes
+ * are used as the hash code directly.
+ * </p>
+ * The lookups can run concurrently, modifications are exclusive.
+ *
+ * @author mkrajcovic
+ */
+public final class OffHeapAddressIndex implements AddressLookup {
+
+	private static final Logger LOG = new WalkingDeadLogger(OffHeapAddressIndex.class);
+
+	private static final int SLOT_SIZE = Hash160.LENGTH + 1;
+	private static final int TYPE_OFFSET = Hash160.LENGTH;
+	// 16M slots per direct buffer to stay far below the 2GB buffer limit
+	private static final int SEGMENT_SHIFT = 24;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private static final byte EMPTY = 0;
+	private static final byte TOMBSTONE = (byte) 0x80;
+	private static final double MAX_LOAD_FACTOR = 0.7;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private ByteBuffer[] segments;
+	private long capacity;
+	// slots holding a hash or a tombstone
+	private long usedSlots;
+	private long size;
+
+	/**
+	 * @param expectedSize - number of hashes to allocate the space for
+	 */
+	public OffHeapAddressIndex(long expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Creates the index holding all the addresses which were not found yet
+	 * from the main lookup table.
+	 *
+	 * @param db - database configured with the public key hash columns
+	 * @return loaded index
+	 */
+	public static OffHeapAddressIndex load(Database db) {
+		long start = System.currentTimeMillis();
+		OffHeapAddressIndex index = new OffHeapAddressIndex(db.countAddressHashes());
+		db.forEachAddressHash(index::add);
+		LOG.info(() -> "Address index loaded with " + index.size() + " hashes in "
+			+ (System.currentTimeMillis() - start) + " ms");
+		return index;
+	}
+
+	private static long capacityFor(long expectedSize) {
+		return Math.max(16, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR));
+	}
+
+	private void allocate(long slots) {
+		if (slots >= (1L << 32)) {
+			throw new IllegalArgumentException("Too many slots requested: " + slots);
+		}
+		int segmentCount = (int) ((slots + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		segments = new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long segmentSlots = Math.min(SEGMENT_MASK + 1, slots - ((long) i << SEGMENT_SHIFT));
+			segments[i] = allocateDirect((int) segmentSlots * SLOT_SIZE);
+		}
+		capacity = slots;
+		usedSlots = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return the number of distinct hashes held
+	 */
+	public long size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+		List<AddressHash> found = new ArrayList<>(0);
+		lock.readLock().lock();
+		try {
+			for (byte[] hash : publicKeyHashes) {
+				long slot = findSlot(hash);
+				if (slot >= 0) {
+					collectTypes(typeMask(slot), hash, addressTypes, found);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return found;
+	}
+
+	private static void collectTypes(int mask, byte[] hash, Set<AddressType> addressTypes, List<AddressHash> found) {
+		for (AddressType type : addressTypes) {
+			if ((mask & (1 << type.getCode())) != 0) {
+				found.add(new AddressHash(type, hash));
+			}
+		}
+	}
+
+	/**
+	 * @param address - to be added to the lookup
+	 */
+	public void add(AddressHash address) {
+		lock.writeLock().lock();
+		try {
+			if (usedSlots + 1 > capacity * MAX_LOAD_FACTOR) {
+				rehash(capacityFor(size + 1) * 2);
+			}
+			insert(address.getHash(), 1 << address.getType().getCode());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param address - to be removed from the lookup
+	 * @return whether the address was present
+	 */
+	public boolean remove(AddressHash address) {
+		lock.writeLock().lock();
+		try {
+			long slot = findSlot(address.getHash());
+			int typeBit = 1 << address.getType().getCode();
+			if (slot < 0 || (typeMask(slot) & typeBit) == 0) {
+				return false;
+			}
+			int mask = typeMask(slot) & ~typeBit;
+			if (mask == 0) {
+				// keep the probing chain unbroken
+				setTypeByte(slot, TOMBSTONE);
+				size--;
+			} else {
+				setTypeByte(slot, (byte) mask);
+			}
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void markFound(Collection<AddressHash> addresses) {
+		addresses.forEach(this::remove);
+	}
+
+	private void insert(byte[] hash, int typeBits) {
+		long slot = homeSlot(hash);
+		long firstTombstone = -1;
+		while (true) {
+			byte typeByte = typeByte(slot);
+			if (typeByte == EMPTY) {
+				break;
+			}
+			if (typeByte == TOMBSTONE) {
+				if (firstTombstone < 0) {
+					firstTombstone = slot;
+				}
+			} else if (keyEquals(slot, hash)) {
+				setTypeByte(slot, (byte) (typeByte | typeBits));
+				return;
+			}
+			slot = nextSlot(slot);
+		}
+		if (firstTombstone >= 0) {
+			slot = firstTombstone;
+		} else {
+			usedSlots++;
+		}
+		ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+		int offset = offset(slot);
+		for (int i = 0; i < Hash160.LENGTH; i++) {
+			segment.put(offset + i, hash[i]);
+		}
+		segment.put(offset + TYPE_OFFSET, (byte) typeBits);
+		size++;
+	}
+
+	private void rehash(long newCapacity) {
+		ByteBuffer[] oldSegments = segments;
+		long oldCapacity = capacity;
+		allocate(newCapacity);
+
+		byte[] hash = new byte[Hash160.LENGTH];
+		for (long slot = 0; slot < oldCapacity; slot++) {
+			ByteBuffer segment = oldSegments[(int) (slot >>> SEGMENT_SHIFT)];
+			int offset = offset(slot);
+			byte typeByte = segment.get(offset + TYPE_OFFSET);
+			if (typeByte != EMPTY && typeByte != TOMBSTONE) {
+				for (int i = 0; i < Hash160.LENGTH; i++) {
+					hash[i] = segment.get(offset + i);
+				}
+				insert(hash, typeByte);
+			}
+		}
+		LOG.info(() -> "Address index resized to " + capacity + " slots");
+	}
+
+	// returns the slot holding the hash or -1 when not present
+	private long findSlot(byte[] hash) {
+		long slot = homeSlot(hash);
+		while (true) {
+			byte typeByte = typeByte(slot);
+			if (typeByte == EMPTY) {
+				return -1;
+			}
+			if (typeByte != TOMBSTONE && keyEquals(slot, hash)) {
+				return slot;
+			}
+			slot = nextSlot(slot);
+		}
+	}
+
+	// maps the leading 32 bits of the hash onto [0, capacity) without modulo
+	private long homeSlot(byte[] hash) {
+		long prefix = ((hash[0] & 0xFFL) << 24) | ((hash[1] & 0xFFL) << 16) | ((hash[2] & 0xFFL) << 8) | (hash[3] & 0xFFL);
+		return (prefix * capacity) >>> 32;
+	}
+
+	private long nextSlot(long slot) {
+		return slot + 1 == capacity ? 0 : slot + 1;
+	}
+
+	private static int offset(long slot) {
+		return (int) (slot & SEGMENT_MASK) * SLOT_SIZE;
+	}
+
+	private boolean keyEquals(long slot, byte[] hash) {
+		ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+		int offset = offset(slot);
+		for (int i = 0; i < Hash160.LENGTH; i++) {
+			if (segment.get(offset + i) != hash[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte typeByte(long slot) {
+		return segments[(int) (slot >>> SEGMENT_SHIFT)].get(offset(slot) + TYPE_OFFSET);
+	}
+
+	private int typeMask(long slot) {
+		return typeByte(slot) & ~TOMBSTONE & 0xFF;
+	}
+
+	private void setTypeByte(long slot, byte value) {
+		segments[(int) (slot >>> SEGMENT_SHIFT)].put(offset(slot) + TYPE_OFFSET, value);
+	}
+}
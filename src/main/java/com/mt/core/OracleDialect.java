@@ -0,0 +1,60 @@
+package com.mt.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The smaller batches are looked up by the IN lists limited to
+ * {@value InListDialect#MAX_IN_LIST} values, the batches reaching the
+ * threshold are inserted into a global temporary table by a single JDBC batch
+ * and matched by a join.
+ * <p>
+ * The global temporary tables {@code GTT_LOOKUP_RAW} and
+ * {@code GTT_LOOKUP_VARCHAR} (created by the provided DDL script) keep the
+ * rows private to the session until the commit.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+final class OracleDialect extends InListDialect {
+
+	private static final String VALUE_COLUMN = "LOOKUP_VALUE";
+
+	private final String schema;
+	private final int tempTableThreshold;
+
+	OracleDialect(String schema, int tempTableThreshold) {
+		this.schema = schema;
+		this.tempTableThreshold = tempTableThreshold;
+	}
+
+	@Override
+	public void selectMatching(ConnectionPool.Lease lease, MatchQuery query, List<?> values, RowReader reader) throws SQLException {
+		if (values.size() < tempTableThreshold) {
+			super.selectMatching(lease, query, values, reader);
+			return;
+		}
+		String valueTable = schema + "." + (query.isBinary() ? "GTT_LOOKUP_RAW" : "GTT_LOOKUP_VARCHAR");
+
+		Connection connection = lease.connection();
+		connection.setAutoCommit(false);
+		try {
+			PreparedStatement insert = lease.prepare("INSERT INTO " + valueTable + " (" + VALUE_COLUMN + ") VALUES (?)");
+			insert.clearBatch();
+			for (Object value : values) {
+				insert.setObject(1, value);
+				insert.addBatch();
+			}
+			insert.executeBatch();
+			SqlDialect.readRows(lease.prepare(query.join(valueTable, VALUE_COLUMN)), reader);
+			connection.commit();
+		} catch (SQLException | RuntimeException error) {
+			connection.rollback();
+			throw error;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+}
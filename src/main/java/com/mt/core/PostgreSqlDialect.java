@@ -0,0 +1,80 @@
+package com.mt.core;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The whole batch is bound as a single array parameter ({@code = ANY(?)}),
+ * so the statement text does not depend on the batch size and is prepared
+ * only once per connection.
+ * <p>
+ * The batches reaching the threshold are copied into a temporary table and
+ * matched by a single join, so the server can choose a hash or merge join
+ * instead of probing the index for every single value.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+final class PostgreSqlDialect implements SqlDialect {
+
+	private static final String VALUE_COLUMN = "lookup_value";
+
+	private final int tempTableThreshold;
+
+	PostgreSqlDialect(int tempTableThreshold) {
+		this.tempTableThreshold = tempTableThreshold;
+	}
+
+	@Override
+	public void selectMatching(ConnectionPool.Lease lease, MatchQuery query, List<?> values, RowReader reader) throws SQLException {
+		if (values.size() >= tempTableThreshold && CopyWriter.isSupported(lease.connection())) {
+			joinMatching(lease, query, values, reader);
+			return;
+		}
+		Array array = lease.connection().createArrayOf(sqlType(query), values.toArray());
+		try {
+			PreparedStatement pstmt = lease.prepare(query.select("= ANY(?)"));
+			pstmt.setArray(1, array);
+			SqlDialect.readRows(pstmt, reader);
+		} finally {
+			array.free();
+		}
+	}
+
+	private static void joinMatching(ConnectionPool.Lease lease, MatchQuery query, List<?> values, RowReader reader) throws SQLException {
+		String valueTable = "tmp_lookup_" + sqlType(query);
+
+		// the temporary table is private to the session and emptied by the commit
+		Connection connection = lease.connection();
+		connection.setAutoCommit(false);
+		try {
+			lease.prepare("CREATE TEMPORARY TABLE IF NOT EXISTS " + valueTable
+				+ " (" + VALUE_COLUMN + " " + sqlType(query) + ") ON COMMIT DELETE ROWS").execute();
+			try (CopyWriter copy = CopyWriter.open(connection, valueTable, VALUE_COLUMN)) {
+				for (Object value : values) {
+					if (query.isBinary()) {
+						copy.field((byte[]) value);
+					} else {
+						copy.field((String) value);
+					}
+					copy.endRow();
+				}
+				copy.finish();
+			}
+			SqlDialect.readRows(lease.prepare(query.join(valueTable, VALUE_COLUMN)), reader);
+			connection.commit();
+		} catch (SQLException | RuntimeException error) {
+			connection.rollback();
+			throw error;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	private static String sqlType(MatchQuery query) {
+		return query.isBinary() ? "bytea" : "varchar";
+	}
+}
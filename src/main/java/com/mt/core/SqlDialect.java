@@ -0,0 +1,80 @@
+package com.mt.core;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * This interface represents the database specific way of executing the
+ * lookups of whole batches, as the fastest one differs a lot between the
+ * databases - from binding a single array parameter, through splitting the
+ * batch into limited IN lists, up to joining a temporary table.
+ * <p>
+ * The dialect is chosen from the JDBC URL unless configured explicitly by
+ * the {@code db.dialect} property.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+interface SqlDialect {
+
+	/**
+	 * Receives the matched rows one by one.
+	 */
+	@FunctionalInterface
+	interface RowReader {
+		void read(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Executes the query for all the given values and passes every matched
+	 * row to the reader.
+	 *
+	 * @param lease  - connection to be used
+	 * @param query  - the query to be executed
+	 * @param values - byte arrays or strings according to the query
+	 * @param reader - of the matched rows
+	 */
+	void selectMatching(ConnectionPool.Lease lease, MatchQuery query, List<?> values, RowReader reader) throws SQLException;
+
+	/**
+	 * Executes the query and passes every row to the reader.
+	 */
+	static void readRows(PreparedStatement pstmt, RowReader reader) throws SQLException {
+		try (ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				reader.read(rs);
+			}
+		}
+	}
+
+	/**
+	 * @param url                - JDBC URL of the database
+	 * @param name               - explicitly configured dialect or null
+	 * @param schema             - schema holding the application tables
+	 * @param tempTableThreshold - batch size from which a temporary table is used
+	 * @return the dialect to be used
+	 */
+	static SqlDialect of(String url, String name, String schema, int tempTableThreshold) {
+		if (name == null) {
+			if (url.startsWith("jdbc:postgresql:")) {
+				name = "postgresql";
+			} else if (url.startsWith("jdbc:oracle:")) {
+				name = "oracle";
+			} else {
+				name = "generic";
+			}
+		}
+		switch (name) {
+		case "postgresql":
+			return new PostgreSqlDialect(tempTableThreshold);
+		case "oracle":
+			return new OracleDialect(schema, tempTableThreshold);
+		case "generic":
+			return new InListDialect();
+		default:
+			throw new IllegalArgumentException("Unsupported database dialect: " + name);
+		}
+	}
+}
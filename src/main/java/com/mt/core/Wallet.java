@@ -1,12 +1,19 @@
 package com.mt.core;
 
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.AsymetricKeyGenerator.PUBLIC_KEY_LENGTH;
+
 import java.security.GeneralSecurityException;
-import java.security.InvalidKeyException;
 import java.security.KeyPair;
-import java.util.Objects;
+import java.util.Arrays;
 import java.util.Set;
 
+import org.bouncycastle.util.encoders.Hex;
+
+import com.mt.crypto.AsymetricKeyGenerator;
 import com.mt.crypto.CryptoAddressGenerator;
+import com.mt.crypto.Hash160;
+import com.mt.metrics.Stage;
 
 /**
  * This class represents a simple holder which provides convenient way to
@@ -17,48 +24,125 @@ import com.mt.crypto.CryptoAddressGenerator;
  */
 public abstract class Wallet {
 
+	// raw form of the keys, the hex representations are created on demand
+	protected final byte[] privateKeyBytes;
+	protected final byte[] publicKeyBytes;
+	protected final byte[] publicKeyHash;
+
 	protected String privateKey;
 	protected String publicKey;
 	protected String address;
+	private final CryptoAddressGenerator addressGenerator;
 
 	/**
-	 * The generation of an invalid key is handled by iterative recreation
-	 * of the wallet.
+	 * Generates a new key pair by the given generator.
 	 *
 	 * @return a valid Wallet
 	 */
 	protected Wallet(CryptoAddressGenerator cryptoWalletGenerator) {
-		handleWalletCreation(cryptoWalletGenerator);
+		this(cryptoWalletGenerator, cryptoWalletGenerator);
+	}
+
+	/**
+	 * Generates a new key pair by the given key generator.
+	 *
+	 * @param cryptoWalletGenerator - used to compute the address on demand
+	 * @param keyGenerator          - which the key pair is generated and read by
+	 */
+	protected Wallet(CryptoAddressGenerator cryptoWalletGenerator, AsymetricKeyGenerator keyGenerator) {
+		this.addressGenerator = cryptoWalletGenerator;
+		this.privateKeyBytes = new byte[PRIVATE_KEY_LENGTH];
+		this.publicKeyBytes = new byte[PUBLIC_KEY_LENGTH];
+		try {
+			KeyPair keyPair = keyGenerator.generateAsymetricKeyPair();
+			keyGenerator.getPrivateKey(keyPair, privateKeyBytes, 0);
+			keyGenerator.getPublicKey(keyPair, publicKeyBytes, 0);
+		} catch (GeneralSecurityException generalError) {
+			throw new ApplicationFailure("Error during wallet creation: " + generalError);
+		}
+		this.publicKeyHash = initPublicKeyHash();
 	}
 
-	private void handleWalletCreation(CryptoAddressGenerator walletGenerator) {
-		boolean createNew = true;
-		while (createNew)
-			try {
-				KeyPair keyPair = walletGenerator.generateAsymetricKeyPair();
-				this.privateKey = walletGenerator.getPrivateKey(keyPair);
-				this.publicKey = walletGenerator.getPublicKey(keyPair);
-				this.address = walletGenerator.getAddress(publicKey);
-				createNew = false;
-			} catch (InvalidKeyException invalidKeyError) {
-				// recreate on invalid key generation
-			} catch (GeneralSecurityException generalError) {
-				throw new ApplicationFailure("Error during wallet creation: " + generalError);
-			}
+	/**
+	 * Creates the wallet from already generated keys. The arrays are held by
+	 * the wallet without copying.
+	 *
+	 * @param cryptoWalletGenerator - used to compute the address on demand
+	 * @param privateKey            - 32-byte private key
+	 * @param publicKey             - serialized public key
+	 */
+	protected Wallet(CryptoAddressGenerator cryptoWalletGenerator, byte[] privateKey, byte[] publicKey) {
+		this.addressGenerator = cryptoWalletGenerator;
+		this.privateKeyBytes = privateKey;
+		this.publicKeyBytes = publicKey;
+		this.publicKeyHash = initPublicKeyHash();
+	}
+
+	// the hash is shared by all the address types derived from this wallet
+	// while the addresses themselves are encoded only when asked for
+	private byte[] initPublicKeyHash() {
+		byte[] hash = new byte[Hash160.LENGTH];
+		addressGenerator.getPublicKeyHash(publicKeyBytes, 0, publicKeyBytes.length, hash, 0);
+		return hash;
 	}
 
+	/**
+	 * @return 64 digit hex private key
+	 */
 	public String getPrivateKey() {
+		if (this.privateKey == null) {
+			this.privateKey = new String(Hex.encode(privateKeyBytes));
+		}
 		return this.privateKey;
 	}
 
+	/**
+	 * @return hex encoded public key
+	 */
 	public String getPublicKey() {
+		if (this.publicKey == null) {
+			this.publicKey = new String(Hex.encode(publicKeyBytes));
+		}
 		return this.publicKey;
 	}
 
+	/**
+	 * @return 32-byte private key which must not be modified
+	 */
+	public byte[] getPrivateKeyBytes() {
+		return this.privateKeyBytes;
+	}
+
+	/**
+	 * @return serialized public key which must not be modified
+	 */
+	public byte[] getPublicKeyBytes() {
+		return this.publicKeyBytes;
+	}
+
 	public String getAddress() {
+		if (this.address == null) {
+			this.address = encodeAddress(addressGenerator);
+		}
 		return this.address;
 	}
 
+	protected String encodeAddress(CryptoAddressGenerator generator) {
+		long start = System.nanoTime();
+		String encoded = generator.getAddressFromHash(publicKeyHash);
+		Stage.ENCODING.recordSince(start);
+		return encoded;
+	}
+
+	/**
+	 * @return RIPEMD-160(SHA-256(public key)) which all the supported
+	 *         addresses are derived from. The returned array must not be
+	 *         modified.
+	 */
+	public byte[] getPublicKeyHash() {
+		return this.publicKeyHash;
+	}
+
 	/**
 	 * @param addressType
 	 *            - one of supported address types
@@ -74,24 +158,24 @@ public abstract class Wallet {
 
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(publicKey);
+		return Arrays.hashCode(publicKeyBytes);
 	}
 
 	@Override
 	public boolean equals(Object other) {
 		if (other instanceof Wallet) {
 			Wallet otherWallet = (Wallet) other;
-			return Objects.equals(publicKey, otherWallet.publicKey)
-				&& Objects.equals(privateKey, otherWallet.privateKey);
+			return Arrays.equals(publicKeyBytes, otherWallet.publicKeyBytes)
+				&& Arrays.equals(privateKeyBytes, otherWallet.privateKeyBytes);
 		}
 		return false;
 	}
 
 	@Override
 	public String toString() {
-		return "Wallet [address=" + address
-			+ ", publicKey=" + publicKey
-			+ ", privateKey=" + privateKey + "]";
+		return "Wallet [address=" + getAddress()
+			+ ", publicKey=" + getPublicKey()
+			+ ", privateKey=" + getPrivateKey() + "]";
 	}
 
 }
@@ -0,0 +1,484 @@
+package com.mt.core;
+
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.AsymetricKeyGenerator.PUBLIC_KEY_LENGTH;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class represents an append-only journal of the generated and found
+ * wallets on the local disk, written by the processing stage instead of the
+ * database and replayed into the database by a background drainer.
+ *
+ * <p>
+ * The journal is a sequence of segment files holding the records of whole
+ * batches - the record type, the number of wallets, the raw private and
+ * public keys of the wallets and a CRC32 checksum. The appends are group
+ * committed - concurrent appenders are covered by a single
+ * {@link FileChannel#force(boolean)} - so a returning {@link #append} means
+ * the batch survives a crash.
+ * </p>
+ * <p>
+ * The drainer applies the records in order and stores its position into the
+ * checkpoint file after each of them. When the database is not available it
+ * retries the same record with a growing delay, so nothing is lost during an
+ * outage and the remaining records are applied after a restart. A record
+ * interrupted by a crash before its checkpoint is applied once again, so the
+ * replay is at least once - the wallets saved before are skipped by
+ * {@link Database#replayWallets(List)}.
+ * </p>
+ * <p>
+ * A record failing for other reasons than the connection to the database is
+ * tried {@value #MAX_ATTEMPTS} times only, then it is appended to the
+ * {@code quarantine.log} file in the same format and the drainer continues
+ * with the next one.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class WalletJournal implements AutoCloseable {
+
+	private static final Logger LOG = new WalkingDeadLogger(WalletJournal.class);
+
+	/**
+	 * Wallets to be saved by {@link Database#replayWallets(List)}
+	 */
+	public static final byte GENERATED = 1;
+	/**
+	 * Wallets to be saved by {@link Database#savePrivateKeys(List)}
+	 */
+	public static final byte FOUND = 2;
+
+	private static final int HEADER_SIZE = 1 + Integer.BYTES;
+	private static final int WALLET_SIZE = PRIVATE_KEY_LENGTH + PUBLIC_KEY_LENGTH;
+	private static final long SEGMENT_SIZE = 64L << 20;
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String CHECKPOINT = "checkpoint";
+	private static final String QUARANTINE = "quarantine.log";
+	private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	private static final int MAX_ATTEMPTS = 10;
+
+	private final Path directory;
+	private final Object syncLock = new Object();
+	private final CRC32 crc = new CRC32();
+
+	// writer state guarded by this
+	private FileChannel channel;
+	private long activeSegment;
+	private long writePosition;
+	private ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1000 * WALLET_SIZE + Integer.BYTES);
+
+	// the last position forced to the disk
+	private volatile Position durable;
+	// the position after the last record applied to the database, as in the checkpoint file
+	private volatile Position applied;
+
+	private Thread drainer;
+	private volatile boolean closed;
+
+	private WalletJournal(Path directory) throws IOException {
+		this.directory = directory;
+		TreeMap<Long, Path> segments = listSegments();
+		activeSegment = segments.isEmpty() ? 0 : segments.lastKey();
+		channel = FileChannel.open(segmentPath(activeSegment), CREATE, READ, WRITE);
+		writePosition = recoverTail(channel);
+		durable = new Position(activeSegment, writePosition);
+		applied = readCheckpoint();
+	}
+
+	/**
+	 * Opens the journal in the given directory, dropping the last record if it
+	 * was not completely written before a crash.
+	 *
+	 * @param directory - created if it does not exist
+	 * @return journal ready for appending
+	 */
+	public static WalletJournal open(Path directory) {
+		try {
+			Files.createDirectories(directory);
+			return new WalletJournal(directory);
+		} catch (IOException ioex) {
+			throw new ApplicationFailure("Could not open the wallet journal in " + directory, ioex);
+		}
+	}
+
+	/**
+	 * Writes the wallets to the journal and waits until they are durable.
+	 *
+	 * @param type    - {@link #GENERATED} or {@link #FOUND}
+	 * @param wallets - to be saved into the database later
+	 */
+	public void append(byte type, List<Wallet> wallets) {
+		if (wallets.isEmpty()) {
+			return;
+		}
+		try {
+			long segment;
+			long end;
+			synchronized (this) {
+				if (closed) {
+					throw new IllegalStateException("Wallet journal has been closed");
+				}
+				ByteBuffer buffer = encode(type, wallets);
+				while (buffer.hasRemaining()) {
+					writePosition += channel.write(buffer, writePosition);
+				}
+				segment = activeSegment;
+				end = writePosition;
+			}
+			sync(segment, end);
+		} catch (IOException ioex) {
+			throw new ApplicationFailure("Could not write " + wallets.size() + " wallets into the journal", ioex);
+		}
+	}
+
+	private ByteBuffer encode(byte type, List<Wallet> wallets) {
+		int size = HEADER_SIZE + wallets.size() * WALLET_SIZE + Integer.BYTES;
+		if (record.capacity() < size) {
+			record = ByteBuffer.allocate(size);
+		}
+		record.clear();
+		record.put(type).putInt(wallets.size());
+		for (Wallet wallet : wallets) {
+			record.put(wallet.getPrivateKeyBytes()).put(wallet.getPublicKeyBytes());
+		}
+		crc.reset();
+		crc.update(record.array(), 0, record.position());
+		record.putInt((int) crc.getValue());
+		record.flip();
+		return record;
+	}
+
+	// one appender forces the channel for all the appends written so far
+	private void sync(long segment, long end) throws IOException {
+		synchronized (syncLock) {
+			if (durable.covers(segment, end)) {
+				return;
+			}
+			FileChannel written;
+			long writtenSegment;
+			long writtenEnd;
+			synchronized (this) {
+				written = channel;
+				writtenSegment = activeSegment;
+				writtenEnd = writePosition;
+			}
+			written.force(false);
+			durable = new Position(writtenSegment, writtenEnd);
+
+			if (writtenEnd >= SEGMENT_SIZE) {
+				rotate();
+			}
+		}
+	}
+
+	// called under the sync lock, so no appender is forcing the old channel
+	private synchronized void rotate() throws IOException {
+		channel.force(false);
+		channel.close();
+		activeSegment++;
+		writePosition = 0;
+		channel = FileChannel.open(segmentPath(activeSegment), CREATE, READ, WRITE);
+		durable = new Position(activeSegment, 0);
+	}
+
+	/**
+	 * Starts the background thread replaying the journal into the database.
+	 *
+	 * @param db - the records are applied to
+	 */
+	public synchronized void startDraining(Database db) {
+		if (drainer != null) {
+			throw new IllegalStateException("Wallet journal is being drained already");
+		}
+		drainer = new Thread(() -> drain(db), "wallet-journal-drainer");
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	private void drain(Database db) {
+		try {
+			Position position = applied;
+			while (!closed) {
+				Position next = applyNext(db, position);
+				if (next == null) {
+					Thread.sleep(100); // nothing durable to apply yet
+				} else {
+					writeCheckpoint(next);
+					applied = next;
+					position = next;
+				}
+			}
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
+		} catch (IOException ioex) {
+			if (!closed) {
+				LOG.severe("Wallet journal draining has failed: " + ioex);
+			}
+		}
+	}
+
+	// returns the position after the applied record or null if there is none
+	private Position applyNext(Database db, Position position) throws IOException, InterruptedException {
+		Position limit = durable;
+		Path segment = segmentPath(position.segment);
+		if (position.segment < limit.segment && !Files.exists(segment)) {
+			return new Position(position.segment + 1, 0);
+		}
+		long end = position.segment < limit.segment ? Files.size(segment) : limit.offset;
+		if (position.offset >= end) {
+			if (position.segment < limit.segment) {
+				// completely drained and no longer written
+				Files.deleteIfExists(segment);
+				return new Position(position.segment + 1, 0);
+			}
+			return null;
+		}
+		try (FileChannel reader = FileChannel.open(segment, READ)) {
+			Record next = readRecord(reader, position.offset, end);
+			if (next == null) {
+				throw new IOException("Corrupted wallet journal record in " + segment + " at " + position.offset);
+			}
+			if (!apply(db, next)) {
+				quarantine(reader, position.offset, next.size);
+			}
+			return new Position(position.segment, position.offset + next.size);
+		}
+	}
+
+	// returns false when the record keeps failing while the database is available
+	private boolean apply(Database db, Record next) throws InterruptedException {
+		long delay = 100;
+		int attempts = 0;
+		while (true) {
+			try {
+				if (next.type == GENERATED) {
+					db.replayWallets(next.wallets);
+				} else {
+					db.savePrivateKeys(next.wallets);
+				}
+				return true;
+			} catch (ApplicationFailure | IllegalStateException error) {
+				if (closed) {
+					throw new InterruptedException("Wallet journal has been closed");
+				}
+				// an outage is waited for as long as it takes
+				if (!Database.hasSqlState(error, Database.CONNECTION_EXCEPTION) && ++attempts >= MAX_ATTEMPTS) {
+					LOG.severe("Could not replay " + next.wallets.size() + " wallets from the journal in " + attempts
+						+ " attempts, moving them to " + directory.resolve(QUARANTINE) + ": " + error);
+					return false;
+				}
+				LOG.warning("Could not replay " + next.wallets.size() + " wallets from the journal, retrying in " + delay + " ms: " + error);
+				Thread.sleep(delay);
+				delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+			}
+		}
+	}
+
+	// the record is copied as it is, so it can be replayed later by hand
+	private void quarantine(FileChannel reader, long offset, long size) throws IOException {
+		try (FileChannel writer = FileChannel.open(directory.resolve(QUARANTINE), CREATE, WRITE, APPEND)) {
+			long copied = 0;
+			while (copied < size) {
+				copied += reader.transferTo(offset + copied, size - copied, writer);
+			}
+			writer.force(false);
+		}
+	}
+
+	/**
+	 * Cheap enough to be polled by the metrics, only the sizes of the segments
+	 * between the applied and the durable positions are looked up on the disk.
+	 *
+	 * @return the number of bytes written but not yet applied to the database
+	 */
+	public long getBacklog() {
+		try {
+			Position drained = applied;
+			Position limit = durable;
+			long backlog = limit.offset - drained.offset;
+			for (long segment = drained.segment; segment < limit.segment; segment++) {
+				Path path = segmentPath(segment);
+				backlog += Files.exists(path) ? Files.size(path) : 0;
+			}
+			return backlog;
+		} catch (IOException ioex) {
+			throw new UncheckedIOException(ioex);
+		}
+	}
+
+	// reads a complete valid record or returns null
+	private static Record readRecord(FileChannel reader, long offset, long end) throws IOException {
+		if (end - offset < HEADER_SIZE + Integer.BYTES) {
+			return null;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(reader, header, offset);
+		byte type = header.get(0);
+		int count = header.getInt(1);
+		long size = HEADER_SIZE + (long) count * WALLET_SIZE + Integer.BYTES;
+		if ((type != GENERATED && type != FOUND) || count <= 0 || offset + size > end) {
+			return null;
+		}
+		ByteBuffer content = ByteBuffer.allocate((int) size);
+		readFully(reader, content, offset);
+		CRC32 checksum = new CRC32();
+		checksum.update(content.array(), 0, (int) size - Integer.BYTES);
+		if ((int) checksum.getValue() != content.getInt((int) size - Integer.BYTES)) {
+			return null;
+		}
+		List<Wallet> wallets = new ArrayList<>(count);
+		content.position(HEADER_SIZE);
+		for (int i = 0; i < count; i++) {
+			byte[] privateKey = new byte[PRIVATE_KEY_LENGTH];
+			byte[] publicKey = new byte[PUBLIC_KEY_LENGTH];
+			content.get(privateKey).get(publicKey);
+			wallets.add(new BitcoinWallet(privateKey, publicKey));
+		}
+		return new Record(type, wallets, (int) size);
+	}
+
+	private static void readFully(FileChannel reader, ByteBuffer buffer, long offset) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (reader.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of the wallet journal");
+			}
+		}
+	}
+
+	// finds the end of the last valid record and cuts off anything after it
+	private static long recoverTail(FileChannel segment) throws IOException {
+		long size = segment.size();
+		long offset = 0;
+		Record next;
+		while ((next = readRecord(segment, offset, size)) != null) {
+			offset += next.size;
+		}
+		if (offset < size) {
+			LOG.warning("Dropping " + (size - offset) + " bytes of incomplete wallet journal record");
+			segment.truncate(offset);
+			segment.force(false);
+		}
+		return offset;
+	}
+
+	private Position readCheckpoint() throws IOException {
+		Path checkpoint = directory.resolve(CHECKPOINT);
+		if (!Files.exists(checkpoint)) {
+			TreeMap<Long, Path> segments = listSegments();
+			return new Position(segments.isEmpty() ? 0 : segments.firstKey(), 0);
+		}
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+		return new Position(content.getLong(), content.getLong());
+	}
+
+	private void writeCheckpoint(Position position) throws IOException {
+		Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+		try (FileChannel writer = FileChannel.open(temporary, CREATE, WRITE)) {
+			ByteBuffer content = ByteBuffer.allocate(2 * Long.BYTES).putLong(position.segment).putLong(position.offset);
+			content.flip();
+			while (content.hasRemaining()) {
+				writer.write(content);
+			}
+			writer.force(false);
+		}
+		Files.move(temporary, directory.resolve(CHECKPOINT), ATOMIC_MOVE, REPLACE_EXISTING);
+	}
+
+	private TreeMap<Long, Path> listSegments() throws IOException {
+		TreeMap<Long, Path> segments = new TreeMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				String name = file.getFileName().toString();
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+					segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+				}
+			});
+		}
+		return segments;
+	}
+
+	private Path segmentPath(long segment) {
+		return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * Stops the drainer and closes the journal, the records not applied yet
+	 * are replayed after the next start.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		Thread running;
+		synchronized (this) {
+			running = drainer;
+		}
+		if (running != null) {
+			running.interrupt();
+			try {
+				running.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException iex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (syncLock) {
+			synchronized (this) {
+				try {
+					channel.force(false);
+					channel.close();
+				} catch (IOException ioex) {
+					LOG.warning("Error closing the wallet journal: " + ioex);
+				}
+			}
+		}
+	}
+
+	private static final class Position {
+
+		private final long segment;
+		private final long offset;
+
+		private Position(long segment, long offset) {
+			this.segment = segment;
+			this.offset = offset;
+		}
+
+		private boolean covers(long otherSegment, long otherOffset) {
+			return segment > otherSegment || (segment == otherSegment && offset >= otherOffset);
+		}
+	}
+
+	private static final class Record {
+
+		private final byte type;
+		private final List<Wallet> wallets;
+		private final int size;
+
+		private Record(byte type, List<Wallet> wallets, int size) {
+			this.type = type;
+			this.wallets = wallets;
+			this.size = size;
+		}
+	}
+}
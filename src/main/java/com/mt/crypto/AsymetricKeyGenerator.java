@@ -10,6 +10,16 @@ import java.security.KeyPair;
  */
 public interface AsymetricKeyGenerator {
 
+	/**
+	 * Length of the raw big-endian private key
+	 */
+	public static final int PRIVATE_KEY_LENGTH = 32;
+
+	/**
+	 * Length of the non compressed public key: 0x04 prefix + X + Y coordinates
+	 */
+	public static final int PUBLIC_KEY_LENGTH = 65;
+
 	/**
 	 *
 	 * @return KeyPair instance holding public and private key generated by this method
@@ -35,4 +45,30 @@ public interface AsymetricKeyGenerator {
 	 */
 	public String getPrivateKey(KeyPair keyPair) throws InvalidKeyException;
 
+	/**
+	 * Writes the {@value #PUBLIC_KEY_LENGTH}-byte non compressed public key
+	 * into the given buffer.
+	 *
+	 * @param keyPair
+	 *            which to extract public key from
+	 * @param output
+	 *            buffer receiving the public key
+	 * @param offset
+	 *            position in the buffer to start writing at
+	 */
+	public void getPublicKey(KeyPair keyPair, byte[] output, int offset);
+
+	/**
+	 * Writes the {@value #PRIVATE_KEY_LENGTH}-byte private key into the given
+	 * buffer.
+	 *
+	 * @param keyPair
+	 *            which to extract private key from
+	 * @param output
+	 *            buffer receiving the private key
+	 * @param offset
+	 *            position in the buffer to start writing at
+	 */
+	public void getPrivateKey(KeyPair keyPair, byte[] output, int offset);
+
 }
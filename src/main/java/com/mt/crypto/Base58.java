@@ -25,7 +25,7 @@ import java.util.Arrays;
  * alphanumeric.</li>
  * </ul>
  * <p>
- * However, note that the encoding/decoding runs in O(n&sup2;) time, so it is
+ * However, note that the encoding runs in O(n&sup2;) time, so it is
  * not useful for large data.
  * <p>
  * The basic idea of the encoding is to treat the data bytes as a large number
@@ -40,14 +40,6 @@ public class Base58 {
 
 	private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
 	private static final char ENCODED_ZERO = ALPHABET[0];
-	private static final int[] INDEXES = new int[128];
-
-	static {
-		Arrays.fill(INDEXES, -1);
-		for (int i = 0; i < ALPHABET.length; i++) {
-			INDEXES[ALPHABET[i]] = i;
-		}
-	}
 
 	private Base58() {
 		throw new IllegalStateException("Base58 was not designed to be instantiated");
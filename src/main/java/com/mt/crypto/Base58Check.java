@@ -0,0 +1,219 @@
+package com.mt.crypto;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.Arrays;
+
+/**
+ * Base58 encoding specialized for the 25-byte Base58Check payloads of the
+ * P2PKH and P2SH addresses (version byte + 20-byte hash + 4-byte checksum).
+ * <p>
+ * Unlike the generic {@link Base58} which divides the whole number by 58 byte
+ * by byte for every output digit, the payload is held in seven 32-bit limbs
+ * (kept in 64-bit locals so that the remainder shifted by 32 bits still fits)
+ * and divided by 58<sup>5</sup> - seven rounds of seven long divisions
+ * produce all the 35 digits. Nothing is allocated, the digits are written into
+ * a buffer of the caller and a String is created only on demand.
+ * </p>
+ * <p>
+ * The decoder does the reverse - it multiplies the limbs by 58<sup>5</sup>
+ * and adds five digits at once.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class Base58Check {
+
+	public static final int PAYLOAD_LENGTH = 25;
+	/**
+	 * 58<sup>35</sup> &gt; 2<sup>200</sup>
+	 */
+	public static final int MAX_ENCODED_LENGTH = 35;
+
+	private static final byte[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".getBytes(US_ASCII);
+	private static final byte ENCODED_ZERO = ALPHABET[0];
+	private static final byte[] INDEXES = new byte[128];
+	private static final long CHUNK = 58L * 58 * 58 * 58 * 58;
+	private static final int CHUNK_DIGITS = 5;
+	private static final long LIMB_MASK = 0xFFFFFFFFL;
+
+	static {
+		Arrays.fill(INDEXES, (byte) -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			INDEXES[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private Base58Check() {
+		throw new IllegalStateException("Base58Check was not designed to be instantiated");
+	}
+
+	/**
+	 * Writes the Base58 digits of the payload as ASCII characters.
+	 *
+	 * @param payload      - holding the 25-byte payload
+	 * @param offset       - of the payload
+	 * @param output       - with at least {@value #MAX_ENCODED_LENGTH} bytes
+	 *                     available from the output offset
+	 * @param outputOffset - where the first character is written
+	 * @return the number of characters written
+	 */
+	public static int encode(byte[] payload, int offset, byte[] output, int outputOffset) {
+		int zeros = 0;
+		while (zeros < PAYLOAD_LENGTH && payload[offset + zeros] == 0) {
+			zeros++;
+		}
+
+		long l0 = payload[offset] & 0xFF;
+		long l1 = readLimb(payload, offset + 1);
+		long l2 = readLimb(payload, offset + 5);
+		long l3 = readLimb(payload, offset + 9);
+		long l4 = readLimb(payload, offset + 13);
+		long l5 = readLimb(payload, offset + 17);
+		long l6 = readLimb(payload, offset + 21);
+
+		// the digits are produced from the least significant one
+		int position = outputOffset + MAX_ENCODED_LENGTH;
+		for (int round = 0; round < MAX_ENCODED_LENGTH / CHUNK_DIGITS; round++) {
+			long remainder = l0;
+			l0 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l1;
+			l1 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l2;
+			l2 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l3;
+			l3 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l4;
+			l4 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l5;
+			l5 = remainder / CHUNK;
+			remainder = ((remainder % CHUNK) << 32) | l6;
+			l6 = remainder / CHUNK;
+			int chunk = (int) (remainder % CHUNK);
+			for (int i = 0; i < CHUNK_DIGITS; i++) {
+				output[--position] = ALPHABET[chunk % 58];
+				chunk /= 58;
+			}
+		}
+
+		// the leading zero digits of the number are replaced by the zero bytes of the payload
+		int significant = outputOffset;
+		int end = outputOffset + MAX_ENCODED_LENGTH;
+		while (significant < end && output[significant] == ENCODED_ZERO) {
+			significant++;
+		}
+		int length = zeros + end - significant;
+		System.arraycopy(output, significant, output, outputOffset + zeros, end - significant);
+		Arrays.fill(output, outputOffset, outputOffset + zeros, ENCODED_ZERO);
+		return length;
+	}
+
+	/**
+	 * @param payload - holding the 25-byte payload
+	 * @param offset  - of the payload
+	 * @return the Base58 encoded payload
+	 */
+	public static String encode(byte[] payload, int offset) {
+		byte[] encoded = new byte[MAX_ENCODED_LENGTH];
+		return new String(encoded, 0, encode(payload, offset, encoded, 0), US_ASCII);
+	}
+
+	/**
+	 * Decodes the Base58 encoded 25-byte payload and verifies its checksum.
+	 *
+	 * @param encoded      - Base58Check encoded address
+	 * @param output       - with at least {@value #PAYLOAD_LENGTH} bytes
+	 *                     available from the output offset
+	 * @param outputOffset - where the payload is written
+	 * @throws IllegalArgumentException if the input is not a valid Base58Check
+	 *                                  encoding of a 25-byte payload
+	 */
+	public static void decode(CharSequence encoded, byte[] output, int outputOffset) {
+		int length = encoded.length();
+		if (length == 0 || length > MAX_ENCODED_LENGTH) {
+			throw new IllegalArgumentException("Not a Base58 encoded " + PAYLOAD_LENGTH + "-byte payload: " + encoded);
+		}
+		int zeros = 0;
+		while (zeros < length && encoded.charAt(zeros) == ENCODED_ZERO) {
+			zeros++;
+		}
+
+		long l0 = 0;
+		long l1 = 0;
+		long l2 = 0;
+		long l3 = 0;
+		long l4 = 0;
+		long l5 = 0;
+		long l6 = 0;
+		// the first chunk takes the digits not divisible into the whole chunks
+		int position = 0;
+		int chunkDigits = length % CHUNK_DIGITS == 0 ? CHUNK_DIGITS : length % CHUNK_DIGITS;
+		while (position < length) {
+			long multiplier = 1;
+			long carry = 0;
+			for (int i = 0; i < chunkDigits; i++, position++) {
+				carry = carry * 58 + digit(encoded, position);
+				multiplier *= 58;
+			}
+			long product = l6 * multiplier + carry;
+			l6 = product & LIMB_MASK;
+			product = l5 * multiplier + (product >>> 32);
+			l5 = product & LIMB_MASK;
+			product = l4 * multiplier + (product >>> 32);
+			l4 = product & LIMB_MASK;
+			product = l3 * multiplier + (product >>> 32);
+			l3 = product & LIMB_MASK;
+			product = l2 * multiplier + (product >>> 32);
+			l2 = product & LIMB_MASK;
+			product = l1 * multiplier + (product >>> 32);
+			l1 = product & LIMB_MASK;
+			l0 = l0 * multiplier + (product >>> 32);
+			if (l0 > 0xFF) {
+				throw new IllegalArgumentException("Base58 value exceeds " + PAYLOAD_LENGTH + " bytes: " + encoded);
+			}
+			chunkDigits = CHUNK_DIGITS;
+		}
+
+		output[outputOffset] = (byte) l0;
+		writeLimb(l1, output, outputOffset + 1);
+		writeLimb(l2, output, outputOffset + 5);
+		writeLimb(l3, output, outputOffset + 9);
+		writeLimb(l4, output, outputOffset + 13);
+		writeLimb(l5, output, outputOffset + 17);
+		writeLimb(l6, output, outputOffset + 21);
+
+		int leadingZeroBytes = 0;
+		while (leadingZeroBytes < PAYLOAD_LENGTH && output[outputOffset + leadingZeroBytes] == 0) {
+			leadingZeroBytes++;
+		}
+		if (leadingZeroBytes != zeros) {
+			throw new IllegalArgumentException("Not a Base58 encoded " + PAYLOAD_LENGTH + "-byte payload: " + encoded);
+		}
+		if (!Hash160.verifyChecksum(output, outputOffset, PAYLOAD_LENGTH - 4)) {
+			throw new IllegalArgumentException("Invalid checksum of: " + encoded);
+		}
+	}
+
+	private static int digit(CharSequence encoded, int position) {
+		char c = encoded.charAt(position);
+		int digit = c < 128 ? INDEXES[c] : -1;
+		if (digit < 0) {
+			throw new IllegalArgumentException("Invalid base58 character '" + c + "' at position " + position);
+		}
+		return digit;
+	}
+
+	private static long readLimb(byte[] data, int offset) {
+		return (data[offset] & 0xFFL) << 24
+			| (data[offset + 1] & 0xFFL) << 16
+			| (data[offset + 2] & 0xFFL) << 8
+			| (data[offset + 3] & 0xFFL);
+	}
+
+	private static void writeLimb(long limb, byte[] output, int offset) {
+		output[offset] = (byte) (limb >>> 24);
+		output[offset + 1] = (byte) (limb >>> 16);
+		output[offset + 2] = (byte) (limb >>> 8);
+		output[offset + 3] = (byte) limb;
+	}
+}
@@ -1,12 +1,27 @@
 package com.mt.crypto;
 
 import static java.lang.System.arraycopy;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.Arrays;
 
 public class Bech32 {
 
 	private static final String CHARSET = "qpzry9x8gf2tvdw0s3jn54khce6mua7l";
+	private static final byte[] CHARSET_BYTES = CHARSET.getBytes(US_ASCII);
 	private static final int[] GENERATORS = { 0x3b6a57b2, 0x26508e6d, 0x1ea119fa, 0x3d4233dd, 0x2a1462b3 };
 
+	/**
+	 * Length of the main net address of a version 0 witness program of a
+	 * public key hash - "bc1", the version, 32 values of the 20-byte program
+	 * and 6 values of the checksum.
+	 */
+	public static final int P2WPKH_LENGTH = 42;
+
+	private static final byte[] P2WPKH_PREFIX = "bc1q".getBytes(US_ASCII);
+	// checksum state after the expanded "bc" and the witness version 0
+	private static final int P2WPKH_STATE = polymod(p2wpkhPrefixValues());
+
 	private Bech32() {
 		throw new IllegalStateException("This class was not designed to be instantiated");
 	}
@@ -32,18 +47,109 @@ public class Bech32 {
 		return new String(result);
 	}
 
+	/**
+	 * Writes the main net Bech32 address of the version 0 witness program of
+	 * the 20-byte public key hash into the given buffer. Unlike the generic
+	 * {@link #encode(String, byte[])}, the checksum continues from the state
+	 * precomputed for the fixed prefix and nothing is allocated.
+	 *
+	 * @param hash         - holding the 20-byte public key hash
+	 * @param offset       - of the hash
+	 * @param output       - with at least {@value #P2WPKH_LENGTH} bytes
+	 *                     available from the output offset
+	 * @param outputOffset - where the first character is written
+	 */
+	public static void encodeP2wpkh(byte[] hash, int offset, byte[] output, int outputOffset) {
+		arraycopy(P2WPKH_PREFIX, 0, output, outputOffset, P2WPKH_PREFIX.length);
+		int position = outputOffset + P2WPKH_PREFIX.length;
+		int chk = P2WPKH_STATE;
+
+		// every 5 bytes regroup into 8 values of 5 bits
+		for (int i = offset; i < offset + Hash160.LENGTH; i += 5) {
+			long group = (hash[i] & 0xFFL) << 32
+				| (hash[i + 1] & 0xFFL) << 24
+				| (hash[i + 2] & 0xFFL) << 16
+				| (hash[i + 3] & 0xFFL) << 8
+				| (hash[i + 4] & 0xFFL);
+			for (int shift = 35; shift >= 0; shift -= 5) {
+				int value = (int) (group >>> shift) & 0x1f;
+				chk = polymodStep(chk, value);
+				output[position++] = CHARSET_BYTES[value];
+			}
+		}
+
+		for (int i = 0; i < 6; i++) {
+			chk = polymodStep(chk, 0);
+		}
+		chk ^= 1;
+		for (int i = 0; i < 6; i++) {
+			output[position++] = CHARSET_BYTES[(chk >>> 5 * (5 - i)) & 0x1f];
+		}
+	}
+
+	/**
+	 * Decodes the given Bech32 string and verifies its checksum.
+	 *
+	 * @param bech - the Bech32 encoded string
+	 * @return pair of the human readable part and the 5-bit data values
+	 *         without the checksum
+	 * @throws IllegalArgumentException if the string is not a valid Bech32 string
+	 */
+	public static Pair<String, byte[]> decode(String bech) {
+		String lower = bech.toLowerCase();
+		if (!lower.equals(bech) && !bech.toUpperCase().equals(bech)) {
+			throw new IllegalArgumentException("Mixed case in: " + bech);
+		}
+		int position = lower.lastIndexOf('1');
+		if (position < 1 || position + 7 > lower.length() || lower.length() > 90) {
+			throw new IllegalArgumentException("Invalid separator position in: " + bech);
+		}
+		byte[] hrp = lower.substring(0, position).getBytes();
+		byte[] data = new byte[lower.length() - position - 1];
+		for (int i = 0; i < data.length; i++) {
+			int value = CHARSET.indexOf(lower.charAt(position + 1 + i));
+			if (value < 0) {
+				throw new IllegalArgumentException("Invalid character in: " + bech);
+			}
+			data[i] = (byte) value;
+		}
+
+		byte[] expanded = hrpExpand(hrp);
+		byte[] values = new byte[expanded.length + data.length];
+		arraycopy(expanded, 0, values, 0, expanded.length);
+		arraycopy(data, 0, values, expanded.length, data.length);
+		if (polymod(values) != 1) {
+			throw new IllegalArgumentException("Invalid checksum of: " + bech);
+		}
+
+		byte[] withoutChecksum = new byte[data.length - 6];
+		arraycopy(data, 0, withoutChecksum, 0, withoutChecksum.length);
+		return Pair.of(new String(hrp), withoutChecksum);
+	}
+
 	private static int polymod(byte[] values) {
 		int chk = 1;
 		for (byte b : values) {
-			byte top = (byte) (chk >> 0x19);
-			chk = b & 0xFF ^ ((chk & 0x1ffffff) << 5); // altered by 345847e
-			for (int i = 0; i < 5; i++) {
-				chk ^= ((top >> i) & 1) == 1 ? GENERATORS[i] : 0;
-			}
+			chk = polymodStep(chk, b & 0xFF);
 		}
 		return chk;
 	}
 
+	private static int polymodStep(int chk, int value) {
+		byte top = (byte) (chk >> 0x19);
+		chk = value ^ ((chk & 0x1ffffff) << 5); // altered by 345847e
+		for (int i = 0; i < 5; i++) {
+			chk ^= ((top >> i) & 1) == 1 ? GENERATORS[i] : 0;
+		}
+		return chk;
+	}
+
+	private static byte[] p2wpkhPrefixValues() {
+		byte[] expanded = hrpExpand("bc".getBytes(US_ASCII));
+		// followed by the witness version 0
+		return Arrays.copyOf(expanded, expanded.length + 1);
+	}
+
 	private static byte[] hrpExpand(byte[] hrp) {
 		byte[] buf1 = new byte[hrp.length];
 		byte[] buf2 = new byte[hrp.length];
@@ -0,0 +1,89 @@
+package com.mt.crypto;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECPoint;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * This class generates the secp256k1 key pairs by the BouncyCastle security
+ * provider, which has to be registered before.
+ *
+ * @author mkrajcovic
+ */
+public final class BouncyCastleKeyGenerator implements AsymetricKeyGenerator {
+
+	/**
+	 * Generates KeyPair by applying ECDSA algorithm to the private key.
+	 * Here, the secp256k1 curve is used as by the Bitcoin protocol.
+	 *
+	 * @return KeyPair - holder containing public and private key
+	 */
+	@Override
+	public KeyPair generateAsymetricKeyPair() throws NoSuchProviderException,
+													 NoSuchAlgorithmException,
+													 InvalidAlgorithmParameterException {
+		/*
+		 * An elliptic curve is a curve defined by the equation y² = x³ + ax + b
+		 * with a chosen a and b.
+		 *
+		 * By applying the ECDSA to the private key, we get a 64-byte integer.
+		 * This consists of two 32-byte integers that represent the X and Y of
+		 * the point on the elliptic curve, concatenated together.
+		 */
+		KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC", "BC");
+		ECGenParameterSpec ecSpec = new ECGenParameterSpec("secp256k1");
+		keyGen.initialize(ecSpec);
+
+		return keyGen.generateKeyPair();
+	}
+
+	/**
+	 * Retrieves the generated public key from the KeyPair holder applying
+	 * concatenation of X and Y EC coordinates together with 0x04 prepended to
+	 * represent a full valid Bitcoin public key.
+	 *
+	 * @return non compressed public key
+	 */
+	@Override
+	public String getPublicKey(KeyPair keyPair) {
+		byte[] publicKey = new byte[PUBLIC_KEY_LENGTH];
+		getPublicKey(keyPair, publicKey, 0);
+		return new String(Hex.encode(publicKey));
+	}
+
+	/**
+	 * Retrieves the generated private key from the KeyPair holder.
+	 */
+	@Override
+	public String getPrivateKey(KeyPair keyPair) {
+		byte[] privateKey = new byte[PRIVATE_KEY_LENGTH];
+		getPrivateKey(keyPair, privateKey, 0);
+		return new String(Hex.encode(privateKey));
+	}
+
+	/**
+	 * Writes 0x04 followed by the X and Y EC coordinates, each left padded
+	 * with zeros to 32 bytes.
+	 */
+	@Override
+	public void getPublicKey(KeyPair keyPair, byte[] output, int offset) {
+		ECPoint ecPoint = ((ECPublicKey) keyPair.getPublic()).getW();
+		output[offset] = 0x04;
+		Secp256k1.writeUnsigned(ecPoint.getAffineX(), output, offset + 1);
+		Secp256k1.writeUnsigned(ecPoint.getAffineY(), output, offset + 33);
+	}
+
+	@Override
+	public void getPrivateKey(KeyPair keyPair, byte[] output, int offset) {
+		ECPrivateKey privateKey = (ECPrivateKey) keyPair.getPrivate();
+		Secp256k1.writeUnsigned(privateKey.getS(), output, offset);
+	}
+}
@@ -1,19 +1,12 @@
 package com.mt.crypto;
 
 import static java.lang.System.arraycopy;
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
-import java.security.InvalidAlgorithmParameterException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.interfaces.ECPrivateKey;
-import java.security.interfaces.ECPublicKey;
-import java.security.spec.ECGenParameterSpec;
-import java.security.spec.ECPoint;
+import java.util.Arrays;
 
 /**
  * This class is responsible for generating a valid Bitcoin wallet compatible
@@ -24,29 +17,30 @@ import java.security.spec.ECPoint;
  */
 public class BtcLegacyAddressGenerator implements CryptoAddressGenerator {
 
+	// the payload followed by its encoding
+	private static final ThreadLocal<byte[]> BASE58_BUFFERS = ThreadLocal.withInitial(
+		() -> new byte[Base58Check.PAYLOAD_LENGTH + Base58Check.MAX_ENCODED_LENGTH]);
+
+	private final AsymetricKeyGenerator keyGenerator;
+
 	/**
-	 * Generates KeyPair by applying ECDSA algorithm to the private key.
-	 * Here, the secp256k1 curve is used as by the Bitcoin protocol.
-	 *
-	 * @return KeyPair - holder containing public and private key
+	 * Creates the generator of the key pairs computed by the
+	 * {@link Secp256k1KeyGenerator}.
+	 */
+	public BtcLegacyAddressGenerator() {
+		this(new Secp256k1KeyGenerator());
+	}
+
+	/**
+	 * @param keyGenerator - which the key pairs are generated and read by
 	 */
+	public BtcLegacyAddressGenerator(AsymetricKeyGenerator keyGenerator) {
+		this.keyGenerator = keyGenerator;
+	}
+
 	@Override
-	public KeyPair generateAsymetricKeyPair() throws NoSuchProviderException,
-													 NoSuchAlgorithmException,
-													 InvalidAlgorithmParameterException {
-		/*
-		 * An elliptic curve is a curve defined by the equation y² = x³ + ax + b
-		 * with a chosen a and b.
-		 *
-		 * By applying the ECDSA to the private key, we get a 64-byte integer.
-		 * This consists of two 32-byte integers that represent the X and Y of
-		 * the point on the elliptic curve, concatenated together.
-		 */
-		KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC", "BC");
-		ECGenParameterSpec ecSpec = new ECGenParameterSpec("secp256k1");
-		keyGen.initialize(ecSpec);
-
-		return keyGen.generateKeyPair();
+	public KeyPair generateAsymetricKeyPair() throws GeneralSecurityException {
+		return keyGenerator.generateAsymetricKeyPair();
 	}
 
 	/**
@@ -55,51 +49,56 @@ public class BtcLegacyAddressGenerator implements CryptoAddressGenerator {
 	 * represent a full valid Bitcoin public key.
 	 *
 	 * @return non compressed public key
-	 * @throws InvalidKeyException
-	 *             when a key with insufficient length gets produced
 	 */
 	@Override
 	public String getPublicKey(KeyPair keyPair) throws InvalidKeyException {
-		ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
-		ECPoint ecPoint = publicKey.getW();
-		// FIXME: this coordinate sometimes results in 61/60 digit number which is not valid
-		String x = adjustTo64(ecPoint.getAffineX().toString(16));
-		String y = adjustTo64(ecPoint.getAffineY().toString(16));
-		return "04" + x + y;
+		return keyGenerator.getPublicKey(keyPair);
 	}
 
 	/**
 	 * Retrieves the generated private key from the KeyPair holder.
-	 *
-	 * @throws InvalidKeyException
-	 *             when a key with insufficient length gets produced
 	 */
 	@Override
 	public String getPrivateKey(KeyPair keyPair) throws InvalidKeyException {
-		ECPrivateKey privateKey = (ECPrivateKey) keyPair.getPrivate();
-		return adjustTo64(privateKey.getS().toString(16));
+		return keyGenerator.getPrivateKey(keyPair);
 	}
 
-	// TODO: what if we left pad the generated key with zeros even when they are below 62? 
-	private String adjustTo64(String key) throws InvalidKeyException {
-		switch(key.length()) {
-		case 62:
-			return "00" + key;
-		case 63:
-			return "0" + key;
-		case 64:
-			return key;
-		default :
-			throw new InvalidKeyException("Invalid key: " + key + " length: " + key.length() + " (expected one of 62, 63, 64)");
-		}
+	/**
+	 * Writes 0x04 followed by the X and Y EC coordinates, each left padded
+	 * with zeros to 32 bytes.
+	 */
+	@Override
+	public void getPublicKey(KeyPair keyPair, byte[] output, int offset) {
+		keyGenerator.getPublicKey(keyPair, output, offset);
+	}
+
+	@Override
+	public void getPrivateKey(KeyPair keyPair, byte[] output, int offset) {
+		keyGenerator.getPrivateKey(keyPair, output, offset);
+	}
+
+	/**
+	 * Applies SHA-256 to the public key and RIPEMD-160 on the hashed public key.
+	 */
+	@Override
+	public void getPublicKeyHash(byte[] publicKey, int offset, int length, byte[] output, int outputOffset) {
+		Hash160.hash160(publicKey, offset, length, output, outputOffset);
 	}
 
 	/**
 	 * Generates a valid Bitcoin wallet address from the given public key by
 	 * following these steps:<br>
 	 * <ul>
+	 * 	<li>decode public key from hex to byte representation</li>
 	 * 	<li>apply SHA-256 to the public key</li>
 	 * 	<li>apply RIPEMD-160 on the hashed public key</li>
+	 * 	<li>continue as described in {@link #getAddressFromHash(byte[])}</li>
+	 * </ul>
+	 */
+	/**
+	 * Generates a valid Bitcoin wallet address from the given public key hash
+	 * by following these steps:<br>
+	 * <ul>
 	 * 	<li>add version byte of 0x00 at the beginning of the hash</li>
 	 * 	<li>apply SHA-256 twice on the result of the previous operation</li>
 	 * 	<li>add first 4 bytes of the second hashing at the end of the RIPEMD-160 hash</li>
@@ -107,24 +106,48 @@ public class BtcLegacyAddressGenerator implements CryptoAddressGenerator {
 	 * </ul>
 	 */
 	@Override
-	public String getAddress(String publicKey) throws NoSuchProviderException, NoSuchAlgorithmException {
-		MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-		byte[] shaPubKey = sha256.digest(publicKey.getBytes(UTF_8));
+	public String getAddressFromHash(byte[] publicKeyHash) {
+		return encodeBase58Check((byte) 0x00, publicKeyHash);
+	}
 
-		MessageDigest ripeMD160 = MessageDigest.getInstance("RipeMD160", "BC");
-		byte[] ripeMDPubKey = ripeMD160.digest(shaPubKey);
+	/**
+	 * Decodes the Base58Check address and verifies its 0x00 version byte.
+	 */
+	@Override
+	public byte[] getHashFromAddress(String address) {
+		return decodeBase58Check((byte) 0x00, address);
+	}
 
-		byte[] ripeMDFinal = new byte[ripeMDPubKey.length + 1];
-		ripeMDFinal[0] = 0;
-		arraycopy(ripeMDPubKey, 0, ripeMDFinal, 1, ripeMDPubKey.length);
+	protected static String encodeBase58Check(byte version, byte[] hash) {
+		if (hash.length != Hash160.LENGTH) {
+			return encodeBase58CheckGeneric(version, hash);
+		}
+		byte[] buffer = BASE58_BUFFERS.get();
+		buffer[0] = version;
+		arraycopy(hash, 0, buffer, 1, Hash160.LENGTH);
 
 		// 4 bytes appended is the checksum
-		byte[] shaFinal = sha256.digest(sha256.digest(ripeMDFinal));
-		byte[] address = new byte[25];
-		arraycopy(ripeMDFinal, 0, address, 0, 21);
-		arraycopy(shaFinal, 0, address, 21, 4);
+		Hash160.checksum(buffer, 0, Hash160.LENGTH + 1, buffer, Hash160.LENGTH + 1);
 
+		int length = Base58Check.encode(buffer, 0, buffer, Base58Check.PAYLOAD_LENGTH);
+		return new String(buffer, Base58Check.PAYLOAD_LENGTH, length, US_ASCII);
+	}
+
+	private static String encodeBase58CheckGeneric(byte version, byte[] hash) {
+		byte[] address = new byte[hash.length + 5];
+		address[0] = version;
+		arraycopy(hash, 0, address, 1, hash.length);
+		Hash160.checksum(address, 0, hash.length + 1, address, hash.length + 1);
 		return Base58.encode(address);
 	}
 
+	protected static byte[] decodeBase58Check(byte version, String address) {
+		byte[] payload = BASE58_BUFFERS.get();
+		Base58Check.decode(address, payload, 0);
+		if (payload[0] != version) {
+			throw new IllegalArgumentException("Not a version " + version + " address: " + address);
+		}
+		return Arrays.copyOfRange(payload, 1, Hash160.LENGTH + 1);
+	}
+
 }
@@ -1,14 +1,8 @@
 package com.mt.crypto;
 
-import static java.lang.System.arraycopy;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.bouncycastle.crypto.digests.RIPEMD160Digest;
-import org.bouncycastle.util.encoders.Hex;
+import java.util.Arrays;
 
 import com.mt.core.ApplicationFailure;
 
@@ -21,46 +15,50 @@ import com.mt.core.ApplicationFailure;
  */
 public final class BtcNativeSegWitAddressGenerator extends BtcLegacyAddressGenerator {
 
+	private static final ThreadLocal<byte[]> BECH32_BUFFERS = ThreadLocal.withInitial(() -> new byte[Bech32.P2WPKH_LENGTH]);
+
 	/**
 	 * Generates a valid SegWit or the Bech32 Bitcoin wallet address
-	 * from the given long public key by following these steps:<br>
+	 * from the given public key hash by following these steps:<br>
 	 * <ul>
-	 *  <li>decode public key from hex to byte representation</li>
-	 *  <li>apply SHA-256 to the public key</li>
-	 *  <li>apply RIPEMD-160 on the hashed public key</li>
 	 *  <li>create SegWit script hash from it with bit conversion and 0x00 version byte prepended</li>
 	 *  <li>apply Bech32 encoding with main net human readable part</li>
 	 * </ul>
 	 */
 	@Override
-	public String getAddress(String publicKey) throws NoSuchAlgorithmException {
-		byte[] publicKeyBytes = Hex.decode(publicKey);
-		byte[] sha256Hash = sha256(publicKeyBytes);
-		byte[] ripemd160Hash = ripemd160(sha256Hash);
-		byte[] scriptHash = createSegWitScriptHash(ripemd160Hash);
-
-		return Bech32.encode("bc", scriptHash);
-	}
-
-	private byte[] sha256(byte[] data) throws NoSuchAlgorithmException {
-		MessageDigest digest = MessageDigest.getInstance("SHA-256");
-		return digest.digest(data);
+	public String getAddressFromHash(byte[] publicKeyHash) {
+		if (publicKeyHash.length != Hash160.LENGTH) {
+			return Bech32.encode("bc", createSegWitScriptHash(publicKeyHash));
+		}
+		byte[] buffer = BECH32_BUFFERS.get();
+		Bech32.encodeP2wpkh(publicKeyHash, 0, buffer, 0);
+		return new String(buffer, 0, Bech32.P2WPKH_LENGTH, US_ASCII);
 	}
 
-	private byte[] ripemd160(byte[] data) {
-		RIPEMD160Digest digest = new RIPEMD160Digest();
-		digest.update(data, 0, data.length);
-		byte[] output = new byte[digest.getDigestSize()];
-		digest.doFinal(output, 0);
-		return output;
+	/**
+	 * Decodes the Bech32 address and verifies the main net human readable part
+	 * along with the witness version 0 and the 20-byte program length.
+	 */
+	@Override
+	public byte[] getHashFromAddress(String address) {
+		Bech32.Pair<String, byte[]> decoded = Bech32.decode(address);
+		byte[] data = decoded.getRight();
+		if (!"bc".equals(decoded.getLeft()) || data.length == 0 || data[0] != 0x00) {
+			throw new IllegalArgumentException("Not a main net version 0 witness address: " + address);
+		}
+		byte[] program = convertBits(Arrays.copyOfRange(data, 1, data.length), 5, 8, false);
+		if (program.length != Hash160.LENGTH) {
+			throw new IllegalArgumentException("Not a public key hash witness program: " + address);
+		}
+		return program;
 	}
 
 	private byte[] createSegWitScriptHash(byte[] ripemd160Hash) {
 		byte[] prog = convertBits(ripemd160Hash, 8, 5, true);
 		byte[] scriptHash = new byte[1 + prog.length];
 
-		arraycopy(new byte[] { 0x00 }, 0, scriptHash, 0, 1); // version 0 for SegWit
-		arraycopy(prog, 0, scriptHash, 1, prog.length);
+		scriptHash[0] = 0x00; // version 0 for SegWit
+		System.arraycopy(prog, 0, scriptHash, 1, prog.length);
 
 		return scriptHash;
 	}
@@ -69,12 +67,13 @@ public final class BtcNativeSegWitAddressGenerator extends BtcLegacyAddressGener
 		int acc = 0;
 		int bits = 0;
 		int maxv = (1 << toBits) - 1;
-		List<Byte> ret = new ArrayList<>();
+		byte[] ret = new byte[(data.length * fromBits + toBits - 1) / toBits];
+		int length = 0;
 
-		for (Byte value : data) {
-			short b = (short) (value & 0xff);
+		for (byte value : data) {
+			int b = value & 0xff;
 
-			if (b < 0 || (b >> fromBits) > 0) {
+			if ((b >> fromBits) > 0) {
 				throw new ApplicationFailure("Invalid byte value: " + b);
 			}
 
@@ -82,21 +81,16 @@ public final class BtcNativeSegWitAddressGenerator extends BtcLegacyAddressGener
 			bits += fromBits;
 			while (bits >= toBits) {
 				bits -= toBits;
-				ret.add((byte) ((acc >> bits) & maxv));
+				ret[length++] = (byte) ((acc >> bits) & maxv);
 			}
 		}
 
 		if (pad && (bits > 0)) {
-			ret.add((byte) ((acc << (toBits - bits)) & maxv));
+			ret[length++] = (byte) ((acc << (toBits - bits)) & maxv);
 		} else if (bits >= fromBits || (byte) ((acc << (toBits - bits)) & maxv) != 0) {
-			throw new ApplicationFailure("Error during bit conversion [bits=" + bits + ", return bytes=" + ret + "]");
-		}
-
-		byte[] retArray = new byte[ret.size()];
-		for (int i = 0; i < retArray.length; i++) {
-			retArray[i] = ret.get(i).byteValue(); 
+			throw new ApplicationFailure("Error during bit conversion [bits=" + bits + ", return bytes=" + length + "]");
 		}
 
-		return retArray;
+		return length == ret.length ? ret : Arrays.copyOf(ret, length);
 	}
 }
@@ -1,7 +1,5 @@
 package com.mt.crypto;
 
-import java.security.GeneralSecurityException;
-
 /**
  *
  * @author mkrajcovic
@@ -9,10 +7,33 @@ import java.security.GeneralSecurityException;
 public interface CryptoAddressGenerator extends AsymetricKeyGenerator {
 
 	/**
+	 * Writes the {@link Hash160#LENGTH}-byte hash of the serialized public key
+	 * into the given buffer.
+	 *
+	 * @param publicKey    - buffer holding the serialized public key
+	 * @param offset       - position of the public key in its buffer
+	 * @param length       - length of the public key
+	 * @param output       - buffer receiving the hash
+	 * @param outputOffset - position in the output buffer to start writing at
+	 */
+	public void getPublicKeyHash(byte[] publicKey, int offset, int length, byte[] output, int outputOffset);
+
+	/**
+	 * Encodes the already computed public key hash, so the hashing can be
+	 * shared across all the address formats derived from the same key.
 	 *
-	 * @param publicKey - which to compute crypto wallet address from
+	 * @param publicKeyHash - {@link Hash160#hash160(byte[])} of the public key
 	 * @return wallet address
 	 */
-	public String getAddress(String publicKey) throws GeneralSecurityException;
+	public String getAddressFromHash(byte[] publicKeyHash);
+
+	/**
+	 * The reverse operation to {@link #getAddressFromHash(byte[])}.
+	 *
+	 * @param address - wallet address in the format of this generator
+	 * @return the 20-byte public key hash the address was created from
+	 * @throws IllegalArgumentException if the address is not valid for this generator
+	 */
+	public byte[] getHashFromAddress(String address);
 
 }
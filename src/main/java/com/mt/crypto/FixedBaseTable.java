@@ -0,0 +1,160 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+
+/**
+ * Precomputed multiples of the generator point G turning the scalar
+ * multiplication k*G into additions only.
+ * <p>
+ * The 256-bit scalar is split into windows of w bits and the table holds the
+ * affine points d * 2<sup>w*i</sup> * G for every window i and every non zero
+ * digit d below 2<sup>w</sup>. The product is then the sum of a single table
+ * point per window - no doubling at all and 256/w mixed additions instead of
+ * 256 doublings and about 128 additions of the double-and-add.
+ * </p>
+ * <p>
+ * The wider the window the fewer additions, but the table doubles with every
+ * bit - 8 bits take about 650 KiB, 12 bits 7 MiB and 16 bits 80 MiB. The table
+ * is read only once built, so it is shared by all the threads.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class FixedBaseTable {
+
+	public static final int DEFAULT_WINDOW_BITS = 8;
+	public static final int MAX_WINDOW_BITS = 16;
+
+	// the affine X followed by Y of every point
+	private static final int POINT_INTS = 2 * LIMBS;
+
+	private final int windowBits;
+	private final int windows;
+	private final int pointsPerWindow;
+	private final int[] points;
+
+	private FixedBaseTable(int windowBits) {
+		this.windowBits = windowBits;
+		this.windows = (256 + windowBits - 1) / windowBits;
+		this.pointsPerWindow = (1 << windowBits) - 1;
+		this.points = new int[windows * pointsPerWindow * POINT_INTS];
+	}
+
+	/**
+	 * @return the table of {@value #DEFAULT_WINDOW_BITS}-bit windows built on
+	 *         the first use
+	 */
+	public static FixedBaseTable getDefault() {
+		return DefaultTable.INSTANCE;
+	}
+
+	/**
+	 * Computes the table, which is the expensive operation meant to be done
+	 * once at startup.
+	 *
+	 * @param windowBits - bits of the scalar per window in range [1, {@value #MAX_WINDOW_BITS}]
+	 * @return the table of the multiples of G
+	 */
+	public static FixedBaseTable build(int windowBits) {
+		if (windowBits < 1 || windowBits > MAX_WINDOW_BITS) {
+			throw new IllegalArgumentException("Window bits out of range [1, " + MAX_WINDOW_BITS + "]: " + windowBits);
+		}
+		FixedBaseTable table = new FixedBaseTable(windowBits);
+		table.fill(new Secp256k1Engine());
+		return table;
+	}
+
+	private void fill(Secp256k1Engine engine) {
+		JacobianPoint[] row = new JacobianPoint[pointsPerWindow];
+		for (int j = 0; j < pointsPerWindow; j++) {
+			row[j] = new JacobianPoint();
+		}
+		// 2^(w*i) * G of the current window
+		JacobianPoint base = new JacobianPoint();
+		base.setAffine(Secp256k1Engine.GX, Secp256k1Engine.GY);
+
+		int[][] products = new int[pointsPerWindow][LIMBS];
+		for (int window = 0; window < windows; window++) {
+			row[0].set(base);
+			for (int j = 1; j < pointsPerWindow; j++) {
+				row[j].set(row[j - 1]);
+				engine.addPoint(row[j], base);
+			}
+			engine.addPoint(base, row[pointsPerWindow - 1]);
+			store(engine, window, row, products);
+		}
+	}
+
+	// converts the row to the affine points sharing a single inversion
+	private void store(Secp256k1Engine engine, int window, JacobianPoint[] row, int[][] products) {
+		Secp256k1Field.set(row[0].z, products[0]);
+		for (int j = 1; j < pointsPerWindow; j++) {
+			Secp256k1Field.mul(products[j - 1], row[j].z, products[j]);
+		}
+		int[] inverse = new int[LIMBS];
+		int[] zInverse = new int[LIMBS];
+		int[] zInverse2 = new int[LIMBS];
+		int[] x = new int[LIMBS];
+		int[] y = new int[LIMBS];
+		engine.invert(products[pointsPerWindow - 1], inverse);
+		for (int j = pointsPerWindow - 1; j >= 0; j--) {
+			if (j == 0) {
+				Secp256k1Field.set(inverse, zInverse);
+			} else {
+				Secp256k1Field.mul(inverse, products[j - 1], zInverse);
+				Secp256k1Field.mul(inverse, row[j].z, inverse);
+			}
+			Secp256k1Field.sqr(zInverse, zInverse2);
+			Secp256k1Field.mul(row[j].x, zInverse2, x);
+			Secp256k1Field.mul(zInverse2, zInverse, zInverse2);
+			Secp256k1Field.mul(row[j].y, zInverse2, y);
+			int offset = (window * pointsPerWindow + j) * POINT_INTS;
+			System.arraycopy(x, 0, points, offset, LIMBS);
+			System.arraycopy(y, 0, points, offset + LIMBS, LIMBS);
+		}
+	}
+
+	int getWindows() {
+		return windows;
+	}
+
+	/**
+	 * @return the digit of the window, counted from the least significant bits
+	 *         of the 32-byte big-endian scalar
+	 */
+	int digit(byte[] scalar, int offset, int window) {
+		int start = window * windowBits;
+		int lowestByte = start >>> 3;
+		int bits = 0;
+		for (int i = 0; i < 3 && lowestByte + i < 32; i++) {
+			bits |= (scalar[offset + 31 - lowestByte - i] & 0xFF) << (8 * i);
+		}
+		return (bits >>> (start & 7)) & pointsPerWindow;
+	}
+
+	/**
+	 * Copies the point d * 2^(w*window) * G.
+	 *
+	 * @param digit - non zero digit of the window
+	 */
+	void copyPoint(int window, int digit, int[] x, int[] y) {
+		int offset = (window * pointsPerWindow + digit - 1) * POINT_INTS;
+		System.arraycopy(points, offset, x, 0, LIMBS);
+		System.arraycopy(points, offset + LIMBS, y, 0, LIMBS);
+	}
+
+	public int getWindowBits() {
+		return windowBits;
+	}
+
+	/**
+	 * @return the memory taken by the points
+	 */
+	public long getSizeBytes() {
+		return (long) points.length * Integer.BYTES;
+	}
+
+	private static final class DefaultTable {
+		private static final FixedBaseTable INSTANCE = build(DEFAULT_WINDOW_BITS);
+	}
+}
@@ -0,0 +1,87 @@
+package com.mt.crypto;
+
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+/**
+ * The RIPEMD-160(SHA-256(data)) hash used by Bitcoin to shorten public keys
+ * into the 20-byte payload shared by all the supported address formats.
+ * <p>
+ * Every thread reuses its own digest state, so the hashing neither allocates
+ * nor contends across the generator threads.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class Hash160 {
+
+	public static final int LENGTH = 20;
+	public static final int CHECKSUM_LENGTH = 4;
+
+	private static final ThreadLocal<Hash160> DIGESTS = ThreadLocal.withInitial(Hash160::new);
+
+	private final SHA256Digest sha256 = new SHA256Digest();
+	private final RIPEMD160Digest ripemd160 = new RIPEMD160Digest();
+	private final byte[] sha256Hash = new byte[sha256.getDigestSize()];
+
+	private Hash160() {
+		// per thread digest state only
+	}
+
+	/**
+	 * @param data - usually the serialized public key
+	 * @return 20-byte RIPEMD-160 hash of the SHA-256 hash of the data
+	 */
+	public static byte[] hash160(byte[] data) {
+		byte[] hash = new byte[LENGTH];
+		hash160(data, 0, data.length, hash, 0);
+		return hash;
+	}
+
+	/**
+	 * Writes the 20-byte RIPEMD-160 hash of the SHA-256 hash of the data into
+	 * the given buffer.
+	 */
+	public static void hash160(byte[] data, int offset, int length, byte[] output, int outputOffset) {
+		Hash160 digests = DIGESTS.get();
+		digests.sha256.update(data, offset, length);
+		digests.sha256.doFinal(digests.sha256Hash, 0);
+
+		digests.ripemd160.update(digests.sha256Hash, 0, digests.sha256Hash.length);
+		digests.ripemd160.doFinal(output, outputOffset);
+	}
+
+	/**
+	 * Writes the 4-byte Base58Check checksum of the data into the given
+	 * buffer.
+	 */
+	public static void checksum(byte[] data, int offset, int length, byte[] output, int outputOffset) {
+		byte[] hash = doubleSha256(data, offset, length);
+		System.arraycopy(hash, 0, output, outputOffset, CHECKSUM_LENGTH);
+	}
+
+	/**
+	 * @return whether the data are followed by their 4-byte Base58Check checksum
+	 */
+	public static boolean verifyChecksum(byte[] data, int offset, int length) {
+		byte[] hash = doubleSha256(data, offset, length);
+		int checksumOffset = offset + length;
+		for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+			if (hash[i] != data[checksumOffset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// the result lives in the per thread scratch buffer
+	private static byte[] doubleSha256(byte[] data, int offset, int length) {
+		Hash160 digests = DIGESTS.get();
+		byte[] hash = digests.sha256Hash;
+		digests.sha256.update(data, offset, length);
+		digests.sha256.doFinal(hash, 0);
+		digests.sha256.update(hash, 0, hash.length);
+		digests.sha256.doFinal(hash, 0);
+		return hash;
+	}
+}
@@ -0,0 +1,36 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+
+/**
+ * Mutable point of the secp256k1 curve in the Jacobian coordinates
+ * (X, Y, Z) standing for the affine point (X/Z<sup>2</sup>, Y/Z<sup>3</sup>),
+ * which lets the point arithmetic go without the field inversions.
+ *
+ * @author mkrajcovic
+ */
+final class JacobianPoint {
+
+	final int[] x = new int[LIMBS];
+	final int[] y = new int[LIMBS];
+	final int[] z = new int[LIMBS];
+	boolean infinity = true;
+
+	void set(JacobianPoint other) {
+		Secp256k1Field.set(other.x, x);
+		Secp256k1Field.set(other.y, y);
+		Secp256k1Field.set(other.z, z);
+		infinity = other.infinity;
+	}
+
+	void setAffine(int[] affineX, int[] affineY) {
+		Secp256k1Field.set(affineX, x);
+		Secp256k1Field.set(affineY, y);
+		Secp256k1Field.setInt(1, z);
+		infinity = false;
+	}
+
+	void setInfinity() {
+		infinity = true;
+	}
+}
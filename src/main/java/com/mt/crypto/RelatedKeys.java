@@ -0,0 +1,109 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.AsymetricKeyGenerator.PUBLIC_KEY_LENGTH;
+import static com.mt.crypto.Secp256k1.N;
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+
+import java.math.BigInteger;
+
+/**
+ * Derives the key pairs related to an already computed one without any
+ * further scalar multiplication.
+ * <p>
+ * The public key (x, y) of the private key k gives five more for free - the
+ * negation (x, -y) is the public key of n - k and the endomorphism of the
+ * secp256k1 curve maps (x, y) to (&beta;x, y), the public key of &lambda;k,
+ * where &beta; is a cube root of unity modulo p and &lambda; modulo n. Applied
+ * twice and combined with the negation:
+ * </p>
+ * <pre>
+ * k           (x, y)
+ * n - k       (x, -y)
+ * &lambda;k          (&beta;x, y)
+ * n - &lambda;k      (&beta;x, -y)
+ * &lambda;&sup2;k         (&beta;&sup2;x, y)
+ * n - &lambda;&sup2;k     (&beta;&sup2;x, -y)
+ * </pre>
+ * Each derived key costs a field multiplication or negation and a
+ * multiplication modulo n, instead of a whole point computation.
+ *
+ * @author mkrajcovic
+ */
+public final class RelatedKeys {
+
+	/**
+	 * The given key pair and the derived ones
+	 */
+	public static final int KEYS_PER_POINT = 6;
+
+	static final BigInteger LAMBDA = new BigInteger("5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+	static final BigInteger BETA = new BigInteger("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16);
+
+	private static final int[] BETA_ELEMENT = new int[LIMBS];
+
+	static {
+		Secp256k1Field.fromBigInteger(BETA, BETA_ELEMENT);
+	}
+
+	private RelatedKeys() {
+		throw new IllegalStateException("RelatedKeys was not designed to be instantiated");
+	}
+
+	/**
+	 * Writes the {@value #KEYS_PER_POINT} - 1 key pairs related to the given
+	 * one in the order n - k, &lambda;k, n - &lambda;k, &lambda;&sup2;k and
+	 * n - &lambda;&sup2;k.
+	 *
+	 * @param privateKey  - 32-byte private key k
+	 * @param publicKey   - 65-byte non compressed public key of k
+	 * @param privateKeys - receive the 32-byte related private keys
+	 * @param publicKeys  - receive the 65-byte related public keys
+	 */
+	public static void derive(byte[] privateKey, byte[] publicKey, byte[][] privateKeys, byte[][] publicKeys) {
+		BigInteger k = new BigInteger(1, privateKey);
+		BigInteger lambdaK = k.multiply(LAMBDA).mod(N);
+		BigInteger lambda2K = lambdaK.multiply(LAMBDA).mod(N);
+		Secp256k1.writeUnsigned(N.subtract(k), privateKeys[0], 0);
+		Secp256k1.writeUnsigned(lambdaK, privateKeys[1], 0);
+		Secp256k1.writeUnsigned(N.subtract(lambdaK), privateKeys[2], 0);
+		Secp256k1.writeUnsigned(lambda2K, privateKeys[3], 0);
+		Secp256k1.writeUnsigned(N.subtract(lambda2K), privateKeys[4], 0);
+
+		int[] x = new int[LIMBS];
+		int[] y = new int[LIMBS];
+		Secp256k1Field.fromBytes(publicKey, 1, x);
+		Secp256k1Field.fromBytes(publicKey, 33, y);
+		Secp256k1Field.negate(y, y);
+
+		// (x, -y)
+		System.arraycopy(publicKey, 0, publicKeys[0], 0, 33);
+		Secp256k1Field.toBytes(y, publicKeys[0], 33);
+		// (βx, ±y) and (β²x, ±y)
+		for (int i = 1; i < KEYS_PER_POINT - 1; i += 2) {
+			Secp256k1Field.mul(x, BETA_ELEMENT, x);
+			byte[] positive = publicKeys[i];
+			positive[0] = 0x04;
+			Secp256k1Field.toBytes(x, positive, 1);
+			System.arraycopy(publicKey, 33, positive, 33, 32);
+
+			byte[] negative = publicKeys[i + 1];
+			System.arraycopy(positive, 0, negative, 0, 33);
+			System.arraycopy(publicKeys[0], 33, negative, 33, 32);
+		}
+	}
+
+	/**
+	 * @return new arrays for the derived private keys
+	 */
+	public static byte[][] newPrivateKeys() {
+		return new byte[KEYS_PER_POINT - 1][PRIVATE_KEY_LENGTH];
+	}
+
+	/**
+	 * @return new arrays for the derived public keys
+	 */
+	public static byte[][] newPublicKeys() {
+		return new byte[KEYS_PER_POINT - 1][PUBLIC_KEY_LENGTH];
+	}
+}
@@ -0,0 +1,89 @@
+package com.mt.crypto;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Domain parameters of the secp256k1 curve used by the Bitcoin protocol along
+ * with the reference scalar multiplication. The key generation itself runs on
+ * the {@link Secp256k1Engine}.
+ *
+ * @author mkrajcovic
+ */
+public final class Secp256k1 {
+
+	private static final X9ECParameters CURVE = SECNamedCurves.getByName("secp256k1");
+
+	/**
+	 * The prime of the underlying field: 2^256 - 2^32 - 977
+	 */
+	public static final BigInteger P = ((ECCurve.Fp) CURVE.getCurve()).getQ();
+
+	/**
+	 * The order of the generator point
+	 */
+	public static final BigInteger N = CURVE.getN();
+
+	/**
+	 * Affine coordinates of the generator point G
+	 */
+	public static final BigInteger GX = CURVE.getG().getX().toBigInteger();
+	public static final BigInteger GY = CURVE.getG().getY().toBigInteger();
+
+	private Secp256k1() {
+		throw new IllegalStateException("Secp256k1 was not designed to be instantiated");
+	}
+
+	/**
+	 * Computes the full scalar multiplication k*G.<br>
+	 * <b><i>Note:</i></b> This goes through the generic BouncyCastle
+	 * arithmetic, so it is meant to be used only as the reference of the
+	 * {@link Secp256k1Engine}.
+	 *
+	 * @param k - scalar in range [1, n-1]
+	 * @return affine coordinates {x, y} of the resulting point
+	 */
+	public static BigInteger[] multiplyG(BigInteger k) {
+		ECPoint point = CURVE.getG().multiply(k);
+		return new BigInteger[] { point.getX().toBigInteger(), point.getY().toBigInteger() };
+	}
+
+	/**
+	 * @param value - non negative number lower than 2^256
+	 * @return 64 digit hex representation left padded with zeros
+	 */
+	public static String toHex64(BigInteger value) {
+		String hex = value.toString(16);
+		if (hex.length() == 64) {
+			return hex;
+		}
+		StringBuilder sb = new StringBuilder(64);
+		for (int i = hex.length(); i < 64; i++) {
+			sb.append('0');
+		}
+		return sb.append(hex).toString();
+	}
+
+	/**
+	 * Writes the value as 32-byte big-endian number left padded with zeros.
+	 *
+	 * @param value  - non negative number lower than 2^256
+	 * @param output - buffer receiving the number
+	 * @param offset - position in the buffer to start writing at
+	 */
+	public static void writeUnsigned(BigInteger value, byte[] output, int offset) {
+		byte[] bytes = value.toByteArray();
+		// strip the sign byte if present
+		int start = bytes.length > 32 ? bytes.length - 32 : 0;
+		int length = bytes.length - start;
+		int padding = 32 - length;
+		for (int i = 0; i < padding; i++) {
+			output[offset + i] = 0;
+		}
+		System.arraycopy(bytes, start, output, offset + padding, length);
+	}
+}
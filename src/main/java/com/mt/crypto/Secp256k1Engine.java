@@ -0,0 +1,274 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+import static com.mt.crypto.Secp256k1Field.add;
+import static com.mt.crypto.Secp256k1Field.isZero;
+import static com.mt.crypto.Secp256k1Field.mul;
+import static com.mt.crypto.Secp256k1Field.mulInt;
+import static com.mt.crypto.Secp256k1Field.sqr;
+import static com.mt.crypto.Secp256k1Field.sub;
+
+/**
+ * The group arithmetic of the secp256k1 curve y<sup>2</sup> = x<sup>3</sup> + 7
+ * over the {@link Secp256k1Field} elements.
+ * <p>
+ * The points are kept in the Jacobian coordinates, the doubling uses the
+ * formulas specialized for the curve parameter a = 0 and the addition of an
+ * affine point (like the generator G) the cheaper mixed formulas. All the
+ * intermediate values live in the scratch elements of the engine, so the
+ * operations allocate nothing.
+ * </p>
+ * The instances are not thread safe, every thread is supposed to own one.
+ *
+ * @author mkrajcovic
+ */
+final class Secp256k1Engine {
+
+	static final int[] GX = new int[LIMBS];
+	static final int[] GY = new int[LIMBS];
+
+	static {
+		Secp256k1Field.fromBigInteger(Secp256k1.GX, GX);
+		Secp256k1Field.fromBigInteger(Secp256k1.GY, GY);
+	}
+
+	private final int[] t1 = new int[LIMBS];
+	private final int[] t2 = new int[LIMBS];
+	private final int[] t3 = new int[LIMBS];
+	private final int[] t4 = new int[LIMBS];
+	private final int[] t5 = new int[LIMBS];
+	private final int[] t6 = new int[LIMBS];
+	private final int[] t7 = new int[LIMBS];
+
+	// powers of the inverted element a^(2^k - 1)
+	private final int[] x2 = new int[LIMBS];
+	private final int[] x3 = new int[LIMBS];
+	private final int[] x11 = new int[LIMBS];
+	private final int[] x22 = new int[LIMBS];
+	private final int[] x44 = new int[LIMBS];
+	private final int[] x88 = new int[LIMBS];
+	private final int[] power = new int[LIMBS];
+
+	private final int[] tableX = new int[LIMBS];
+	private final int[] tableY = new int[LIMBS];
+
+	private final JacobianPoint product = new JacobianPoint();
+	private final int[] affineX = new int[LIMBS];
+	private final int[] affineY = new int[LIMBS];
+
+	/**
+	 * Computes the non compressed public key of the private key.
+	 *
+	 * @param table        - multiples of G to compute the public key by
+	 * @param privateKey   - holding the 32-byte big-endian scalar in range [1, n-1]
+	 * @param offset       - of the private key
+	 * @param publicKey    - receives 0x04 followed by the X and Y coordinates
+	 * @param outputOffset - position in the public key buffer to start writing at
+	 */
+	void publicKey(FixedBaseTable table, byte[] privateKey, int offset, byte[] publicKey, int outputOffset) {
+		multiplyG(table, privateKey, offset, product);
+		if (product.infinity) {
+			throw new IllegalArgumentException("Private key is a multiple of the group order");
+		}
+		toAffine(product, affineX, affineY);
+		publicKey[outputOffset] = 0x04;
+		Secp256k1Field.toBytes(affineX, publicKey, outputOffset + 1);
+		Secp256k1Field.toBytes(affineY, publicKey, outputOffset + 33);
+	}
+
+	/**
+	 * Computes k*G by doubling and adding from the most significant bit,
+	 * which needs no table.
+	 *
+	 * @param scalar - holding the 32-byte big-endian scalar
+	 * @param offset - of the scalar
+	 * @param r      - receives the product
+	 */
+	void multiplyG(byte[] scalar, int offset, JacobianPoint r) {
+		r.setInfinity();
+		for (int i = offset; i < offset + 32; i++) {
+			int b = scalar[i];
+			for (int bit = 7; bit >= 0; bit--) {
+				doublePoint(r);
+				if (((b >>> bit) & 1) != 0) {
+					addAffine(r, GX, GY);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes k*G as the sum of the table points selected by the windows of
+	 * the scalar.
+	 *
+	 * @param table  - multiples of G
+	 * @param scalar - holding the 32-byte big-endian scalar
+	 * @param offset - of the scalar
+	 * @param r      - receives the product
+	 */
+	void multiplyG(FixedBaseTable table, byte[] scalar, int offset, JacobianPoint r) {
+		r.setInfinity();
+		for (int window = 0; window < table.getWindows(); window++) {
+			int digit = table.digit(scalar, offset, window);
+			if (digit != 0) {
+				table.copyPoint(window, digit, tableX, tableY);
+				addAffine(r, tableX, tableY);
+			}
+		}
+	}
+
+	/**
+	 * p = 2p
+	 */
+	void doublePoint(JacobianPoint p) {
+		if (p.infinity) {
+			return;
+		}
+		// Z3 = 2*Y*Z before Y changes
+		mul(p.y, p.z, p.z);
+		mulInt(p.z, 2, p.z);
+
+		sqr(p.x, t1);             // A = X^2
+		sqr(p.y, t2);             // B = Y^2
+		sqr(t2, t3);              // C = B^2
+		add(p.x, t2, t4);
+		sqr(t4, t4);
+		sub(t4, t1, t4);
+		sub(t4, t3, t4);
+		mulInt(t4, 2, t4);        // D = 2*((X + B)^2 - A - C)
+		mulInt(t1, 3, t5);        // E = 3*A
+		sqr(t5, t6);              // F = E^2
+
+		mulInt(t4, 2, t7);
+		sub(t6, t7, p.x);         // X3 = F - 2*D
+		sub(t4, p.x, t7);
+		mul(t5, t7, t7);
+		mulInt(t3, 8, t3);
+		sub(t7, t3, p.y);         // Y3 = E*(D - X3) - 8*C
+	}
+
+	/**
+	 * p = p + q, where q is the affine point (qx, qy)
+	 */
+	void addAffine(JacobianPoint p, int[] qx, int[] qy) {
+		if (p.infinity) {
+			p.setAffine(qx, qy);
+			return;
+		}
+		sqr(p.z, t1);             // Z1Z1 = Z1^2
+		mul(qx, t1, t2);          // U2 = X2*Z1Z1
+		mul(p.z, t1, t3);
+		mul(qy, t3, t3);          // S2 = Y2*Z1*Z1Z1
+		sub(t2, p.x, t2);         // H = U2 - X1
+		sub(t3, p.y, t3);         // R = S2 - Y1
+		if (isZero(t2)) {
+			if (isZero(t3)) {
+				doublePoint(p);
+			} else {
+				p.setInfinity();
+			}
+			return;
+		}
+		completeAddition(p, p.x, p.y, t2, t3);
+		mul(p.z, t2, p.z);        // Z3 = Z1*H
+	}
+
+	/**
+	 * p = p + q
+	 */
+	void addPoint(JacobianPoint p, JacobianPoint q) {
+		if (q.infinity) {
+			return;
+		}
+		if (p.infinity) {
+			p.set(q);
+			return;
+		}
+		sqr(p.z, t1);             // Z1Z1 = Z1^2
+		sqr(q.z, t2);             // Z2Z2 = Z2^2
+		mul(q.x, t1, t3);         // U2 = X2*Z1Z1
+		mul(p.x, t2, t4);         // U1 = X1*Z2Z2
+		mul(q.y, p.z, t5);
+		mul(t5, t1, t5);          // S2 = Y2*Z1*Z1Z1
+		mul(p.y, q.z, t6);
+		mul(t6, t2, t6);          // S1 = Y1*Z2*Z2Z2
+		sub(t3, t4, t3);          // H = U2 - U1
+		sub(t5, t6, t5);          // R = S2 - S1
+		if (isZero(t3)) {
+			if (isZero(t5)) {
+				doublePoint(p);
+			} else {
+				p.setInfinity();
+			}
+			return;
+		}
+		mul(p.z, q.z, p.z);
+		mul(p.z, t3, p.z);        // Z3 = Z1*Z2*H
+		completeAddition(p, t4, t6, t3, t5);
+	}
+
+	// X3 = R^2 - H^3 - 2*U1*H^2, Y3 = R*(U1*H^2 - X3) - S1*H^3
+	private void completeAddition(JacobianPoint p, int[] u1, int[] s1, int[] h, int[] r) {
+		sqr(h, t1);               // HH = H^2
+		mul(h, t1, t7);           // HHH = H*HH
+		mul(u1, t1, t1);          // V = U1*HH
+		mul(s1, t7, s1);          // S1*HHH, U1 and S1 may be X1 and Y1
+
+		sqr(r, p.x);
+		sub(p.x, t7, p.x);
+		mulInt(t1, 2, t7);
+		sub(p.x, t7, p.x);        // X3 = R^2 - HHH - 2*V
+		sub(t1, p.x, t1);
+		mul(r, t1, t1);
+		sub(t1, s1, p.y);         // Y3 = R*(V - X3) - S1*HHH
+	}
+
+	/**
+	 * Converts the point into the affine coordinates (X/Z^2, Y/Z^3).
+	 */
+	void toAffine(JacobianPoint p, int[] ax, int[] ay) {
+		invert(p.z, t1);
+		sqr(t1, t2);
+		mul(p.x, t2, ax);
+		mul(t2, t1, t2);
+		mul(p.y, t2, ay);
+	}
+
+	/**
+	 * Computes a^(p-2) = a^-1 by the addition chain of 255 squarings and 15
+	 * multiplications.
+	 */
+	void invert(int[] a, int[] r) {
+		sqr(a, x2);
+		mul(x2, a, x2);
+		sqr(x2, x3);
+		mul(x3, a, x3);
+		sqr(x3, 3, power);
+		mul(power, x3, power);    // x6
+		sqr(power, 3, power);
+		mul(power, x3, power);    // x9
+		sqr(power, 2, x11);
+		mul(x11, x2, x11);
+		sqr(x11, 11, x22);
+		mul(x22, x11, x22);
+		sqr(x22, 22, x44);
+		mul(x44, x22, x44);
+		sqr(x44, 44, x88);
+		mul(x88, x44, x88);
+		sqr(x88, 88, power);
+		mul(power, x88, power);   // x176
+		sqr(power, 44, power);
+		mul(power, x44, power);   // x220
+		sqr(power, 3, power);
+		mul(power, x3, power);    // x223
+
+		sqr(power, 23, power);
+		mul(power, x22, power);
+		sqr(power, 5, power);
+		mul(power, a, power);
+		sqr(power, 3, power);
+		mul(power, x2, power);
+		sqr(power, 2, power);
+		mul(power, a, r);
+	}
+}
@@ -0,0 +1,335 @@
+package com.mt.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic of the secp256k1 field elements modulo the prime
+ * p = 2<sup>256</sup> - 2<sup>32</sup> - 977 without {@link BigInteger}.
+ * <p>
+ * An element is held in an {@code int[10]} of 26-bit limbs, least significant
+ * first, so the products of two limbs and their sums fit into a long. The
+ * reduction exploits the special form of p - the limbs above 2<sup>260</sup>
+ * are folded back as 2<sup>260</sup> &equiv; 2<sup>36</sup> + 0x3D10 and the
+ * bits above 2<sup>256</sup> as 2<sup>256</sup> &equiv; 2<sup>32</sup> + 0x3D1.
+ * </p>
+ * <p>
+ * All the operations leave the elements <i>weakly normalized</i> - the limbs 0
+ * to 8 are below 2<sup>26</sup> and the limb 9 at most 2<sup>22</sup>, so the
+ * value is below 2p and its representation is unique. The elements are fully
+ * reduced below p only when serialized. The result may be the same array as
+ * any of the operands and nothing is allocated.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+final class Secp256k1Field {
+
+	static final int LIMBS = 10;
+
+	private static final int MASK = 0x3FFFFFF;
+	private static final int TOP_MASK = 0x3FFFFF;
+
+	// 2^256 - p = 2^32 + 0x3D1 and 2^260 mod p = 2^36 + 0x3D10
+	private static final int FOLD_256 = 0x3D1;
+	private static final int FOLD_260 = 0x3D10;
+
+	private static final int[] P = { 0x3FFFC2F, 0x3FFFFBF, MASK, MASK, MASK, MASK, MASK, MASK, MASK, TOP_MASK };
+
+	// 2p with every limb at least as large as a weakly normalized limb, so
+	// that subtracting an element limb by limb never goes below zero
+	private static final int[] TWO_P = new int[LIMBS];
+
+	static {
+		long borrow = 0;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			TWO_P[i] = (int) (2L * P[i] + (1 << 26) - borrow);
+			borrow = 1;
+		}
+		TWO_P[LIMBS - 1] = (int) (2L * P[LIMBS - 1] - borrow);
+	}
+
+	private Secp256k1Field() {
+		throw new IllegalStateException("Secp256k1Field was not designed to be instantiated");
+	}
+
+	/**
+	 * Reads the 32-byte big-endian number, which must be lower than p.
+	 */
+	static void fromBytes(byte[] input, int offset, int[] r) {
+		long accumulator = 0;
+		int bits = 0;
+		int limb = 0;
+		for (int i = offset + 31; i >= offset; i--) {
+			accumulator |= (input[i] & 0xFFL) << bits;
+			bits += 8;
+			if (bits >= 26) {
+				r[limb++] = (int) (accumulator & MASK);
+				accumulator >>>= 26;
+				bits -= 26;
+			}
+		}
+		// the remaining 22 bits
+		r[limb] = (int) accumulator;
+	}
+
+	/**
+	 * Writes the element as 32-byte big-endian number, reducing it below p in
+	 * place first.
+	 */
+	static void toBytes(int[] a, byte[] output, int offset) {
+		normalize(a);
+		long accumulator = 0;
+		int bits = 0;
+		int position = offset + 31;
+		for (int limb = 0; limb < LIMBS; limb++) {
+			accumulator |= (long) a[limb] << bits;
+			bits += 26;
+			while (bits >= 8) {
+				output[position--] = (byte) accumulator;
+				accumulator >>>= 8;
+				bits -= 8;
+			}
+		}
+	}
+
+	static void fromBigInteger(BigInteger value, int[] r) {
+		byte[] bytes = new byte[32];
+		Secp256k1.writeUnsigned(value.mod(Secp256k1.P), bytes, 0);
+		fromBytes(bytes, 0, r);
+	}
+
+	static BigInteger toBigInteger(int[] a) {
+		byte[] bytes = new byte[32];
+		toBytes(a.clone(), bytes, 0);
+		return new BigInteger(1, bytes);
+	}
+
+	static void set(int[] a, int[] r) {
+		System.arraycopy(a, 0, r, 0, LIMBS);
+	}
+
+	static void setInt(int value, int[] r) {
+		r[0] = value;
+		for (int i = 1; i < LIMBS; i++) {
+			r[i] = 0;
+		}
+	}
+
+	/**
+	 * Reduces the weakly normalized element below p in place.
+	 */
+	static void normalize(int[] a) {
+		if (!isAtLeastP(a)) {
+			return;
+		}
+		// subtracting p is adding 2^32 + 0x3D1 and dropping the bit 256
+		a[0] += FOLD_256;
+		a[1] += 1 << 6;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			a[i + 1] += a[i] >>> 26;
+			a[i] &= MASK;
+		}
+		a[LIMBS - 1] &= TOP_MASK;
+	}
+
+	private static boolean isAtLeastP(int[] a) {
+		for (int i = LIMBS - 1; i >= 0; i--) {
+			if (a[i] != P[i]) {
+				return a[i] > P[i];
+			}
+		}
+		return true;
+	}
+
+	static boolean isZero(int[] a) {
+		// the only weakly normalized representations of zero are 0 and p
+		int zero = 0;
+		int p = 0;
+		for (int i = 0; i < LIMBS; i++) {
+			zero |= a[i];
+			p |= a[i] ^ P[i];
+		}
+		return zero == 0 || p == 0;
+	}
+
+	/**
+	 * Reduces the element below p in place to tell its parity.
+	 */
+	static boolean isOdd(int[] a) {
+		normalize(a);
+		return (a[0] & 1) != 0;
+	}
+
+	static void add(int[] a, int[] b, int[] r) {
+		for (int i = 0; i < LIMBS; i++) {
+			r[i] = a[i] + b[i];
+		}
+		carry(r);
+	}
+
+	static void sub(int[] a, int[] b, int[] r) {
+		for (int i = 0; i < LIMBS; i++) {
+			r[i] = a[i] + TWO_P[i] - b[i];
+		}
+		carry(r);
+	}
+
+	static void negate(int[] a, int[] r) {
+		for (int i = 0; i < LIMBS; i++) {
+			r[i] = TWO_P[i] - a[i];
+		}
+		carry(r);
+	}
+
+	/**
+	 * @param k - small multiplier up to 16
+	 */
+	static void mulInt(int[] a, int k, int[] r) {
+		for (int i = 0; i < LIMBS; i++) {
+			r[i] = a[i] * k;
+		}
+		carry(r);
+	}
+
+	// propagates the carries of limbs below 2^31, folding the bits above 2^256
+	private static void carry(int[] r) {
+		for (int i = 0; i < LIMBS - 1; i++) {
+			r[i + 1] += r[i] >>> 26;
+			r[i] &= MASK;
+		}
+		int top = r[LIMBS - 1] >>> 22;
+		r[LIMBS - 1] &= TOP_MASK;
+		r[0] += top * FOLD_256;
+		r[1] += top << 6;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			r[i + 1] += r[i] >>> 26;
+			r[i] &= MASK;
+		}
+	}
+
+	static void mul(int[] a, int[] b, int[] r) {
+		long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+		long b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], b4 = b[4], b5 = b[5], b6 = b[6], b7 = b[7], b8 = b[8], b9 = b[9];
+
+		long c0 = a0 * b0;
+		long c1 = a0 * b1 + a1 * b0;
+		long c2 = a0 * b2 + a1 * b1 + a2 * b0;
+		long c3 = a0 * b3 + a1 * b2 + a2 * b1 + a3 * b0;
+		long c4 = a0 * b4 + a1 * b3 + a2 * b2 + a3 * b1 + a4 * b0;
+		long c5 = a0 * b5 + a1 * b4 + a2 * b3 + a3 * b2 + a4 * b1 + a5 * b0;
+		long c6 = a0 * b6 + a1 * b5 + a2 * b4 + a3 * b3 + a4 * b2 + a5 * b1 + a6 * b0;
+		long c7 = a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+		long c8 = a0 * b8 + a1 * b7 + a2 * b6 + a3 * b5 + a4 * b4 + a5 * b3 + a6 * b2 + a7 * b1 + a8 * b0;
+		long c9 = a0 * b9 + a1 * b8 + a2 * b7 + a3 * b6 + a4 * b5 + a5 * b4 + a6 * b3 + a7 * b2 + a8 * b1 + a9 * b0;
+		long c10 = a1 * b9 + a2 * b8 + a3 * b7 + a4 * b6 + a5 * b5 + a6 * b4 + a7 * b3 + a8 * b2 + a9 * b1;
+		long c11 = a2 * b9 + a3 * b8 + a4 * b7 + a5 * b6 + a6 * b5 + a7 * b4 + a8 * b3 + a9 * b2;
+		long c12 = a3 * b9 + a4 * b8 + a5 * b7 + a6 * b6 + a7 * b5 + a8 * b4 + a9 * b3;
+		long c13 = a4 * b9 + a5 * b8 + a6 * b7 + a7 * b6 + a8 * b5 + a9 * b4;
+		long c14 = a5 * b9 + a6 * b8 + a7 * b7 + a8 * b6 + a9 * b5;
+		long c15 = a6 * b9 + a7 * b8 + a8 * b7 + a9 * b6;
+		long c16 = a7 * b9 + a8 * b8 + a9 * b7;
+		long c17 = a8 * b9 + a9 * b8;
+		long c18 = a9 * b9;
+
+		reduce(r, c0, c1, c2, c3, c4, c5, c6, c7, c8, c9, c10, c11, c12, c13, c14, c15, c16, c17, c18);
+	}
+
+	static void sqr(int[] a, int[] r) {
+		long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+		// the cross products appear twice
+		long d0 = a0 << 1, d1 = a1 << 1, d2 = a2 << 1, d3 = a3 << 1, d4 = a4 << 1, d5 = a5 << 1, d6 = a6 << 1, d7 = a7 << 1, d8 = a8 << 1;
+
+		long c0 = a0 * a0;
+		long c1 = d0 * a1;
+		long c2 = d0 * a2 + a1 * a1;
+		long c3 = d0 * a3 + d1 * a2;
+		long c4 = d0 * a4 + d1 * a3 + a2 * a2;
+		long c5 = d0 * a5 + d1 * a4 + d2 * a3;
+		long c6 = d0 * a6 + d1 * a5 + d2 * a4 + a3 * a3;
+		long c7 = d0 * a7 + d1 * a6 + d2 * a5 + d3 * a4;
+		long c8 = d0 * a8 + d1 * a7 + d2 * a6 + d3 * a5 + a4 * a4;
+		long c9 = d0 * a9 + d1 * a8 + d2 * a7 + d3 * a6 + d4 * a5;
+		long c10 = d1 * a9 + d2 * a8 + d3 * a7 + d4 * a6 + a5 * a5;
+		long c11 = d2 * a9 + d3 * a8 + d4 * a7 + d5 * a6;
+		long c12 = d3 * a9 + d4 * a8 + d5 * a7 + a6 * a6;
+		long c13 = d4 * a9 + d5 * a8 + d6 * a7;
+		long c14 = d5 * a9 + d6 * a8 + a7 * a7;
+		long c15 = d6 * a9 + d7 * a8;
+		long c16 = d7 * a9 + a8 * a8;
+		long c17 = d8 * a9;
+		long c18 = a9 * a9;
+
+		reduce(r, c0, c1, c2, c3, c4, c5, c6, c7, c8, c9, c10, c11, c12, c13, c14, c15, c16, c17, c18);
+	}
+
+	/**
+	 * Squares the element n times.
+	 */
+	static void sqr(int[] a, int n, int[] r) {
+		sqr(a, r);
+		for (int i = 1; i < n; i++) {
+			sqr(r, r);
+		}
+	}
+
+	// reduces the 19 column sums (each below 2^57) of the 512-bit product
+	private static void reduce(int[] r, long c0, long c1, long c2, long c3, long c4, long c5, long c6, long c7, long c8,
+		long c9, long c10, long c11, long c12, long c13, long c14, long c15, long c16, long c17, long c18) {
+
+		c1 += c0 >>> 26; c0 &= MASK;
+		c2 += c1 >>> 26; c1 &= MASK;
+		c3 += c2 >>> 26; c2 &= MASK;
+		c4 += c3 >>> 26; c3 &= MASK;
+		c5 += c4 >>> 26; c4 &= MASK;
+		c6 += c5 >>> 26; c5 &= MASK;
+		c7 += c6 >>> 26; c6 &= MASK;
+		c8 += c7 >>> 26; c7 &= MASK;
+		c9 += c8 >>> 26; c8 &= MASK;
+		c10 += c9 >>> 26; c9 &= MASK;
+		c11 += c10 >>> 26; c10 &= MASK;
+		c12 += c11 >>> 26; c11 &= MASK;
+		c13 += c12 >>> 26; c12 &= MASK;
+		c14 += c13 >>> 26; c13 &= MASK;
+		c15 += c14 >>> 26; c14 &= MASK;
+		c16 += c15 >>> 26; c15 &= MASK;
+		c17 += c16 >>> 26; c16 &= MASK;
+		c18 += c17 >>> 26; c17 &= MASK;
+		long c19 = c18 >>> 26; c18 &= MASK;
+
+		// the limb k >= 10 stands for c * 2^260 * 2^(26 * (k - 10)), c19 first as it lands in c10
+		c9 += c19 * FOLD_260; c10 += c19 << 10;
+		c8 += c18 * FOLD_260; c9 += c18 << 10;
+		c7 += c17 * FOLD_260; c8 += c17 << 10;
+		c6 += c16 * FOLD_260; c7 += c16 << 10;
+		c5 += c15 * FOLD_260; c6 += c15 << 10;
+		c4 += c14 * FOLD_260; c5 += c14 << 10;
+		c3 += c13 * FOLD_260; c4 += c13 << 10;
+		c2 += c12 * FOLD_260; c3 += c12 << 10;
+		c1 += c11 * FOLD_260; c2 += c11 << 10;
+		c0 += c10 * FOLD_260; c1 += c10 << 10;
+
+		c1 += c0 >>> 26; c0 &= MASK;
+		c2 += c1 >>> 26; c1 &= MASK;
+		c3 += c2 >>> 26; c2 &= MASK;
+		c4 += c3 >>> 26; c3 &= MASK;
+		c5 += c4 >>> 26; c4 &= MASK;
+		c6 += c5 >>> 26; c5 &= MASK;
+		c7 += c6 >>> 26; c6 &= MASK;
+		c8 += c7 >>> 26; c7 &= MASK;
+		c9 += c8 >>> 26; c8 &= MASK;
+
+		long top = c9 >>> 22; c9 &= TOP_MASK;
+		c0 += top * FOLD_256; c1 += top << 6;
+
+		c1 += c0 >>> 26; r[0] = (int) (c0 & MASK);
+		c2 += c1 >>> 26; r[1] = (int) (c1 & MASK);
+		c3 += c2 >>> 26; r[2] = (int) (c2 & MASK);
+		c4 += c3 >>> 26; r[3] = (int) (c3 & MASK);
+		c5 += c4 >>> 26; r[4] = (int) (c4 & MASK);
+		c6 += c5 >>> 26; r[5] = (int) (c5 & MASK);
+		c7 += c6 >>> 26; r[6] = (int) (c6 & MASK);
+		c8 += c7 >>> 26; r[7] = (int) (c7 & MASK);
+		c9 += c8 >>> 26; r[8] = (int) (c8 & MASK);
+		r[9] = (int) c9;
+	}
+}
@@ -0,0 +1,197 @@
+package com.mt.crypto;
+
+import static java.lang.System.arraycopy;
+import static java.util.Objects.requireNonNull;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECPoint;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * This class generates the secp256k1 key pairs by the {@link Secp256k1Engine}
+ * instead of a security provider. A random private key is multiplied by the
+ * generator point G in the fixed limb field arithmetic, summing up the
+ * precomputed multiples of G from a {@link FixedBaseTable}, and the keys are
+ * handed out in their raw form.
+ * <p>
+ * It is safe to be used by multiple threads at once, every thread has its own
+ * engine and random number generator.
+ * </p>
+ * The key pairs of the other {@link AsymetricKeyGenerator} implementations
+ * holding the standard {@link ECPublicKey} and {@link ECPrivateKey} are
+ * accepted too.
+ *
+ * @author mkrajcovic
+ */
+public final class Secp256k1KeyGenerator implements AsymetricKeyGenerator {
+
+	private static final ThreadLocal<Secp256k1Engine> ENGINES = ThreadLocal.withInitial(Secp256k1Engine::new);
+	private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
+	private static final byte[] ORDER = new byte[PRIVATE_KEY_LENGTH];
+
+	static {
+		Secp256k1.writeUnsigned(Secp256k1.N, ORDER, 0);
+	}
+
+	private final FixedBaseTable table;
+
+	/**
+	 * Creates the generator using the {@link FixedBaseTable#getDefault()}
+	 * table.
+	 */
+	public Secp256k1KeyGenerator() {
+		this(FixedBaseTable.getDefault());
+	}
+
+	/**
+	 * @param table - multiples of G shared by all the threads
+	 */
+	public Secp256k1KeyGenerator(FixedBaseTable table) {
+		this.table = requireNonNull(table, "table cannot be null");
+	}
+
+	@Override
+	public KeyPair generateAsymetricKeyPair() {
+		byte[] privateKey = new byte[PRIVATE_KEY_LENGTH];
+		SecureRandom random = RANDOMS.get();
+		do {
+			random.nextBytes(privateKey);
+		} while (!isValidPrivateKey(privateKey));
+
+		byte[] publicKey = new byte[PUBLIC_KEY_LENGTH];
+		ENGINES.get().publicKey(table, privateKey, 0, publicKey, 0);
+		return new KeyPair(new RawPublicKey(publicKey), new RawPrivateKey(privateKey));
+	}
+
+	/**
+	 * Writes the non compressed public key of the given private key.
+	 *
+	 * @param privateKey   - holding the 32-byte private key in range [1, n-1]
+	 * @param offset       - of the private key
+	 * @param output       - buffer receiving the public key
+	 * @param outputOffset - position in the buffer to start writing at
+	 */
+	public void getPublicKey(byte[] privateKey, int offset, byte[] output, int outputOffset) {
+		ENGINES.get().publicKey(table, privateKey, offset, output, outputOffset);
+	}
+
+	// 0 < k < n
+	static boolean isValidPrivateKey(byte[] key) {
+		int bits = 0;
+		for (int i = 0; i < PRIVATE_KEY_LENGTH; i++) {
+			bits |= key[i];
+		}
+		if (bits == 0) {
+			return false;
+		}
+		for (int i = 0; i < PRIVATE_KEY_LENGTH; i++) {
+			int difference = (key[i] & 0xFF) - (ORDER[i] & 0xFF);
+			if (difference != 0) {
+				return difference < 0;
+			}
+		}
+		// equal to the order
+		return false;
+	}
+
+	@Override
+	public String getPublicKey(KeyPair keyPair) {
+		byte[] publicKey = new byte[PUBLIC_KEY_LENGTH];
+		getPublicKey(keyPair, publicKey, 0);
+		return new String(Hex.encode(publicKey));
+	}
+
+	@Override
+	public String getPrivateKey(KeyPair keyPair) {
+		byte[] privateKey = new byte[PRIVATE_KEY_LENGTH];
+		getPrivateKey(keyPair, privateKey, 0);
+		return new String(Hex.encode(privateKey));
+	}
+
+	@Override
+	public void getPublicKey(KeyPair keyPair, byte[] output, int offset) {
+		PublicKey publicKey = keyPair.getPublic();
+		if (publicKey instanceof RawPublicKey) {
+			arraycopy(((RawPublicKey) publicKey).key, 0, output, offset, PUBLIC_KEY_LENGTH);
+		} else {
+			ECPoint ecPoint = ((ECPublicKey) publicKey).getW();
+			output[offset] = 0x04;
+			Secp256k1.writeUnsigned(ecPoint.getAffineX(), output, offset + 1);
+			Secp256k1.writeUnsigned(ecPoint.getAffineY(), output, offset + 33);
+		}
+	}
+
+	@Override
+	public void getPrivateKey(KeyPair keyPair, byte[] output, int offset) {
+		PrivateKey privateKey = keyPair.getPrivate();
+		if (privateKey instanceof RawPrivateKey) {
+			arraycopy(((RawPrivateKey) privateKey).key, 0, output, offset, PRIVATE_KEY_LENGTH);
+		} else {
+			Secp256k1.writeUnsigned(((ECPrivateKey) privateKey).getS(), output, offset);
+		}
+	}
+
+	/**
+	 * The 65-byte non compressed public key.
+	 */
+	private static final class RawPublicKey implements PublicKey {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] key;
+
+		private RawPublicKey(byte[] key) {
+			this.key = key;
+		}
+
+		@Override
+		public String getAlgorithm() {
+			return "EC";
+		}
+
+		@Override
+		public String getFormat() {
+			return "RAW";
+		}
+
+		@Override
+		public byte[] getEncoded() {
+			return key.clone();
+		}
+	}
+
+	/**
+	 * The 32-byte big-endian private key.
+	 */
+	private static final class RawPrivateKey implements PrivateKey {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] key;
+
+		private RawPrivateKey(byte[] key) {
+			this.key = key;
+		}
+
+		@Override
+		public String getAlgorithm() {
+			return "EC";
+		}
+
+		@Override
+		public String getFormat() {
+			return "RAW";
+		}
+
+		@Override
+		public byte[] getEncoded() {
+			return key.clone();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.Secp256k1.N;
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+import static com.mt.crypto.Secp256k1Field.mul;
+import static com.mt.crypto.Secp256k1Field.set;
+import static com.mt.crypto.Secp256k1Field.sqr;
+import static com.mt.crypto.Secp256k1Field.toBytes;
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * This class generates consecutive key pairs k, k+1, k+2... starting at a
+ * random (or given) private key k.<br>
+ * Only the starting point requires the full scalar multiplication, every
+ * following public key is obtained by adding the generator point G to the
+ * previous one. The points are kept in Jacobian coordinates during the walk and
+ * normalized to affine coordinates per batch by the Montgomery's trick, so a
+ * whole batch shares a single field inversion. The walk runs on the
+ * {@link Secp256k1Engine} whose scratch elements are reused along with the
+ * ones of the batch, so it allocates nothing once they are grown to the batch
+ * size.
+ *
+ * <p>
+ * The instances are not thread safe.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public class SweepKeyGenerator {
+
+	// keep the walk away from the scalars where P + G would turn into doubling or infinity
+	private static final BigInteger MIN_SCALAR = BigInteger.valueOf(2);
+
+	private final SecureRandom random;
+	private final Secp256k1Engine engine = new Secp256k1Engine();
+
+	// the next key pair to be emitted, the key as 32-byte big-endian number
+	private final byte[] scalar = new byte[PRIVATE_KEY_LENGTH];
+	private final JacobianPoint point = new JacobianPoint();
+	private BigInteger next;
+
+	// Jacobian coordinates of the batch and the running products of Z
+	private int[][] xs = new int[0][];
+	private int[][] ys = new int[0][];
+	private int[][] zs = new int[0][];
+	private int[][] products = new int[0][];
+	private final int[] inverse = new int[LIMBS];
+	private final int[] zInv = new int[LIMBS];
+	private final int[] zInv2 = new int[LIMBS];
+
+	/**
+	 * Creates the generator starting at a random private key which is
+	 * re-chosen each time the walk reaches the end of the key space.
+	 */
+	public SweepKeyGenerator(SecureRandom random) {
+		this.random = requireNonNull(random, "random cannot be null");
+		reseed(randomScalar());
+	}
+
+	/**
+	 * Creates the generator starting at the given private key.
+	 *
+	 * @param start - the first private key to emit
+	 */
+	public SweepKeyGenerator(BigInteger start) {
+		this.random = null;
+		if (start.compareTo(MIN_SCALAR) < 0 || start.compareTo(N.subtract(MIN_SCALAR)) > 0) {
+			throw new IllegalArgumentException("Start scalar out of range [2, n-2]: " + start.toString(16));
+		}
+		reseed(start);
+	}
+
+	private BigInteger randomScalar() {
+		BigInteger k;
+		do {
+			k = new BigInteger(256, random);
+		} while (k.compareTo(MIN_SCALAR) < 0 || k.compareTo(N.subtract(MIN_SCALAR)) > 0);
+		return k;
+	}
+
+	private void reseed(BigInteger start) {
+		next = start;
+		Secp256k1.writeUnsigned(start, scalar, 0);
+		engine.multiplyG(scalar, 0, point);
+	}
+
+	/**
+	 * @return the private key of the next key pair to be generated
+	 */
+	public BigInteger getNextPrivateKey() {
+		return next;
+	}
+
+	/**
+	 * Fills the given arrays with consecutive key pairs. Both arrays must share
+	 * the same length which determines the size of the batch.
+	 *
+	 * @param privateKeys - receive the 32-byte private keys
+	 * @param publicKeys  - receive the 65-byte non compressed public keys
+	 */
+	public void nextBatch(byte[][] privateKeys, byte[][] publicKeys) {
+		final int size = privateKeys.length;
+		if (publicKeys.length != size) {
+			throw new IllegalArgumentException("Batch arrays must be of the same length");
+		}
+		if (size == 0) {
+			return;
+		}
+		ensureRemaining(size);
+		ensureCapacity(size);
+
+		for (int i = 0; i < size; i++) {
+			System.arraycopy(scalar, 0, privateKeys[i], 0, PRIVATE_KEY_LENGTH);
+			set(point.x, xs[i]);
+			set(point.y, ys[i]);
+			set(point.z, zs[i]);
+			// never doubling nor infinity for scalars within [2, n-2]
+			engine.addAffine(point, Secp256k1Engine.GX, Secp256k1Engine.GY);
+			increment(scalar);
+		}
+		next = next.add(BigInteger.valueOf(size));
+		normalize(publicKeys, size);
+	}
+
+	private void ensureRemaining(int size) {
+		BigInteger last = next.add(BigInteger.valueOf(size));
+		if (last.compareTo(N.subtract(MIN_SCALAR)) > 0) {
+			if (random == null) {
+				throw new IllegalStateException("Key space exhausted at: " + next.toString(16));
+			}
+			reseed(randomScalar());
+		}
+	}
+
+	private void ensureCapacity(int size) {
+		if (zs.length >= size) {
+			return;
+		}
+		xs = new int[size][LIMBS];
+		ys = new int[size][LIMBS];
+		zs = new int[size][LIMBS];
+		products = new int[size][LIMBS];
+	}
+
+	private static void increment(byte[] number) {
+		int i = number.length - 1;
+		// carry over the bytes wrapping around to zero
+		while (i >= 0 && ++number[i] == 0) {
+			i--;
+		}
+	}
+
+	// converts (X, Y, Z) to (X/Z^2, Y/Z^3) with one inversion for the whole batch
+	private void normalize(byte[][] publicKeys, int size) {
+		set(zs[0], products[0]);
+		for (int i = 1; i < size; i++) {
+			mul(products[i - 1], zs[i], products[i]);
+		}
+		engine.invert(products[size - 1], inverse);
+		for (int i = size - 1; i >= 0; i--) {
+			if (i == 0) {
+				set(inverse, zInv);
+			} else {
+				mul(inverse, products[i - 1], zInv);
+				mul(inverse, zs[i], inverse);
+			}
+			sqr(zInv, zInv2);
+			mul(xs[i], zInv2, xs[i]);
+			mul(zInv2, zInv, zInv2);
+			mul(ys[i], zInv2, ys[i]);
+
+			byte[] publicKey = publicKeys[i];
+			publicKey[0] = 0x04;
+			toBytes(xs[i], publicKey, 1);
+			toBytes(ys[i], publicKey, 33);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.mt.main;
+
+import static com.mt.main.Launcher.loadConfig;
+
+import java.util.logging.Logger;
+
+import com.mt.core.Database;
+
+/**
+ * Command line tool decoding the addresses already stored in the main lookup
+ * table into the raw public key hash and address type columns, which the
+ * wallet lookups are performed on.<br>
+ * Only the rows with missing address type are processed, so it can be re-run
+ * after loading new addresses.
+ *
+ * @author mkrajcovic
+ */
+public class AddressHashMigration {
+
+	private static final Logger LOG = Logger.getLogger(AddressHashMigration.class.getName());
+
+	public static void main(String[] args) {
+		try (Database db = new Database(loadConfig(args))) {
+			Database.enableLogging();
+			long processed = db.fillAddressHashes();
+			LOG.info(() -> "Address hash migration finished, " + processed + " addresses processed");
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.mt.main;
+
+import static com.mt.main.Launcher.loadConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.mt.core.AddressHash;
+import com.mt.core.Database;
+import com.mt.core.MappedAddressIndex;
+
+/**
+ * Command line tool writing the memory mapped address index file used by the
+ * {@code lookup.mode=file} either from the main lookup table or from a dump
+ * holding one address per line.
+ *
+ * <pre>
+ * AddressIndexBuilder &lt;index file&gt; [configuration.properties]
+ * AddressIndexBuilder &lt;index file&gt; --dump &lt;addresses file&gt;
+ * </pre>
+ *
+ * @author mkrajcovic
+ */
+public class AddressIndexBuilder {
+
+	private static final Logger LOG = Logger.getLogger(AddressIndexBuilder.class.getName());
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("Usage: AddressIndexBuilder <index file> [<configuration> | --dump <addresses file>]");
+		}
+		Path indexFile = Paths.get(args[0]);
+
+		if (args.length == 3 && "--dump".equals(args[1])) {
+			MappedAddressIndex.build(indexFile, fromDump(Paths.get(args[2])));
+			return;
+		}
+		try (Database db = new Database(loadConfig(Arrays.copyOfRange(args, 1, args.length)))) {
+			MappedAddressIndex.build(indexFile, db::forEachAddressHash);
+		}
+	}
+
+	private static Consumer<Consumer<AddressHash>> fromDump(Path dump) {
+		return consumer -> {
+			long skipped = 0;
+			try (BufferedReader reader = Files.newBufferedReader(dump)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					AddressHash address = AddressHash.fromAddress(line.trim());
+					if (address == null) {
+						skipped++;
+					} else {
+						consumer.accept(address);
+					}
+				}
+			} catch (IOException ioex) {
+				throw new UncheckedIOException(ioex);
+			}
+			long unsupported = skipped;
+			LOG.info(() -> unsupported + " unsupported addresses skipped");
+		};
+	}
+}
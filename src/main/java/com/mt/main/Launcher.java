@@ -1,11 +1,10 @@
 package com.mt.main;
 
-import java.util.List;
+import static com.mt.config.ConfigurationKey.GENERATOR_BATCH_SIZE;
 
 import com.mt.config.ApplicationConfiguration;
 import com.mt.config.PropertiesFileConfiguration;
 import com.mt.core.Database;
-import com.mt.core.Wallet;
 
 public class Launcher {
 
@@ -16,16 +15,12 @@ public class Launcher {
 
 	public static void main(String[] args) {
 
-		final WalletService service = new WalletService(loadConfig(args));
-		List<Wallet> wallets;
-
-		while (true) { // NOSONAR this infinity loop is intented
-			wallets = service.generateWallets(1000);
-			service.processWalletsAsync(wallets);
-		}
+		final ApplicationConfiguration config = loadConfig(args);
+		final WalletService service = new WalletService(config);
+		service.generateContinuously(Integer.parseInt(config.get(GENERATOR_BATCH_SIZE, "1000")));
 	}
 
-	private static ApplicationConfiguration loadConfig(String[] programArgs) {
+	static ApplicationConfiguration loadConfig(String[] programArgs) {
 		String path = "src/main/resources/configuration.properties";
 		if (programArgs.length != 0) {
 			path = programArgs[0];
@@ -0,0 +1,116 @@
+package com.mt.main;
+
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.AsymetricKeyGenerator.PUBLIC_KEY_LENGTH;
+import static com.mt.main.Launcher.loadConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import com.mt.core.AddressType;
+import com.mt.core.BitcoinWallet;
+import com.mt.core.Database;
+import com.mt.core.KeyRange;
+import com.mt.core.Wallet;
+import com.mt.crypto.Secp256k1;
+import com.mt.crypto.Secp256k1KeyGenerator;
+import com.mt.crypto.SweepKeyGenerator;
+
+/**
+ * Command line tool expanding the private keys saved in the compact form
+ * ({@code db.table.save_wallet.format=keys}) back to their wallets. Every
+ * wallet is printed as a line of the hex private key followed by all its
+ * addresses separated by tabs.
+ *
+ * <pre>
+ * WalletDerivation &lt;hex private key&gt; [count]
+ * WalletDerivation --saved [configuration.properties]
+ * </pre>
+ *
+ * @author mkrajcovic
+ */
+public class WalletDerivation {
+
+	private static final int BATCH_SIZE = 1000;
+
+	static {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("Usage: WalletDerivation <hex private key> [count] | --saved [<configuration>]");
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+		Consumer<Wallet> printer = wallet -> print(wallet, out);
+
+		if ("--saved".equals(args[0])) {
+			try (Database db = new Database(loadConfig(Arrays.copyOfRange(args, 1, args.length)))) {
+				db.forEachSavedKeyRange(range -> deriveWallets(range, printer));
+			}
+		} else {
+			long count = args.length > 1 ? Long.parseLong(args[1]) : 1;
+			deriveWallets(new KeyRange(new BigInteger(args[0], 16), count), printer);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Derives the wallets of all the keys within the range in their order.
+	 *
+	 * @param range    - of the private keys
+	 * @param consumer - receiving the wallets
+	 */
+	public static void deriveWallets(KeyRange range, Consumer<Wallet> consumer) {
+		BigInteger start = range.getStart();
+		long remaining = range.getCount();
+		while (remaining > 0) {
+			int size = (int) Math.min(BATCH_SIZE, remaining);
+			byte[][] privateKeys = new byte[size][PRIVATE_KEY_LENGTH];
+			byte[][] publicKeys = new byte[size][PUBLIC_KEY_LENGTH];
+			deriveBatch(start, privateKeys, publicKeys);
+			for (int i = 0; i < size; i++) {
+				consumer.accept(new BitcoinWallet(privateKeys[i], publicKeys[i]));
+			}
+			start = start.add(BigInteger.valueOf(size));
+			remaining -= size;
+		}
+	}
+
+	private static void deriveBatch(BigInteger start, byte[][] privateKeys, byte[][] publicKeys) {
+		BigInteger last = start.add(BigInteger.valueOf(privateKeys.length - 1L));
+		if (start.compareTo(BigInteger.valueOf(2)) >= 0 && last.compareTo(Secp256k1.N.subtract(BigInteger.valueOf(2))) <= 0) {
+			new SweepKeyGenerator(start).nextBatch(privateKeys, publicKeys);
+			return;
+		}
+		// the sweep does not cover the very edges of the key space
+		Secp256k1KeyGenerator keyGenerator = new Secp256k1KeyGenerator();
+		for (int i = 0; i < privateKeys.length; i++) {
+			Secp256k1.writeUnsigned(start.add(BigInteger.valueOf(i)), privateKeys[i], 0);
+			keyGenerator.getPublicKey(privateKeys[i], 0, publicKeys[i], 0);
+		}
+	}
+
+	private static void print(Wallet wallet, Writer out) {
+		try {
+			out.write(wallet.getPrivateKey());
+			for (AddressType type : wallet.getSupportedAddressTypes()) {
+				out.write('\t');
+				out.write(wallet.getAddress(type));
+			}
+			out.write('\n');
+		} catch (IOException ioex) {
+			throw new UncheckedIOException(ioex);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.mt.main;
+
+import static com.mt.config.ConfigurationKey.DATABASE_ENABLE_WALLET_SAVING;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_FORMAT;
+import static com.mt.config.ConfigurationKey.GENERATOR_MODE;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANDOM_WINDOW_BITS;
+import static com.mt.config.ConfigurationKey.GENERATOR_RELATED_KEYS;
+import static com.mt.crypto.AsymetricKeyGenerator.PRIVATE_KEY_LENGTH;
+import static com.mt.crypto.AsymetricKeyGenerator.PUBLIC_KEY_LENGTH;
+import static com.mt.crypto.FixedBaseTable.DEFAULT_WINDOW_BITS;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.mt.config.ApplicationConfiguration;
+import com.mt.core.BitcoinWallet;
+import com.mt.core.Wallet;
+import com.mt.crypto.AsymetricKeyGenerator;
+import com.mt.crypto.FixedBaseTable;
+import com.mt.crypto.RelatedKeys;
+import com.mt.crypto.Secp256k1;
+import com.mt.crypto.Secp256k1KeyGenerator;
+import com.mt.crypto.SweepKeyGenerator;
+import com.mt.metrics.Counter;
+import com.mt.metrics.Stage;
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class creates the Bitcoin wallets in the configured generator mode.
+ * <p>
+ * It is safe to be used by multiple threads at once. Every thread calling
+ * {@link #generateWallets(int)} owns its independent state - in the
+ * {@code sweep} mode it is a separate walk seeded by its own random number
+ * generator, so the threads neither contend nor cover the same keys.
+ * </p>
+ * <p>
+ * In the {@code range} mode the walks over the ranges of the key space are
+ * driven by the caller through {@link #generateWallets(SweepKeyGenerator, int)}.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public class WalletGenerator {
+
+	private static final Logger LOG = new WalkingDeadLogger(WalletGenerator.class);
+
+	private final ThreadLocal<SweepKeyGenerator> sweepGenerators;
+	private final AsymetricKeyGenerator keyGenerator;
+	private final boolean relatedKeys;
+
+	public WalletGenerator(ApplicationConfiguration config) {
+		// the related keys are no runs of consecutive keys the compact save format is made for
+		boolean savingKeyRanges = Boolean.parseBoolean(config.get(DATABASE_ENABLE_WALLET_SAVING))
+			&& "keys".equals(config.get(DATABASE_TABLE_SAVE_WALLET_FORMAT, "addresses"));
+		relatedKeys = Boolean.parseBoolean(config.get(GENERATOR_RELATED_KEYS, String.valueOf(!savingKeyRanges)));
+		if (relatedKeys && savingKeyRanges) {
+			LOG.warning("Every related key is saved as a separate range of " + DATABASE_TABLE_SAVE_WALLET_FORMAT + "=keys");
+		}
+		String mode = config.get(GENERATOR_MODE, "random");
+		switch (mode) {
+		case "random":
+			sweepGenerators = null;
+			keyGenerator = new Secp256k1KeyGenerator(createTable(config));
+			break;
+		case "sweep":
+		case "range":
+			sweepGenerators = ThreadLocal.withInitial(WalletGenerator::createSweepGenerator);
+			keyGenerator = null;
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported " + GENERATOR_MODE + ": " + mode);
+		}
+	}
+
+	private static FixedBaseTable createTable(ApplicationConfiguration config) {
+		int windowBits = Integer.parseInt(config.get(GENERATOR_RANDOM_WINDOW_BITS, String.valueOf(DEFAULT_WINDOW_BITS)));
+		if (windowBits == DEFAULT_WINDOW_BITS) {
+			return FixedBaseTable.getDefault();
+		}
+		long start = System.nanoTime();
+		FixedBaseTable table = FixedBaseTable.build(windowBits);
+		LOG.info(() -> "Precomputed the multiples of G for " + windowBits + "-bit windows ("
+			+ table.getSizeBytes() / 1024 + " KiB) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		return table;
+	}
+
+	private static SweepKeyGenerator createSweepGenerator() {
+		SweepKeyGenerator generator = new SweepKeyGenerator(new SecureRandom());
+		LOG.info(() -> Thread.currentThread().getName() + " sweeping the key space from: "
+			+ Secp256k1.toHex64(generator.getNextPrivateKey()));
+		return generator;
+	}
+
+	/**
+	 * @return the number of wallets generated per computed public key - the
+	 *         key itself and its related keys if enabled
+	 */
+	public int getWalletsPerKey() {
+		return relatedKeys ? RelatedKeys.KEYS_PER_POINT : 1;
+	}
+
+	/**
+	 * Creates the required amount of Bitcoin wallets.<br>
+	 * <b><i>Note:</i></b> The generation is CPU intensive
+	 * and time complexity is O(n).
+	 * <p>
+	 * In the {@code sweep} generator mode the wallets hold consecutive
+	 * private keys continuing from the last call of the same thread.
+	 * </p>
+	 * <p>
+	 * With the related keys enabled the wallets of the {@link RelatedKeys}
+	 * are added too. In the {@code sweep} mode they follow all the
+	 * consecutive keys, so that the keys stay one run.
+	 * </p>
+	 *
+	 * @param howMany - Bitcoin wallets to generate.
+	 * @return list of generated Bitcoin wallets
+	 */
+	public List<Wallet> generateWallets(int howMany) {
+		int keys = (howMany + getWalletsPerKey() - 1) / getWalletsPerKey();
+		if (sweepGenerators != null) {
+			return sweepWallets(sweepGenerators.get(), keys, howMany);
+		}
+		// the key pair and its hash cannot be told apart here
+		long start = System.nanoTime();
+		final List<Wallet> wallets = new ArrayList<>(howMany);
+		int generated = 0;
+		while (wallets.size() != howMany) {
+			Wallet wallet = new BitcoinWallet(keyGenerator);
+			wallets.add(wallet);
+			generated++;
+			addRelatedWallets(wallets, wallet.getPrivateKeyBytes(), wallet.getPublicKeyBytes(), howMany);
+		}
+		Stage.KEYGEN.recordSince(start);
+		Counter.KEYS_GENERATED.add(generated);
+		Counter.WALLETS_GENERATED.add(howMany);
+		return wallets;
+	}
+
+	/**
+	 * Creates the wallets of consecutive private keys continuing the walk of
+	 * the given generator, regardless of the configured generator mode. They
+	 * are followed by the wallets of their related keys if enabled.
+	 *
+	 * @param sweepGenerator - owned by the calling thread
+	 * @param keys           - number of consecutive private keys to walk
+	 * @return list of {@code keys * }{@link #getWalletsPerKey()} generated
+	 *         Bitcoin wallets
+	 */
+	public List<Wallet> generateWallets(SweepKeyGenerator sweepGenerator, int keys) {
+		return sweepWallets(sweepGenerator, keys, keys * getWalletsPerKey());
+	}
+
+	private List<Wallet> sweepWallets(SweepKeyGenerator sweepGenerator, int keys, int howMany) {
+		byte[][] privateKeys = new byte[keys][PRIVATE_KEY_LENGTH];
+		byte[][] publicKeys = new byte[keys][PUBLIC_KEY_LENGTH];
+		long start = System.nanoTime();
+		sweepGenerator.nextBatch(privateKeys, publicKeys);
+		Stage.KEYGEN.recordSince(start);
+
+		start = System.nanoTime();
+		final List<Wallet> wallets = new ArrayList<>(howMany);
+		for (int i = 0; i < keys; i++) {
+			wallets.add(new BitcoinWallet(privateKeys[i], publicKeys[i]));
+		}
+		// after the whole run, so it is saved as a single key range
+		for (int i = 0; i < keys; i++) {
+			addRelatedWallets(wallets, privateKeys[i], publicKeys[i], howMany);
+		}
+		Stage.HASHING.recordSince(start);
+		Counter.KEYS_GENERATED.add(keys);
+		Counter.WALLETS_GENERATED.add(wallets.size());
+		return wallets;
+	}
+
+	// the related keys of the last key are dropped when they do not fit
+	private void addRelatedWallets(List<Wallet> wallets, byte[] privateKey, byte[] publicKey, int howMany) {
+		if (!relatedKeys || wallets.size() >= howMany) {
+			return;
+		}
+		byte[][] privateKeys = RelatedKeys.newPrivateKeys();
+		byte[][] publicKeys = RelatedKeys.newPublicKeys();
+		RelatedKeys.derive(privateKey, publicKey, privateKeys, publicKeys);
+		for (int i = 0; i < privateKeys.length && wallets.size() < howMany; i++) {
+			wallets.add(new BitcoinWallet(privateKeys[i], publicKeys[i]));
+		}
+	}
+}
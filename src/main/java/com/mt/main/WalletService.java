@@ -1,34 +1,73 @@
 package com.mt.main;
 
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_KEYSPACE_LEASE;
+import static com.mt.config.ConfigurationKey.GENERATOR_MODE;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_CHECKPOINT;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_LEASE_SECONDS;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_OWNER;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_SEED;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_SIZE;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_START;
+import static com.mt.config.ConfigurationKey.GENERATOR_RANGE_STORE;
+import static com.mt.config.ConfigurationKey.GENERATOR_THREADS;
+import static com.mt.config.ConfigurationKey.JOURNAL_DIRECTORY;
+import static com.mt.config.ConfigurationKey.LOOKUP_FILTER_FALSE_POSITIVE_RATE;
+import static com.mt.config.ConfigurationKey.LOOKUP_INDEX_FILE;
+import static com.mt.config.ConfigurationKey.LOOKUP_MODE;
+import static com.mt.config.ConfigurationKey.METRICS_JMX;
+import static com.mt.config.ConfigurationKey.METRICS_PROMETHEUS_PORT;
 import static com.mt.config.ConfigurationKey.NOTIFICATION_RECIPIENT_EMAIL;
 import static com.mt.config.ConfigurationKey.NOTIFICATION_RECIPIENT_OTHER_CONTACT;
 import static com.mt.config.ConfigurationKey.NOTIFICATION_RECIPIENT_PHONE;
+import static com.mt.config.ConfigurationKey.PIPELINE_CAPACITY;
+import static com.mt.config.ConfigurationKey.PROCESSING_THREADS;
 import static com.mt.notification.NotificationLoader.loadRegisteredNotifications;
 import static java.lang.Runtime.getRuntime;
 import static java.util.Objects.isNull;
-import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.file.Paths;
 import java.security.Security;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import com.mt.config.ApplicationConfiguration;
+import com.mt.core.AddressHash;
+import com.mt.core.AddressLookup;
 import com.mt.core.AddressType;
-import com.mt.core.BitcoinWallet;
+import com.mt.core.ApplicationFailure;
 import com.mt.core.Database;
+import com.mt.core.FilteredAddressLookup;
+import com.mt.core.KeyRange;
+import com.mt.core.KeyRangeSource;
+import com.mt.core.KeyspaceLeases;
+import com.mt.core.KeyspaceSweep;
+import com.mt.core.MappedAddressIndex;
+import com.mt.core.OffHeapAddressIndex;
 import com.mt.core.Wallet;
+import com.mt.core.WalletJournal;
+import com.mt.crypto.SweepKeyGenerator;
+import com.mt.metrics.Counter;
+import com.mt.metrics.Metrics;
+import com.mt.metrics.PrometheusEndpoint;
+import com.mt.metrics.Stage;
 import com.mt.notification.Message;
 import com.mt.notification.Notification;
 import com.mt.notification.Recipient;
+import com.mt.utils.BatchQueue;
 import com.mt.utils.WalkingDeadLogger;
 
 /**
@@ -50,24 +89,120 @@ import com.mt.utils.WalkingDeadLogger;
 public class WalletService {
 
 	private static final Logger LOG = new WalkingDeadLogger(WalletService.class);
+	private static final int THROUGHPUT_REPORT_SECONDS = 60;
+	private static final long CLAIM_RETRY_MILLIS = SECONDS.toMillis(10);
 
 	static {
 		Security.addProvider(new BouncyCastleProvider());
 	}
 
 	private final Database db;
+	private final AddressLookup lookup;
+	private final WalletJournal journal; // null when writing to the database directly
+	private final WalletGenerator generator;
+	private final KeyRangeSource sweep; // null unless in the range generator mode
+	private final int generatorThreads;
+	private final LongAdder generatedWallets = new LongAdder();
+	private ExecutorService generatorPool;
+	private final BatchQueue<WalletBatch> pipeline;
+	private final int processorThreads;
 	private ExecutorService taskProcessor; // prefer lazy init
+	private volatile boolean stopping;
 	private List<Notification> notifications;
 	private Recipient recipient;
+	private PrometheusEndpoint metricsEndpoint; // null unless configured
 
 	public WalletService(ApplicationConfiguration config) {
 		db = new Database(config);
+		lookup = createAddressLookup(config);
+		journal = createJournal(config);
+		generator = new WalletGenerator(config);
+		sweep = createKeyspaceSweep(config);
+		generatorThreads = Integer.parseInt(config.get(GENERATOR_THREADS, String.valueOf(getRuntime().availableProcessors())));
+		pipeline = new BatchQueue<>(Integer.parseInt(config.get(PIPELINE_CAPACITY, "16")));
+		processorThreads = Integer.parseInt(config.get(PROCESSING_THREADS, String.valueOf(db.getPoolSize())));
 		recipient = buildRecipient(config);
 		notifications = loadRegisteredNotifications();
+		startMetrics(config);
 
 		registerShutdownHook();
 	}
 
+	private AddressLookup createAddressLookup(ApplicationConfiguration config) {
+		String mode = config.get(LOOKUP_MODE, "database");
+		switch (mode) {
+		case "database":
+			return db;
+		case "memory":
+			return OffHeapAddressIndex.load(db);
+		case "filter":
+			double falsePositiveRate = Double.parseDouble(config.get(LOOKUP_FILTER_FALSE_POSITIVE_RATE, "0.01"));
+			return FilteredAddressLookup.load(db, falsePositiveRate);
+		case "file":
+			return MappedAddressIndex.open(Paths.get(config.get(LOOKUP_INDEX_FILE, "address.idx")));
+		default:
+			throw new IllegalArgumentException("Unsupported " + LOOKUP_MODE + ": " + mode);
+		}
+	}
+
+	private WalletJournal createJournal(ApplicationConfiguration config) {
+		String directory = config.get(JOURNAL_DIRECTORY);
+		if (directory == null) {
+			return null;
+		}
+		WalletJournal walletJournal = WalletJournal.open(Paths.get(directory));
+		walletJournal.startDraining(db);
+		return walletJournal;
+	}
+
+	private KeyRangeSource createKeyspaceSweep(ApplicationConfiguration config) {
+		if (!"range".equals(config.get(GENERATOR_MODE, "random"))) {
+			return null;
+		}
+		BigInteger start;
+		String startKey = config.get(GENERATOR_RANGE_START);
+		String seed = config.get(GENERATOR_RANGE_SEED);
+		if (startKey != null) {
+			start = new BigInteger(startKey, 16);
+		} else if (seed != null) {
+			start = KeyspaceSweep.startFromSeed(seed);
+		} else {
+			throw new IllegalArgumentException("The range generator mode requires " + GENERATOR_RANGE_SEED + " or " + GENERATOR_RANGE_START);
+		}
+		long rangeSize = Long.parseLong(config.get(GENERATOR_RANGE_SIZE, "10000000"));
+		String store = config.get(GENERATOR_RANGE_STORE, "file");
+		switch (store) {
+		case "file":
+			return KeyspaceSweep.open(Paths.get(config.get(GENERATOR_RANGE_CHECKPOINT, "sweep.checkpoint")), start, rangeSize);
+		case "database":
+			String owner = config.get(GENERATOR_RANGE_OWNER, ManagementFactory.getRuntimeMXBean().getName());
+			long leaseSeconds = Long.parseLong(config.get(GENERATOR_RANGE_LEASE_SECONDS, "600"));
+			String leaseTable = config.get(DATABASE_TABLE_KEYSPACE_LEASE, "t_keyspace_lease");
+			return KeyspaceLeases.open(db, leaseTable, start, rangeSize, owner, leaseSeconds);
+		default:
+			throw new IllegalArgumentException("Unsupported " + GENERATOR_RANGE_STORE + ": " + store);
+		}
+	}
+
+	private void startMetrics(ApplicationConfiguration config) {
+		Metrics.registerGauge("pipeline_depth", "Wallet batches waiting for processing", pipeline::size);
+		Metrics.registerGauge("pipeline_capacity", "Maximum number of the waiting wallet batches", pipeline::capacity);
+		if (!isNull(journal)) {
+			Metrics.registerGauge("journal_backlog_bytes", "Journal records not replayed into the database yet", journal::getBacklog);
+		}
+		if (Boolean.parseBoolean(config.get(METRICS_JMX, "true"))) {
+			Metrics.registerMBean();
+		}
+		String port = config.get(METRICS_PROMETHEUS_PORT);
+		if (port != null) {
+			try {
+				metricsEndpoint = PrometheusEndpoint.start(Integer.parseInt(port));
+			} catch (IOException ioex) {
+				throw new ApplicationFailure("Could not start the metrics endpoint on port " + port, ioex);
+			}
+		}
+	}
+
 	private Recipient buildRecipient(ApplicationConfiguration config) {
 		return new Recipient()
 			.withEmail(config.get(NOTIFICATION_RECIPIENT_EMAIL))
@@ -81,16 +216,35 @@ public class WalletService {
 
 	// 'private' as this object has no meaningful reason to exist without these resources
 	private void releaseResources() {
+		terminateGenerators();
 		terminateTaskExecutor();
+		terminateKeyspaceSweep();
+		terminateJournal();
 		terminateDatabaseConnection();
 
 		sendNotification(new Message("BitGuesser", "Program has been terminated"));
+		terminateMetricsEndpoint();
 	}
 
-	private void terminateTaskExecutor() {
+	private synchronized void terminateGenerators() {
+		if (!isNull(generatorPool)) {
+			LOG.info("Shutting down the wallet generator threads");
+			generatorPool.shutdownNow(); // the batches in progress are completed
+			try {
+				if (!generatorPool.awaitTermination(30, SECONDS)) {
+					LOG.warning("Wallet generator threads did not terminate in time");
+				}
+			} catch (InterruptedException iex) { // NOSONAR the shutdown continues with the task executor
+				LOG.warning("Interrupted while waiting on wallet generator threads: " + iex);
+			}
+		}
+	}
+
+	private synchronized void terminateTaskExecutor() {
+		stopping = true; // do not accept any future tasks
 		if (!isNull(taskProcessor)) {
 			LOG.info("Shutting down the wallet task executor");
-			taskProcessor.shutdown(); // do not accept any future tasks
+			taskProcessor.shutdown(); // the queued batches are processed first
 			try {
 				while (true) {
 					if (taskProcessor.awaitTermination(5, SECONDS)) {
@@ -104,32 +258,163 @@ public class WalletService {
 		}
 	}
 
+	private void terminateKeyspaceSweep() {
+		if (!isNull(sweep)) {
+			LOG.info("Releasing the uncompleted key ranges");
+			sweep.close();
+		}
+	}
+
+	private void terminateJournal() {
+		if (!isNull(journal)) {
+			LOG.info("Closing wallet journal");
+			journal.close(); // the rest is replayed on the next start
+		}
+	}
+
+	private void terminateMetricsEndpoint() {
+		if (!isNull(metricsEndpoint)) {
+			metricsEndpoint.close();
+		}
+	}
+
 	private void terminateDatabaseConnection() {
 		LOG.info("Closing database connection");
 		db.close();
 	}
 
 	/**
-	 * Creates the required amount of Bitcoin wallets.<br>
-	 * <b><i>Note:</i></b> The generation is CPU intensive
-	 * and time complexity is O(n).
+	 * Creates the required amount of Bitcoin wallets by the calling thread.
+	 * See {@link WalletGenerator#generateWallets(int)} for details.
 	 *
 	 * @param howMany - Bitcoin wallets to generate.
 	 * @return list of generated Bitcoin wallets
 	 */
 	public List<Wallet> generateWallets(int howMany) {
-		final List<Wallet> wallets = new ArrayList<>(howMany);
-		while (wallets.size() != howMany) {
-			wallets.add(new BitcoinWallet());
+		return generator.generateWallets(howMany);
+	}
+
+	/**
+	 * Starts the configured number of generator threads, each of them
+	 * generating batches of wallets independently and passing them to
+	 * {@link #processWalletsAsync(List)}. The calling thread is blocked until
+	 * the generation is terminated by the JVM shutdown, while it periodically
+	 * logs the generation throughput.
+	 * <p>
+	 * In the {@code range} generator mode each thread sweeps whole ranges of
+	 * the key space claimed from the {@link KeyRangeSource} - the local
+	 * {@link KeyspaceSweep} or the {@link KeyspaceLeases} shared by several
+	 * nodes. A range is recorded as completed once all of its batches have
+	 * been processed.
+	 * </p>
+	 *
+	 * @param batchSize - number of wallets generated and processed at once
+	 */
+	public void generateContinuously(int batchSize) {
+		synchronized (this) {
+			if (generatorPool != null) {
+				throw new IllegalStateException("Wallet generation has already been started");
+			}
+			generatorPool = newFixedThreadPool(generatorThreads);
+		}
+		LOG.info(() -> "Starting " + generatorThreads + " wallet generator threads");
+		for (int i = 0; i < generatorThreads; i++) {
+			generatorPool.execute(() -> {
+				try {
+					if (sweep != null) {
+						sweepRanges(batchSize);
+					}
+					while (sweep == null && !Thread.currentThread().isInterrupted()) {
+						List<Wallet> wallets = generateWallets(batchSize);
+						generatedWallets.add(wallets.size());
+						enqueue(new WalletBatch(wallets));
+					}
+				} catch (InterruptedException iex) {
+					// terminated while waiting for the processing stage
+				}
+			});
+		}
+		reportThroughput();
+	}
+
+	private void sweepRanges(int batchSize) throws InterruptedException {
+		while (!Thread.currentThread().isInterrupted()) {
+			KeyRange range;
+			try {
+				range = sweep.claim();
+			} catch (ApplicationFailure failure) {
+				LOG.warning("Could not claim a key range, retrying in " + CLAIM_RETRY_MILLIS + "ms: " + failure);
+				Thread.sleep(CLAIM_RETRY_MILLIS);
+				continue;
+			}
+			if (range == null) {
+				LOG.info("The key space sweep has reached the end of the key space");
+				return;
+			}
+			sweepRange(range, batchSize);
+		}
+	}
+
+	private void sweepRange(KeyRange range, int batchSize) throws InterruptedException {
+		SweepKeyGenerator keys = new SweepKeyGenerator(range.getStart());
+		// the batches keep their size including the related keys
+		int keysPerBatch = Math.max(1, batchSize / generator.getWalletsPerKey());
+		List<CompletableFuture<Void>> results = new ArrayList<>();
+		try {
+			for (long remaining = range.getCount(); remaining > 0; remaining -= keysPerBatch) {
+				List<Wallet> wallets = generator.generateWallets(keys, (int) Math.min(keysPerBatch, remaining));
+				generatedWallets.add(wallets.size());
+				WalletBatch batch = new WalletBatch(wallets);
+				enqueue(batch);
+				results.add(batch.result);
+			}
+		} catch (InterruptedException | RuntimeException error) {
+			sweep.release(range); // swept again after the restart
+			throw error;
+		}
+		CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> {
+			try {
+				if (error == null) {
+					sweep.complete(range);
+				} else {
+					LOG.warning("Sweep of " + range + " has failed and will be repeated");
+					sweep.release(range);
+				}
+			} catch (ApplicationFailure failure) {
+				LOG.warning("Could not record the sweep of " + range + ": " + failure);
+			}
+		});
+	}
+
+	private void reportThroughput() {
+		long lastCount = 0;
+		long lastTime = System.nanoTime();
+		try {
+			while (!generatorPool.awaitTermination(THROUGHPUT_REPORT_SECONDS, SECONDS)) {
+				long count = generatedWallets.sum();
+				long time = System.nanoTime();
+				double perSecond = (count - lastCount) * 1e9 / (time - lastTime);
+				long peakDepth = pipeline.getAndResetPeakSize();
+				LOG.info(() -> String.format("Generated %.0f wallets/s on %d threads, pipeline peak depth %d/%d batches, %d producer waits",
+					perSecond, generatorThreads, peakDepth, pipeline.capacity(), pipeline.getProducerWaits()));
+				lastCount = count;
+				lastTime = time;
+			}
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
 		}
-		return wallets;
 	}
 
 	/**
 	 * Delegates the synchronous version of wallet processing to the underlying
-	 * single-threaded task executor, so the {@link #generateWallets(int)} can
+	 * task executor ({@code processing.threads} batches are processed
+	 * concurrently), so the {@link #generateWallets(int)} can
 	 * be used to generate continuously more wallets without blocking while
 	 * waiting on database operations to complete. <br>
+	 * The batches are handed over through a bounded queue
+	 * ({@code pipeline.capacity}), so when the processing falls behind, this
+	 * method blocks until there is a free slot instead of accumulating the
+	 * wallets in memory.
 	 *
 	 * <p>
 	 * This asynchronous process does not propagate errors and task executor
@@ -144,56 +429,148 @@ public class WalletService {
 	 * @param wallets - to process
 	 */
 	public CompletableFuture<Void> processWalletsAsync(List<Wallet> wallets) {
+		WalletBatch batch = new WalletBatch(wallets);
+		try {
+			enqueue(batch);
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
+			batch.result.completeExceptionally(iex);
+		}
+		return batch.result;
+	}
+
+	private void enqueue(WalletBatch batch) throws InterruptedException {
+		if (stopping) {
+			throw new IllegalStateException("Wallet processing has been terminated");
+		}
+		startTaskProcessor();
+		pipeline.put(batch);
+	}
+
+	// the generator threads may call this concurrently
+	private synchronized void startTaskProcessor() {
 		if (taskProcessor == null) {
-			taskProcessor = newFixedThreadPool(1);
+			taskProcessor = newFixedThreadPool(processorThreads);
+			for (int i = 0; i < processorThreads; i++) {
+				taskProcessor.execute(this::processQueuedWallets);
+			}
+		}
+	}
+
+	private void processQueuedWallets() {
+		try {
+			while (true) {
+				WalletBatch batch = pipeline.poll(1, SECONDS);
+				if (batch != null) {
+					batch.process();
+				} else if (stopping) {
+					return; // drained
+				}
+			}
+		} catch (InterruptedException iex) {
+			LOG.warning("Wallet processing has been interrupted with " + pipeline.size() + " batches pending");
 		}
-		return runAsync(() -> processWallets(wallets), taskProcessor);
 	}
 
 	/**
-	 * Queries the database for a match on provided wallet addresses. If there
-	 * is a match, then the private keys will be saved to corresponding
-	 * addresses along with notifying the client to all registered
+	 * Queries the configured address lookup for a match on provided wallet
+	 * addresses. If there is a match, then the private keys will be saved to
+	 * corresponding addresses along with notifying the client to all registered
 	 * {@link com.mt.notification.Notification} implementations.
 	 * <p>
+	 * The match is performed on the raw public key hashes, so the human
+	 * readable addresses are encoded only for the matched wallets.
+	 * </p>
+	 * <p>
 	 * All the wallets passed into this method will be saved to database if
 	 * configured via {@code db.table.save_wallet} properties.
 	 * </p>
+	 * <p>
+	 * If the {@code journal.dir} is configured, the saved wallets and the
+	 * private keys of the found ones are written to the local
+	 * {@link WalletJournal} instead and replayed into the database in the
+	 * background, so a database outage does not lose them.
+	 * </p>
 	 *
 	 * @param wallets - to find a match for
 	 */
 	public void processWallets(List<Wallet> wallets) {
-		db.saveWallets(wallets);
+		if (wallets.isEmpty()) {
+			return;
+		}
+		long start;
+		if (db.isAutosaveGeneratedAllowed()) {
+			start = System.nanoTime();
+			if (isNull(journal)) {
+				db.saveWallets(wallets);
+			} else {
+				journal.append(WalletJournal.GENERATED, wallets);
+			}
+			Stage.SAVE.recordSince(start);
+		}
+
+		start = System.nanoTime();
+		List<byte[]> hashes = extractPublicKeyHashes(wallets);
+		Set<AddressType> addressTypes = wallets.get(0).getSupportedAddressTypes();
+		List<AddressHash> foundAddresses = lookup.findAddressHashes(hashes, addressTypes);
+		Stage.LOOKUP.recordSince(start);
+		Counter.ADDRESSES_CHECKED.add((long) hashes.size() * addressTypes.size());
 
-		List<String> addresses = extractAllAddresses(wallets);
-		List<String> foundAddresses = db.findAddresses(addresses);
 		if (!foundAddresses.isEmpty()) {
 			List<Wallet> foundWallets = retainMatchedWallets(wallets, foundAddresses);
-			db.savePrivateKeys(foundWallets);
+			Counter.WALLETS_FOUND.add(foundWallets.size());
+			start = System.nanoTime();
+			if (isNull(journal)) {
+				db.savePrivateKeys(foundWallets);
+			} else {
+				journal.append(WalletJournal.FOUND, foundWallets);
+			}
+			Stage.SAVE.recordSince(start);
+			lookup.markFound(foundAddresses);
 			sendNotification(buildFoundNotificationMessage(foundWallets));
 		}
 	}
 
-	// works only for compatible addresses which share the same set of address types
-	// otherwise the variable length of placeholders would break prepared batches
-	private List<String> extractAllAddresses(List<Wallet> wallets) {
-		List<String> addresses = new ArrayList<>();
+	// works only for compatible wallets which share the same set of address types
+	// since all of them are derived from the single public key hash
+	private List<byte[]> extractPublicKeyHashes(List<Wallet> wallets) {
+		List<byte[]> hashes = new ArrayList<>(wallets.size());
 		for (Wallet wallet : wallets) {
-			for (AddressType addressType : wallet.getSupportedAddressTypes()) {
-				addresses.add(wallet.getAddress(addressType));
-			}
+			hashes.add(wallet.getPublicKeyHash());
 		}
-		return addresses;
+		return hashes;
 	}
 
-	private List<Wallet> retainMatchedWallets(List<Wallet> wallets, List<String> addresses) {
+	private List<Wallet> retainMatchedWallets(List<Wallet> wallets, List<AddressHash> addresses) {
 		return wallets.stream()
-		.filter(wallet -> wallet.getSupportedAddressTypes()
-			.stream()
-			.anyMatch(addType -> addresses.contains(wallet.getAddress(addType))))
+		.filter(wallet -> addresses.stream()
+			.anyMatch(address -> Arrays.equals(address.getHash(), wallet.getPublicKeyHash())))
 		.collect(toList());
 	}
 
+	// unit of work passed between the generation and the processing stage
+	private final class WalletBatch {
+
+		private final List<Wallet> wallets;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		private WalletBatch(List<Wallet> wallets) {
+			this.wallets = wallets;
+		}
+
+		private void process() {
+			try {
+				processWallets(wallets);
+				Counter.BATCHES_PROCESSED.increment();
+				result.complete(null);
+			} catch (RuntimeException rex) {
+				Counter.BATCHES_FAILED.increment();
+				LOG.warning("Processing of " + wallets.size() + " wallets has failed: " + rex);
+				result.completeExceptionally(rex);
+			}
+		}
+	}
+
 	private Message buildFoundNotificationMessage(List<Wallet> foundWallets) {
 		// TODO: create proper message body
 		return new Message("BitGuesser - new wallets have been found", foundWallets.toString());
@@ -201,6 +578,7 @@ public class WalletService {
 
 	private void sendNotification(Message message) {
 		if (recipient.isDefined() && !notifications.isEmpty()) {
+			long start = System.nanoTime();
 			try {
 				for (Notification notification : notifications) {
 					notification.sendNotification(message, recipient);
@@ -209,6 +587,7 @@ public class WalletService {
 				// do not exit the program
 				LOG.warning("Error during sending notification: " + ioex);
 			}
+			Stage.NOTIFY.recordSince(start);
 		}
 	}
 }
@@ -0,0 +1,49 @@
+package com.mt.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The monotonic counters of the application. They are striped, so the
+ * concurrent increments do not contend.
+ *
+ * @author mkrajcovic
+ */
+public enum Counter {
+
+	KEYS_GENERATED("keys_generated_total", "Private keys generated with their public keys computed"),
+	WALLETS_GENERATED("wallets_generated_total", "Wallets generated (the generated keys and their related keys)"),
+	ADDRESSES_CHECKED("addresses_checked_total", "Addresses looked up (all the types of each key)"),
+	BATCHES_PROCESSED("batches_processed_total", "Wallet batches processed successfully"),
+	BATCHES_FAILED("batches_failed_total", "Wallet batches whose processing has failed"),
+	WALLETS_FOUND("wallets_found_total", "Generated wallets matching an active address"),
+	DATABASE_ERRORS("database_errors_total", "Failed database operations");
+
+	private final String name;
+	private final String help;
+	private final LongAdder value = new LongAdder();
+
+	private Counter(String name, String help) {
+		this.name = name;
+		this.help = help;
+	}
+
+	public void increment() {
+		value.increment();
+	}
+
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	public long sum() {
+		return value.sum();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelp() {
+		return help;
+	}
+}
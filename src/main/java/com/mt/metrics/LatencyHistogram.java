@@ -0,0 +1,94 @@
+package com.mt.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a histogram of durations with the buckets growing by
+ * the powers of two from one microsecond (roughly) up to several minutes.
+ * <p>
+ * Recording is lock-free - it only increments two striped counters - so it
+ * is cheap enough to be left on in the hot path even under contention.
+ * The reading is not atomic across the buckets, which is fine for
+ * monitoring.
+ * </p>
+ *
+ * @author mkrajcovic
+ */
+public final class LatencyHistogram {
+
+	// the first bucket holds durations up to 2^10 ns, the last one is unbounded
+	private static final int MIN_EXPONENT = 10;
+	static final int BUCKETS = 30;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder sumNanos = new LongAdder();
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param nanos - duration to be recorded
+	 */
+	public void record(long nanos) {
+		int exponent = nanos <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1);
+		buckets[Math.min(BUCKETS - 1, Math.max(0, exponent - MIN_EXPONENT))].increment();
+		sumNanos.add(nanos);
+	}
+
+	/**
+	 * @param index - of the bucket
+	 * @return the inclusive upper bound of the bucket in nanoseconds or
+	 *         {@link Long#MAX_VALUE} for the last one
+	 */
+	public static long getUpperBoundNanos(int index) {
+		return index == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (MIN_EXPONENT + index);
+	}
+
+	/**
+	 * @return the number of durations in each bucket (not cumulative)
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	public long getSumNanos() {
+		return sumNanos.sum();
+	}
+
+	/**
+	 * @param quantile - within [0, 1]
+	 * @return upper bound of the bucket the quantile falls into, 0 if nothing
+	 *         has been recorded yet
+	 */
+	public long getQuantileNanos(double quantile) {
+		long[] counts = getBucketCounts();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) {
+				return getUpperBoundNanos(i);
+			}
+		}
+		return 0;
+	}
+}
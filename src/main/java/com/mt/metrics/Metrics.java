@@ -0,0 +1,180 @@
+package com.mt.metrics;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import com.mt.utils.WalkingDeadLogger;
+
+/**
+ * This class gathers the runtime metrics of the application - the
+ * {@link Counter}s, the durations of the processing {@link Stage}s and the
+ * gauges registered by the components owning the measured state - and
+ * exposes them as a JMX MBean.
+ *
+ * @author mkrajcovic
+ */
+public final class Metrics {
+
+	private static final Logger LOG = new WalkingDeadLogger(Metrics.class);
+
+	static final String PREFIX = "bitguesser_";
+	static final String OBJECT_NAME = "com.mt:type=Metrics";
+
+	private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+
+	private Metrics() {
+		throw new IllegalStateException("Metrics was not designed to be instantiated");
+	}
+
+	/**
+	 * Registers the current value of a state of the application, replacing
+	 * the gauge of the same name registered before.
+	 *
+	 * @param name     - snake case name of the gauge without the prefix
+	 * @param help     - description of the gauge
+	 * @param supplier - called on every read, must be thread safe
+	 */
+	public static void registerGauge(String name, String help, LongSupplier supplier) {
+		GAUGES.put(name, new Gauge(help, supplier));
+	}
+
+	/**
+	 * @return gauges in the order of their names
+	 */
+	static Map<String, Gauge> getGauges() {
+		Map<String, Gauge> gauges = new LinkedHashMap<>();
+		List<String> names = new ArrayList<>(GAUGES.keySet());
+		Collections.sort(names);
+		for (String name : names) {
+			gauges.put(name, GAUGES.get(name));
+		}
+		return gauges;
+	}
+
+	/**
+	 * Registers the metrics on the platform MBean server under
+	 * {@value #OBJECT_NAME}. Repeated registration is noop.
+	 */
+	public static void registerMBean() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+			LOG.info(() -> "Metrics registered as JMX MBean " + OBJECT_NAME);
+		} catch (InstanceAlreadyExistsException alreadyRegistered) {
+			// noop
+		} catch (JMException jmex) {
+			LOG.warning("Could not register the metrics MBean: " + jmex);
+		}
+	}
+
+	static final class Gauge {
+
+		private final String help;
+		private final LongSupplier supplier;
+
+		private Gauge(String help, LongSupplier supplier) {
+			this.help = help;
+			this.supplier = supplier;
+		}
+
+		long read() {
+			return supplier.getAsLong();
+		}
+
+		String getHelp() {
+			return help;
+		}
+	}
+
+	/**
+	 * Read-only attributes of all the counters and gauges plus the number of
+	 * executions, the mean and the 99th percentile duration (in microseconds)
+	 * of every stage.
+	 */
+	static final class MetricsMBean implements DynamicMBean {
+
+		private Map<String, Number> readAttributes() {
+			Map<String, Number> attributes = new LinkedHashMap<>();
+			for (Counter counter : Counter.values()) {
+				attributes.put(counter.getName(), counter.sum());
+			}
+			for (Map.Entry<String, Gauge> gauge : getGauges().entrySet()) {
+				attributes.put(gauge.getKey(), gauge.getValue().read());
+			}
+			for (Stage stage : Stage.values()) {
+				LatencyHistogram histogram = stage.getHistogram();
+				long count = histogram.getCount();
+				attributes.put(stage.getLabel() + "_count", count);
+				attributes.put(stage.getLabel() + "_mean_micros", count == 0 ? 0 : NANOSECONDS.toMicros(histogram.getSumNanos() / count));
+				attributes.put(stage.getLabel() + "_p99_micros", NANOSECONDS.toMicros(histogram.getQuantileNanos(0.99)));
+			}
+			return attributes;
+		}
+
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			Number value = readAttributes().get(attribute);
+			if (value == null) {
+				throw new AttributeNotFoundException(attribute);
+			}
+			return value;
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] names) {
+			Map<String, Number> attributes = readAttributes();
+			AttributeList list = new AttributeList();
+			for (String name : names) {
+				if (attributes.containsKey(name)) {
+					list.add(new Attribute(name, attributes.get(name)));
+				}
+			}
+			return list;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+			throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations: " + actionName);
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			List<MBeanAttributeInfo> infos = new ArrayList<>();
+			for (Map.Entry<String, Number> attribute : readAttributes().entrySet()) {
+				infos.add(new MBeanAttributeInfo(attribute.getKey(), Long.class.getName(), attribute.getKey(), true, false, false));
+			}
+			return new MBeanInfo(Metrics.class.getName(), "BitGuesser runtime metrics",
+				infos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.mt.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.mt.utils.WalkingDeadLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class serves the {@link Metrics} in the Prometheus text exposition
+ * format on {@code /metrics} by the HTTP server built into the JDK. The
+ * stage durations are exposed as a histogram of seconds labeled by the stage,
+ * so the rates (keys/s, addresses/s) and the quantiles are computed by the
+ * Prometheus queries.
+ *
+ * @author mkrajcovic
+ */
+public final class PrometheusEndpoint implements AutoCloseable {
+
+	private static final Logger LOG = new WalkingDeadLogger(PrometheusEndpoint.class);
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final String STAGE_DURATION = Metrics.PREFIX + "stage_duration_seconds";
+
+	private final HttpServer server;
+
+	private PrometheusEndpoint(HttpServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * @param port - to listen on all interfaces, 0 for any free port
+	 * @return running endpoint
+	 * @throws IOException if the port cannot be bound
+	 */
+	public static PrometheusEndpoint start(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/metrics", PrometheusEndpoint::serve);
+		server.start();
+		LOG.info(() -> "Serving metrics on http://localhost:" + server.getAddress().getPort() + "/metrics");
+		return new PrometheusEndpoint(server);
+	}
+
+	private static void serve(HttpExchange exchange) throws IOException {
+		try {
+			byte[] body = render().getBytes(UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return all the metrics in the text exposition format
+	 */
+	static String render() {
+		StringBuilder text = new StringBuilder(8192);
+		for (Counter counter : Counter.values()) {
+			appendHeader(text, Metrics.PREFIX + counter.getName(), counter.getHelp(), "counter");
+			text.append(Metrics.PREFIX).append(counter.getName()).append(' ').append(counter.sum()).append('\n');
+		}
+		for (Map.Entry<String, Metrics.Gauge> gauge : Metrics.getGauges().entrySet()) {
+			appendHeader(text, Metrics.PREFIX + gauge.getKey(), gauge.getValue().getHelp(), "gauge");
+			text.append(Metrics.PREFIX).append(gauge.getKey()).append(' ').append(gauge.getValue().read()).append('\n');
+		}
+		appendHeader(text, STAGE_DURATION, "Duration of the processing stages", "histogram");
+		for (Stage stage : Stage.values()) {
+			appendHistogram(text, stage);
+		}
+		return text.toString();
+	}
+
+	private static void appendHeader(StringBuilder text, String name, String help, String type) {
+		text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void appendHistogram(StringBuilder text, Stage stage) {
+		LatencyHistogram histogram = stage.getHistogram();
+		long[] counts = histogram.getBucketCounts();
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			long bound = LatencyHistogram.getUpperBoundNanos(i);
+			String le = bound == Long.MAX_VALUE ? "+Inf" : Double.toString(bound / 1e9);
+			text.append(STAGE_DURATION).append("_bucket{stage=\"").append(stage.getLabel())
+				.append("\",le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+		}
+		text.append(STAGE_DURATION).append("_sum{stage=\"").append(stage.getLabel()).append("\"} ")
+			.append(histogram.getSumNanos() / 1e9).append('\n');
+		text.append(STAGE_DURATION).append("_count{stage=\"").append(stage.getLabel()).append("\"} ")
+			.append(cumulative).append('\n');
+	}
+
+	/**
+	 * @return the port the endpoint listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+}
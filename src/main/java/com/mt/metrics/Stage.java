@@ -0,0 +1,62 @@
+package com.mt.metrics;
+
+/**
+ * The stages of the wallet processing whose durations are measured.
+ *
+ * @author mkrajcovic
+ */
+public enum Stage {
+
+	/**
+	 * Generation of a batch of key pairs
+	 */
+	KEYGEN("keygen"),
+
+	/**
+	 * Public key hashes of a batch of generated key pairs
+	 */
+	HASHING("hashing"),
+
+	/**
+	 * Encoding of a single address from its public key hash
+	 */
+	ENCODING("encoding"),
+
+	/**
+	 * Lookup of a batch of public key hashes
+	 */
+	LOOKUP("lookup"),
+
+	/**
+	 * Saving of a batch of generated or found wallets (into the database or
+	 * the journal)
+	 */
+	SAVE("save"),
+
+	/**
+	 * Sending of a notification to all the registered channels
+	 */
+	NOTIFY("notify");
+
+	private final String label;
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private Stage(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @param startNanos - {@link System#nanoTime()} taken when the stage started
+	 */
+	public void recordSince(long startNanos) {
+		histogram.record(System.nanoTime() - startNanos);
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+}
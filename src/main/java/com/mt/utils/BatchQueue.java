@@ -0,0 +1,219 @@
+package com.mt.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents a bounded lock-free queue handing over whole batches
+ * of work between the pipeline stages, so that the producers can never
+ * outrun the consumers by more than the queue capacity.
+ *
+ * <p>
+ * It is a ring buffer where each slot carries its own sequence number
+ * (multiple producers and multiple consumers claim the slots by a single CAS
+ * each). The taken slots are cleared immediately, so the queue never retains
+ * the consumed batches.
+ * </p>
+ * <p>
+ * The blocking operations spin briefly and then park with a growing timeout,
+ * which is fine for a handoff of coarse batches where the waiting time is
+ * dominated by the stage on the other side.
+ * </p>
+ *
+ * @author mkrajcovic
+ * @param <T> type of the batches
+ */
+public final class BatchQueue<T> {
+
+	private static final int SPIN_TRIES = 64;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final AtomicReferenceArray<T> slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong peakSize = new AtomicLong();
+	private final LongAdder producerWaits = new LongAdder();
+	private final LongAdder consumerWaits = new LongAdder();
+
+	/**
+	 * @param capacity - maximum number of batches held, rounded up to the
+	 *                 nearest power of two (at least 2)
+	 */
+	public BatchQueue(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Capacity must be within [1, 2^30]: " + capacity);
+		}
+		// a single slot would publish the same sequence the next producer claims
+		int size = Math.max(2, Integer.highestOneBit(capacity));
+		if (size < capacity) {
+			size <<= 1;
+		}
+		slots = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * @param batch - to be enqueued
+	 * @return false if the queue is full
+	 */
+	public boolean offer(T batch) {
+		requireNonNull(batch, "batch cannot be null");
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long distance = sequences.get(index) - position;
+			if (distance == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet(index, batch);
+					// publishes the batch to the consumers
+					sequences.set(index, position + 1);
+					recordSize(position + 1 - head.get());
+					return true;
+				}
+				position = tail.get();
+			} else if (distance < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * @return the oldest batch or null if the queue is empty
+	 */
+	public T poll() {
+		long position = head.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long distance = sequences.get(index) - (position + 1);
+			if (distance == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					T batch = slots.get(index);
+					slots.lazySet(index, null);
+					// releases the slot to the producers of the next round
+					sequences.set(index, position + mask + 1);
+					return batch;
+				}
+				position = head.get();
+			} else if (distance < 0) {
+				return null;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * Enqueues the batch, waiting for a free slot if necessary. This is where
+	 * the back-pressure is applied on the producers.
+	 *
+	 * @param batch - to be enqueued
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void put(T batch) throws InterruptedException {
+		if (offer(batch)) {
+			return;
+		}
+		producerWaits.increment();
+		for (int attempt = 0; !offer(batch); attempt++) {
+			idle(attempt);
+		}
+	}
+
+	/**
+	 * Retrieves the oldest batch, waiting up to the given time if necessary.
+	 *
+	 * @param timeout - how long to wait
+	 * @param unit    - unit of the timeout
+	 * @return the oldest batch or null if none arrived in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+		T batch = poll();
+		if (batch != null) {
+			return batch;
+		}
+		consumerWaits.increment();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (int attempt = 0; (batch = poll()) == null; attempt++) {
+			if (System.nanoTime() - deadline >= 0) {
+				return null;
+			}
+			idle(attempt);
+		}
+		return batch;
+	}
+
+	private static void idle(int attempt) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		if (attempt < SPIN_TRIES) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1L << Math.min(attempt - SPIN_TRIES + 10, 20)));
+		}
+	}
+
+	private void recordSize(long size) {
+		long peak = peakSize.get();
+		while (size > peak && !peakSize.compareAndSet(peak, size)) {
+			peak = peakSize.get();
+		}
+	}
+
+	/**
+	 * @return approximate number of batches currently held
+	 */
+	public int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return maximum number of batches held
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return the highest number of batches held since the last call
+	 */
+	public long getAndResetPeakSize() {
+		return peakSize.getAndSet(size());
+	}
+
+	/**
+	 * @return how many times a producer had to wait for a free slot
+	 */
+	public long getProducerWaits() {
+		return producerWaits.sum();
+	}
+
+	/**
+	 * @return how many times a consumer had to wait for a batch
+	 */
+	public long getConsumerWaits() {
+		return consumerWaits.sum();
+	}
+}
@@ -16,10 +16,19 @@ CREATE TABLE IF NOT EXISTS bitcoin.t_address
 (
     s_address character varying(74) COLLATE pg_catalog."default" NOT NULL,
     s_private_key character varying(64) COLLATE pg_catalog."default",
+    b_hash160 bytea,
+    n_address_type smallint,
     CONSTRAINT t_address_pkey PRIMARY KEY (s_address)
 )
 TABLESPACE pg_default;
 
+-- raw form of the addresses (20-byte public key hash + type code) filled by com.mt.main.AddressHashMigration
+-- ALTER TABLE bitcoin.t_address ADD COLUMN IF NOT EXISTS b_hash160 bytea, ADD COLUMN IF NOT EXISTS n_address_type smallint;
+
+CREATE INDEX IF NOT EXISTS t_address_hash160_idx
+    ON bitcoin.t_address USING btree (b_hash160)
+    TABLESPACE pg_default;
+
 
 -- S I D E  T A B L E
 
@@ -32,6 +41,40 @@ CREATE TABLE IF NOT EXISTS bitcoin.t_generated_address
 )
 TABLESPACE pg_default;
 
+-- compact alternative of the side table (db.table.save_wallet.format=keys)
+-- holding the runs of consecutive private keys
+
+-- DROP TABLE IF EXISTS bitcoin.t_generated_key;
+
+CREATE TABLE IF NOT EXISTS bitcoin.t_generated_key
+(
+    b_private_key bytea NOT NULL,
+    n_count bigint NOT NULL
+)
+TABLESPACE pg_default;
+
+
+-- K E Y  S P A C E  L E A S E S  (generator.range.store=database)
+
+-- DROP TABLE IF EXISTS bitcoin.t_keyspace_lease;
+
+CREATE TABLE IF NOT EXISTS bitcoin.t_keyspace_lease
+(
+    n_range bigint NOT NULL,
+    b_start bytea NOT NULL,
+    n_count bigint NOT NULL,
+    s_owner character varying(128) COLLATE pg_catalog."default" NOT NULL,
+    n_expires bigint NOT NULL,
+    n_completed smallint NOT NULL DEFAULT 0,
+    CONSTRAINT t_keyspace_lease_pkey PRIMARY KEY (n_range)
+)
+TABLESPACE pg_default;
+
+CREATE INDEX IF NOT EXISTS t_keyspace_lease_expires_idx
+    ON bitcoin.t_keyspace_lease USING btree (n_expires)
+    WHERE n_completed = 0
+    TABLESPACE pg_default;
+
 
 --------------------------------------------------------------------------
 ------------------------------- O R A C L E ------------------------------
@@ -50,11 +93,15 @@ CREATE SCHEMA BITCOIN
 CREATE TABLE BITCOIN.T_ADDRESS 
 (
     S_ADDRESS        VARCHAR2(74 CHAR) NOT NULL,
-    S_PRIVATE_KEY    VARCHAR2(64 CHAR)
+    S_PRIVATE_KEY    VARCHAR2(64 CHAR),
+    B_HASH160        RAW(20),
+    N_ADDRESS_TYPE   NUMBER(2),
     PRIMARY KEY ( S_ADDRESS )
 )
 TABLESPACE BITCOIN;
 
+CREATE INDEX BITCOIN.T_ADDRESS_HASH160_IDX ON BITCOIN.T_ADDRESS ( B_HASH160 );
+
 
 -- S I D E  T A B L E
 
@@ -63,8 +110,51 @@ TABLESPACE BITCOIN;
 CREATE TABLE BITCOIN.T_GENERATED_ADDRESS 
 (
     S_ADDRESS        VARCHAR2(74 CHAR) NOT NULL,
-    S_PRIVATE_KEY    VARCHAR2(64 CHAR) NOT NULL
+    S_PRIVATE_KEY    VARCHAR2(64 CHAR) NOT NULL,
     PRIMARY KEY ( S_ADDRESS )
 )
 TABLESPACE BITCOIN;
 
+-- DROP TABLE BITCOIN.T_GENERATED_KEY;
+
+CREATE TABLE BITCOIN.T_GENERATED_KEY
+(
+    B_PRIVATE_KEY    RAW(32) NOT NULL,
+    N_COUNT          NUMBER(19) NOT NULL
+)
+TABLESPACE BITCOIN;
+
+
+-- K E Y  S P A C E  L E A S E S  (generator.range.store=database)
+
+-- DROP TABLE BITCOIN.T_KEYSPACE_LEASE;
+
+CREATE TABLE BITCOIN.T_KEYSPACE_LEASE
+(
+    N_RANGE          NUMBER(19) NOT NULL,
+    B_START          RAW(32) NOT NULL,
+    N_COUNT          NUMBER(19) NOT NULL,
+    S_OWNER          VARCHAR2(128 CHAR) NOT NULL,
+    N_EXPIRES        NUMBER(19) NOT NULL,
+    N_COMPLETED      NUMBER(1) DEFAULT 0 NOT NULL,
+    PRIMARY KEY ( N_RANGE )
+)
+TABLESPACE BITCOIN;
+
+CREATE INDEX BITCOIN.T_KEYSPACE_LEASE_EXPIRES_IDX ON BITCOIN.T_KEYSPACE_LEASE ( N_COMPLETED, N_EXPIRES );
+
+
+-- L O O K U P  B A T C H E S  (joined by the large lookups, see db.lookup.tempTableThreshold)
+
+CREATE GLOBAL TEMPORARY TABLE BITCOIN.GTT_LOOKUP_RAW
+(
+    LOOKUP_VALUE     RAW(20)
+)
+ON COMMIT DELETE ROWS;
+
+CREATE GLOBAL TEMPORARY TABLE BITCOIN.GTT_LOOKUP_VARCHAR
+(
+    LOOKUP_VALUE     VARCHAR2(74 CHAR)
+)
+ON COMMIT DELETE ROWS;
+
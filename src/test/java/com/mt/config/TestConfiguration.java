@@ -0,0 +1,37 @@
+package com.mt.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory configuration of the tests and benchmarks.
+ *
+ * @author mkrajcovic
+ */
+public final class TestConfiguration implements ApplicationConfiguration {
+
+	private final Map<String, String> properties;
+
+	private TestConfiguration(Map<String, String> properties) {
+		this.properties = new HashMap<>(properties);
+	}
+
+	/**
+	 * @param properties - values by the names of the configuration keys,
+	 *                   copied so later changes of the map are not seen
+	 * @return configuration holding the given values only
+	 */
+	public static ApplicationConfiguration of(Map<String, String> properties) {
+		return new TestConfiguration(properties);
+	}
+
+	@Override
+	public String get(Key key) {
+		return properties.get(key.toString());
+	}
+
+	@Override
+	public String get(Key key, String defaultValue) {
+		return properties.getOrDefault(key.toString(), defaultValue);
+	}
+}
@@ -0,0 +1,90 @@
+package com.mt.core;
+
+import static com.mt.core.AddressType.P2PKH;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class AddressFilterTest {
+
+	@Test
+	void falsePositiveRateTest() {
+		Random random = new Random(1);
+		AddressFilter filter = new AddressFilter(10_000, 0.01);
+		List<byte[]> present = randomHashes(random, 10_000);
+		present.forEach(filter::add);
+
+		present.forEach(hash -> assertTrue(filter.mightContain(hash)));
+
+		int falsePositives = 0;
+		for (byte[] hash : randomHashes(random, 100_000)) {
+			if (filter.mightContain(hash)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, "false positive rate too high: " + falsePositives);
+	}
+
+	@Test
+	void removalTest() {
+		AddressFilter filter = new AddressFilter(1_000, 0.001);
+		List<byte[]> hashes = randomHashes(new Random(2), 1_000);
+		hashes.forEach(filter::add);
+
+		filter.remove(hashes.get(0));
+		assertFalse(filter.mightContain(hashes.get(0)));
+		hashes.subList(1, hashes.size()).forEach(hash -> assertTrue(filter.mightContain(hash)));
+	}
+
+	@Test
+	void filteredLookupTest() {
+		List<byte[]> hashes = randomHashes(new Random(3), 100);
+		AddressFilter filter = new AddressFilter(1, 0.0001);
+		filter.add(hashes.get(0));
+
+		RecordingLookup delegate = new RecordingLookup();
+		FilteredAddressLookup lookup = new FilteredAddressLookup(filter, delegate);
+		lookup.findAddressHashes(hashes, EnumSet.of(P2PKH));
+		assertEquals(1, delegate.queried);
+
+		lookup.markFound(singletonList(new AddressHash(P2PKH, hashes.get(0))));
+		lookup.findAddressHashes(hashes, EnumSet.of(P2PKH));
+		assertEquals(1, delegate.queried);
+	}
+
+	private static List<byte[]> randomHashes(Random random, int count) {
+		List<byte[]> hashes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] hash = new byte[20];
+			random.nextBytes(hash);
+			hashes.add(hash);
+		}
+		return hashes;
+	}
+
+	private static class RecordingLookup implements AddressLookup {
+
+		private int queried;
+
+		@Override
+		public List<AddressHash> findAddressHashes(List<byte[]> publicKeyHashes, Set<AddressType> addressTypes) {
+			queried += publicKeyHashes.size();
+			return new ArrayList<>();
+		}
+
+		@Override
+		public void markFound(Collection<AddressHash> addresses) {
+			// noop
+		}
+	}
+}
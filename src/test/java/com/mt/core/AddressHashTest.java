@@ -0,0 +1,52 @@
+package com.mt.core;
+
+import static com.mt.core.AddressType.BECH32;
+import static com.mt.core.AddressType.P2PKH;
+import static com.mt.core.AddressType.P2SH;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.security.Security;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AddressHashTest {
+
+	@BeforeAll
+	static void registerProvider() {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	@Test
+	void roundTripTest() {
+		Wallet wallet = new BitcoinWallet();
+		for (AddressType type : wallet.getSupportedAddressTypes()) {
+			AddressHash decoded = AddressHash.fromAddress(wallet.getAddress(type));
+			assertEquals(type, decoded.getType());
+			assertArrayEquals(wallet.getPublicKeyHash(), decoded.getHash());
+			assertEquals(wallet.getAddress(type), decoded.getAddress());
+			assertEquals(new AddressHash(type, wallet.getPublicKeyHash()), decoded);
+		}
+	}
+
+	@Test
+	void unsupportedAddressesTest() {
+		// broken checksums
+		assertNull(AddressHash.fromAddress("1EHNa6Q4Jz2uvNExL497mE43ikXhwF6kZn"));
+		assertNull(AddressHash.fromAddress("bc1qjxeyh7049zzn99s2c6r6hvp4zfa362997dpu0j"));
+		// P2WSH program is not a public key hash
+		assertNull(AddressHash.fromAddress("bc1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3qccfmv3"));
+		assertNull(AddressHash.fromAddress("xpub"));
+		assertNull(AddressHash.fromAddress(""));
+	}
+
+	@Test
+	void typeCodesTest() {
+		for (AddressType type : new AddressType[] { P2PKH, P2SH, BECH32 }) {
+			assertEquals(type, AddressType.fromCode(type.getCode()));
+		}
+	}
+}
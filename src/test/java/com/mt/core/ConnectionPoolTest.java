@@ -0,0 +1,170 @@
+package com.mt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+	private static final String URL = "jdbc:stub:pool";
+	private static final AtomicInteger OPENED = new AtomicInteger();
+	private static final StubDriver DRIVER = new StubDriver();
+
+	@BeforeAll
+	static void registerDriver() throws SQLException {
+		DriverManager.registerDriver(DRIVER);
+	}
+
+	@AfterAll
+	static void deregisterDriver() throws SQLException {
+		DriverManager.deregisterDriver(DRIVER);
+	}
+
+	@Test
+	void connectionsAreReused() throws SQLException {
+		ConnectionPool pool = new ConnectionPool(URL, "usr", "pwd", 2);
+		int opened = OPENED.get();
+
+		Connection first;
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			first = lease.connection();
+		}
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			assertSame(first, lease.connection());
+			try (ConnectionPool.Lease second = pool.lease()) {
+				assertNotSame(first, second.connection());
+			}
+		}
+		assertEquals(opened + 2, OPENED.get());
+
+		// broken connections are replaced
+		first.close();
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			assertTrue(!lease.connection().isClosed());
+		}
+
+		pool.close();
+		assertTrue(pool.isClosed());
+		assertThrows(IllegalStateException.class, pool::lease);
+	}
+
+	@Test
+	void statementsAreCachedPerConnection() throws SQLException {
+		ConnectionPool pool = new ConnectionPool(URL, "usr", "pwd", 2);
+		try (ConnectionPool.Lease first = pool.lease(); ConnectionPool.Lease second = pool.lease()) {
+			PreparedStatement statement = first.prepare("SELECT 1");
+			assertSame(statement, first.prepare("SELECT 1"));
+			assertNotSame(statement, first.prepare("SELECT 2"));
+			assertNotSame(statement, second.prepare("SELECT 1"));
+		}
+		try (ConnectionPool.Lease lease = pool.lease()) {
+			PreparedStatement statement = lease.prepare("SELECT 1");
+			assertSame(statement, lease.prepare("SELECT 1"));
+		}
+		pool.close();
+	}
+
+	@Test
+	void leasesAreLimited() throws InterruptedException {
+		ConnectionPool pool = new ConnectionPool(URL, "usr", "pwd", 1);
+		ConnectionPool.Lease lease = pool.lease();
+
+		AtomicBoolean leased = new AtomicBoolean();
+		Thread waiting = new Thread(() -> {
+			try (ConnectionPool.Lease other = pool.lease()) {
+				leased.set(other.connection() != null);
+			}
+		});
+		waiting.start();
+		Thread.sleep(50);
+		assertTrue(!leased.get(), "second lease should wait for the first one");
+
+		lease.close();
+		waiting.join(5000);
+		assertTrue(leased.get());
+		pool.close();
+	}
+
+	private static final class StubDriver implements Driver {
+
+		@Override
+		public Connection connect(String url, Properties info) {
+			if (!acceptsURL(url)) {
+				return null;
+			}
+			OPENED.incrementAndGet();
+			AtomicBoolean closed = new AtomicBoolean();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "close":
+						closed.set(true);
+						return null;
+					case "isClosed":
+						return closed.get();
+					case "prepareStatement":
+						return stubStatement();
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+		}
+
+		private PreparedStatement stubStatement() {
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+				(proxy, method, args) -> "isClosed".equals(method.getName()) ? Boolean.FALSE : null);
+		}
+
+		@Override
+		public boolean acceptsURL(String url) {
+			return url.startsWith("jdbc:stub:");
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+			return new DriverPropertyInfo[0];
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger() {
+			return Logger.getGlobal();
+		}
+	}
+}
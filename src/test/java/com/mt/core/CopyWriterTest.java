@@ -0,0 +1,68 @@
+package com.mt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+class CopyWriterTest {
+
+	private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+	private final AtomicBoolean active = new AtomicBoolean(true);
+
+	private final CopyIn copyIn = (CopyIn) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { CopyIn.class },
+		(proxy, method, args) -> {
+			switch (method.getName()) {
+			case "writeToCopy":
+				written.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+				return null;
+			case "endCopy":
+			case "cancelCopy":
+				active.set(false);
+				return 0L;
+			case "isActive":
+				return active.get();
+			default:
+				return null;
+			}
+		});
+
+	@Test
+	void textFormatEncoding() throws SQLException {
+		try (CopyWriter copy = new CopyWriter(copyIn)) {
+			copy.field("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2").field(new byte[] { 0x00, (byte) 0xAB, 0x7F }).field(2).endRow();
+			copy.field("second").endRow();
+			copy.finish();
+		}
+		assertEquals("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2\t\\\\x00ab7f\t2\nsecond\n", written.toString());
+		assertFalse(active.get());
+	}
+
+	@Test
+	void largeLoadIsFlushedInParts() throws SQLException {
+		try (CopyWriter copy = new CopyWriter(copyIn)) {
+			for (int i = 0; i < 100_000; i++) {
+				copy.field(i).endRow();
+			}
+			copy.finish();
+		}
+		String[] rows = written.toString().split("\n");
+		assertEquals(100_000, rows.length);
+		assertEquals("99999", rows[99_999]);
+	}
+
+	@Test
+	void unfinishedCopyIsCancelled() throws SQLException {
+		try (CopyWriter copy = new CopyWriter(copyIn)) {
+			copy.field("never loaded").endRow();
+		}
+		assertFalse(active.get());
+		assertEquals(0, written.size());
+	}
+}
@@ -0,0 +1,210 @@
+package com.mt.core;
+
+import static com.mt.config.ConfigurationKey.DATABASE_DIALECT;
+import static com.mt.config.ConfigurationKey.DATABASE_ENABLE_WALLET_SAVING;
+import static com.mt.config.ConfigurationKey.DATABASE_LOOKUP_TEMP_TABLE_THRESHOLD;
+import static com.mt.config.ConfigurationKey.DATABASE_PASSWORD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_ADDRESS_HASH_FIELD;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_FORMAT;
+import static com.mt.config.ConfigurationKey.DATABASE_URL;
+import static com.mt.config.ConfigurationKey.DATABASE_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.mt.config.TestConfiguration;
+
+/**
+ * Runs the lookups of every dialect against the embedded H2 database in the
+ * corresponding compatibility mode.
+ */
+class DatabaseTest {
+
+	private static final int ACTIVE_ADDRESSES = 3000;
+
+	private Connection setup;
+	private List<Wallet> wallets;
+
+	@BeforeAll
+	static void registerProvider() {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	@AfterEach
+	void dropDatabase() throws SQLException {
+		try (Statement stmt = setup.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		setup.close();
+	}
+
+	@Test
+	void genericInListLookup() throws SQLException {
+		findAddressHashes("generic", "REGULAR", 100);
+	}
+
+	@Test
+	void oracleInListLookup() throws SQLException {
+		findAddressHashes("oracle", "Oracle", 100_000);
+	}
+
+	@Test
+	void oracleTemporaryTableLookup() throws SQLException {
+		findAddressHashes("oracle", "Oracle", 100);
+	}
+
+	@Test
+	void postgresqlArrayLookup() throws SQLException {
+		findAddressHashes("postgresql", "PostgreSQL", 100_000);
+	}
+
+	@Test
+	void genericEncodedAddressLookup() throws SQLException {
+		findEncodedAddressesAndSave("generic", "REGULAR");
+	}
+
+	@Test
+	void oracleEncodedAddressLookup() throws SQLException {
+		findEncodedAddressesAndSave("oracle", "Oracle");
+	}
+
+	@Test
+	void keyRangeSaving() throws SQLException {
+		Map<String, String> properties = createDatabase("generic", "REGULAR");
+		properties.put(DATABASE_ENABLE_WALLET_SAVING.toString(), "true");
+		properties.put(DATABASE_TABLE_SAVE_WALLET_FORMAT.toString(), "keys");
+
+		List<Wallet> generated = new ArrayList<>();
+		for (String key : Arrays.asList("01", "02", "ff", "0100", "0101", "05")) {
+			generated.add(new BitcoinWallet(Hex.decode(String.format("%64s", key).replace(' ', '0')), new byte[65]));
+		}
+		List<KeyRange> expected = Arrays.asList(
+			new KeyRange(BigInteger.ONE, 2),
+			new KeyRange(BigInteger.valueOf(255), 3),
+			new KeyRange(BigInteger.valueOf(5), 1));
+		assertEquals(expected, Database.toKeyRanges(generated));
+
+		try (Database db = new Database(TestConfiguration.of(properties))) {
+			db.saveWallets(generated);
+			List<KeyRange> saved = new ArrayList<>();
+			db.forEachSavedKeyRange(saved::add);
+			assertEquals(expected, saved);
+		}
+		assertEquals(0, count("SELECT COUNT(*) FROM bitcoin.t_generated_address"));
+	}
+
+	private void findAddressHashes(String dialect, String mode, int tempTableThreshold) throws SQLException {
+		Map<String, String> properties = createDatabase(dialect, mode);
+		properties.put(DATABASE_LOOKUP_TEMP_TABLE_THRESHOLD.toString(), String.valueOf(tempTableThreshold));
+
+		// more than twice the IN list limit with a partial chunk at the end
+		List<byte[]> searched = new ArrayList<>();
+		SecureRandom random = new SecureRandom();
+		for (int i = 0; i < 2 * InListDialect.MAX_IN_LIST + 345; i++) {
+			byte[] hash = new byte[20];
+			random.nextBytes(hash);
+			searched.add(hash);
+		}
+		searched.add(500, wallets.get(0).getPublicKeyHash());
+		searched.add(wallets.get(1).getPublicKeyHash());
+
+		try (Database db = new Database(TestConfiguration.of(properties))) {
+			Set<AddressType> types = new BitcoinWallet().getSupportedAddressTypes();
+			Set<AddressHash> found = new HashSet<>(db.findAddressHashes(searched, types));
+
+			Set<AddressHash> expected = new HashSet<>();
+			for (AddressType type : types) {
+				expected.add(new AddressHash(type, wallets.get(0).getPublicKeyHash()));
+				expected.add(new AddressHash(type, wallets.get(1).getPublicKeyHash()));
+			}
+			assertEquals(expected, found);
+			assertEquals(ACTIVE_ADDRESSES, db.countAddressHashes());
+		}
+	}
+
+	private void findEncodedAddressesAndSave(String dialect, String mode) throws SQLException {
+		Map<String, String> properties = createDatabase(dialect, mode);
+		properties.remove(DATABASE_TABLE_ADDRESS_HASH_FIELD.toString());
+		properties.put(DATABASE_ENABLE_WALLET_SAVING.toString(), "true");
+
+		try (Database db = new Database(TestConfiguration.of(properties))) {
+			Wallet wallet = wallets.get(2);
+			List<AddressHash> found = db.findAddressHashes(Arrays.asList(new byte[20], wallet.getPublicKeyHash()), wallet.getSupportedAddressTypes());
+			assertEquals(wallet.getSupportedAddressTypes().size(), found.size());
+
+			List<Wallet> foundWallets = Arrays.asList(wallet);
+			db.savePrivateKeys(foundWallets);
+			db.saveWallets(foundWallets);
+			assertTrue(db.findAddressHashes(Arrays.asList(wallet.getPublicKeyHash()), wallet.getSupportedAddressTypes()).isEmpty());
+		}
+		assertEquals(3, count("SELECT COUNT(*) FROM bitcoin.t_generated_address"));
+		assertEquals(3, count("SELECT COUNT(*) FROM bitcoin.t_address WHERE s_private_key IS NOT NULL"));
+	}
+
+	private Map<String, String> createDatabase(String dialect, String mode) throws SQLException {
+		String url = "jdbc:h2:mem:" + dialect + System.nanoTime() + ";MODE=" + mode;
+		setup = DriverManager.getConnection(url, "sa", "");
+		try (Statement stmt = setup.createStatement()) {
+			stmt.execute("CREATE SCHEMA bitcoin");
+			stmt.execute("CREATE TABLE bitcoin.t_address (s_address VARCHAR(74) PRIMARY KEY, s_private_key VARCHAR(64),"
+				+ " b_hash160 VARBINARY(20), n_address_type SMALLINT)");
+			stmt.execute("CREATE INDEX t_address_hash160_idx ON bitcoin.t_address (b_hash160)");
+			stmt.execute("CREATE TABLE bitcoin.t_generated_address (s_address VARCHAR(74) NOT NULL, s_private_key VARCHAR(64) NOT NULL)");
+			stmt.execute("CREATE TABLE bitcoin.t_generated_key (b_private_key VARBINARY(32) NOT NULL, n_count BIGINT NOT NULL)");
+			stmt.execute("CREATE GLOBAL TEMPORARY TABLE bitcoin.gtt_lookup_raw (lookup_value VARBINARY(20)) ON COMMIT DELETE ROWS");
+			stmt.execute("CREATE GLOBAL TEMPORARY TABLE bitcoin.gtt_lookup_varchar (lookup_value VARCHAR(74)) ON COMMIT DELETE ROWS");
+		}
+
+		wallets = new ArrayList<>();
+		try (PreparedStatement insert = setup.prepareStatement("INSERT INTO bitcoin.t_address VALUES (?, NULL, ?, ?)")) {
+			for (int i = 0; i < ACTIVE_ADDRESSES / 3; i++) {
+				Wallet wallet = new BitcoinWallet();
+				wallets.add(wallet);
+				for (AddressType type : wallet.getSupportedAddressTypes()) {
+					insert.setString(1, wallet.getAddress(type));
+					insert.setBytes(2, wallet.getPublicKeyHash());
+					insert.setInt(3, type.getCode());
+					insert.addBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+
+		Map<String, String> properties = new HashMap<>();
+		properties.put(DATABASE_URL.toString(), url);
+		properties.put(DATABASE_USER.toString(), "sa");
+		properties.put(DATABASE_PASSWORD.toString(), "");
+		properties.put(DATABASE_DIALECT.toString(), dialect);
+		properties.put(DATABASE_TABLE_ADDRESS_HASH_FIELD.toString(), "b_hash160");
+		return properties;
+	}
+
+	private long count(String query) throws SQLException {
+		try (Statement stmt = setup.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
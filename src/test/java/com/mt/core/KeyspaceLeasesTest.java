@@ -0,0 +1,146 @@
+package com.mt.core;
+
+import static com.mt.config.ConfigurationKey.DATABASE_PASSWORD;
+import static com.mt.config.ConfigurationKey.DATABASE_URL;
+import static com.mt.config.ConfigurationKey.DATABASE_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mt.config.ApplicationConfiguration;
+import com.mt.config.TestConfiguration;
+
+class KeyspaceLeasesTest {
+
+	private static final BigInteger START = BigInteger.valueOf(1000);
+
+	private String url;
+	private Connection setup;
+
+	@BeforeEach
+	void createLeaseTable() throws SQLException {
+		url = "jdbc:h2:mem:leases" + System.nanoTime();
+		setup = DriverManager.getConnection(url, "sa", "");
+		try (Statement stmt = setup.createStatement()) {
+			stmt.execute("CREATE SCHEMA bitcoin");
+			stmt.execute("CREATE TABLE bitcoin.t_keyspace_lease (n_range BIGINT PRIMARY KEY, b_start VARBINARY(32) NOT NULL,"
+				+ " n_count BIGINT NOT NULL, s_owner VARCHAR(128) NOT NULL, n_expires BIGINT NOT NULL, n_completed SMALLINT DEFAULT 0 NOT NULL)");
+		}
+	}
+
+	@AfterEach
+	void dropDatabase() throws SQLException {
+		setup.close();
+	}
+
+	@Test
+	void nodesClaimDisjointRanges() throws Exception {
+		try (Database db = new Database(configuration(url));
+			 KeyspaceLeases first = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "first", 600);
+			 KeyspaceLeases second = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "second", 600)) {
+			Set<KeyRange> claimed = ConcurrentHashMap.newKeySet();
+			ExecutorService nodes = Executors.newFixedThreadPool(4);
+			try {
+				Future<?>[] results = new Future<?>[4];
+				for (int i = 0; i < results.length; i++) {
+					KeyspaceLeases node = i % 2 == 0 ? first : second;
+					results[i] = nodes.submit(() -> {
+						for (int j = 0; j < 25; j++) {
+							KeyRange range = node.claim();
+							if (!claimed.add(range)) {
+								throw new AssertionError("Range claimed twice: " + range);
+							}
+							node.complete(range);
+						}
+					});
+				}
+				for (Future<?> result : results) {
+					result.get();
+				}
+			} finally {
+				nodes.shutdown();
+			}
+			assertEquals(100, claimed.size());
+			assertEquals(100, first.getCompletedRanges());
+			Set<KeyRange> expected = new HashSet<>();
+			for (int i = 0; i < 100; i++) {
+				expected.add(new KeyRange(START.add(BigInteger.valueOf(i * 100L)), 100));
+			}
+			assertEquals(expected, claimed);
+		}
+	}
+
+	@Test
+	void expiredLeaseIsTakenOver() throws SQLException {
+		try (Database db = new Database(configuration(url));
+			 KeyspaceLeases dead = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "dead", 600);
+			 KeyspaceLeases alive = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "alive", 600)) {
+			KeyRange abandoned = dead.claim();
+			KeyRange completed = dead.claim();
+			dead.complete(completed);
+			assertEquals(new KeyRange(BigInteger.valueOf(1200), 100), alive.claim());
+
+			// the dead node stops renewing its lease
+			try (Statement stmt = setup.createStatement()) {
+				stmt.executeUpdate("UPDATE bitcoin.t_keyspace_lease SET n_expires = 1 WHERE s_owner = 'dead'");
+			}
+			assertEquals(abandoned, alive.claim());
+			assertEquals("alive", owner(0));
+			assertEquals(new KeyRange(BigInteger.valueOf(1300), 100), alive.claim());
+
+			// the lease of the taken over range cannot be completed any more
+			dead.complete(abandoned);
+			assertEquals(1, alive.getCompletedRanges());
+			alive.complete(abandoned);
+			assertEquals(2, alive.getCompletedRanges());
+		}
+	}
+
+	@Test
+	void closedNodeReleasesItsRanges() throws SQLException {
+		try (Database db = new Database(configuration(url))) {
+			KeyRange released;
+			try (KeyspaceLeases leaving = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "leaving", 600)) {
+				released = leaving.claim();
+			}
+			try (KeyspaceLeases joining = KeyspaceLeases.open(db, "t_keyspace_lease", START, 100, "joining", 600)) {
+				assertEquals(released, joining.claim());
+			}
+			assertThrows(ApplicationFailure.class, () -> KeyspaceLeases.open(db, "t_keyspace_lease", START, 200, "other", 600));
+		}
+	}
+
+	private String owner(long range) throws SQLException {
+		try (Statement stmt = setup.createStatement();
+			 ResultSet rs = stmt.executeQuery("SELECT s_owner FROM bitcoin.t_keyspace_lease WHERE n_range = " + range)) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	private static ApplicationConfiguration configuration(String url) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(DATABASE_URL.toString(), url);
+		properties.put(DATABASE_USER.toString(), "sa");
+		properties.put(DATABASE_PASSWORD.toString(), "");
+		return TestConfiguration.of(properties);
+	}
+}
@@ -0,0 +1,79 @@
+package com.mt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mt.crypto.Secp256k1;
+
+class KeyspaceSweepTest {
+
+	private static final BigInteger START = BigInteger.valueOf(1000);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void restartedSweepSkipsCompletedRanges() {
+		Path checkpoint = directory.resolve("sweep.checkpoint");
+		KeyspaceSweep sweep = KeyspaceSweep.open(checkpoint, START, 100);
+		KeyRange first = sweep.claim();
+		KeyRange second = sweep.claim();
+		KeyRange third = sweep.claim();
+		assertEquals(new KeyRange(START, 100), first);
+		assertEquals(new KeyRange(BigInteger.valueOf(1100), 100), second);
+		assertEquals(new KeyRange(BigInteger.valueOf(1200), 100), third);
+
+		// the second one is still in progress when the node stops
+		sweep.complete(third);
+		sweep.complete(first);
+		assertEquals(2, sweep.getCompletedRanges());
+
+		KeyspaceSweep restarted = KeyspaceSweep.open(checkpoint, START, 100);
+		assertEquals(2, restarted.getCompletedRanges());
+		assertEquals(second, restarted.claim());
+		assertEquals(new KeyRange(BigInteger.valueOf(1300), 100), restarted.claim());
+	}
+
+	@Test
+	void releasedRangeIsClaimedAgain() {
+		KeyspaceSweep sweep = KeyspaceSweep.open(directory.resolve("sweep.checkpoint"), START, 100);
+		KeyRange first = sweep.claim();
+		KeyRange second = sweep.claim();
+		sweep.release(first);
+		assertEquals(first, sweep.claim());
+		assertEquals(new KeyRange(BigInteger.valueOf(1200), 100), sweep.claim());
+		assertThrows(IllegalArgumentException.class, () -> sweep.complete(new KeyRange(BigInteger.valueOf(1150), 100)));
+		sweep.complete(second);
+	}
+
+	@Test
+	void differentLayoutIsRejected() {
+		Path checkpoint = directory.resolve("sweep.checkpoint");
+		KeyspaceSweep sweep = KeyspaceSweep.open(checkpoint, START, 100);
+		sweep.complete(sweep.claim());
+		assertThrows(ApplicationFailure.class, () -> KeyspaceSweep.open(checkpoint, START, 200));
+	}
+
+	@Test
+	void sweepStopsAtTheEndOfKeySpace() {
+		BigInteger start = Secp256k1.N.subtract(BigInteger.valueOf(250));
+		KeyspaceSweep sweep = KeyspaceSweep.open(directory.resolve("sweep.checkpoint"), start, 100);
+		sweep.claim();
+		sweep.claim();
+		assertNull(sweep.claim());
+	}
+
+	@Test
+	void seedDeterminesTheStart() {
+		assertEquals(KeyspaceSweep.startFromSeed("node"), KeyspaceSweep.startFromSeed("node"));
+		assertNotEquals(KeyspaceSweep.startFromSeed("node"), KeyspaceSweep.startFromSeed("other"));
+	}
+}
@@ -0,0 +1,62 @@
+package com.mt.core;
+
+import static com.mt.core.AddressType.BECH32;
+import static com.mt.core.AddressType.P2PKH;
+import static com.mt.core.AddressType.P2SH;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedAddressIndexTest {
+
+	private static final Set<AddressType> ALL_TYPES = EnumSet.of(P2PKH, P2SH, BECH32);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void buildAndLookupTest() {
+		Random random = new Random(11);
+		List<byte[]> present = randomHashes(random, 20_000);
+		List<byte[]> absent = randomHashes(random, 20_000);
+
+		Path file = directory.resolve("address.idx");
+		long written = MappedAddressIndex.build(file, consumer -> {
+			present.forEach(hash -> consumer.accept(new AddressHash(P2PKH, hash)));
+			// duplicates of other types are merged into the same record
+			consumer.accept(new AddressHash(BECH32, present.get(0)));
+			consumer.accept(new AddressHash(P2PKH, present.get(1)));
+		});
+		assertEquals(present.size(), written);
+
+		try (MappedAddressIndex index = MappedAddressIndex.open(file)) {
+			assertEquals(present.size(), index.size());
+			assertEquals(present.size() + 1, index.findAddressHashes(present, ALL_TYPES).size());
+			assertEquals(1, index.findAddressHashes(present, EnumSet.of(BECH32)).size());
+			assertTrue(index.findAddressHashes(absent, ALL_TYPES).isEmpty());
+
+			index.markFound(singletonList(new AddressHash(BECH32, present.get(0))));
+			assertTrue(index.findAddressHashes(present, EnumSet.of(BECH32)).isEmpty());
+		}
+	}
+
+	private static List<byte[]> randomHashes(Random random, int count) {
+		List<byte[]> hashes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] hash = new byte[20];
+			random.nextBytes(hash);
+			hashes.add(hash);
+		}
+		return hashes;
+	}
+}
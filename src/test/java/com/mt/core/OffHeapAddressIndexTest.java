@@ -0,0 +1,74 @@
+package com.mt.core;
+
+import static com.mt.core.AddressType.BECH32;
+import static com.mt.core.AddressType.P2PKH;
+import static com.mt.core.AddressType.P2SH;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapAddressIndexTest {
+
+	private static final Set<AddressType> ALL_TYPES = EnumSet.of(P2PKH, P2SH, BECH32);
+
+	@Test
+	void lookupTest() {
+		Random random = new Random(42);
+		List<byte[]> present = randomHashes(random, 5_000);
+		List<byte[]> absent = randomHashes(random, 5_000);
+
+		// start small to force resizing
+		OffHeapAddressIndex index = new OffHeapAddressIndex(10);
+		for (byte[] hash : present) {
+			index.add(new AddressHash(P2PKH, hash));
+		}
+		index.add(new AddressHash(BECH32, present.get(0)));
+
+		assertEquals(present.size(), index.size());
+		assertEquals(present.size() + 1, index.findAddressHashes(present, ALL_TYPES).size());
+		assertEquals(present.size(), index.findAddressHashes(present, EnumSet.of(P2PKH)).size());
+		assertTrue(index.findAddressHashes(absent, ALL_TYPES).isEmpty());
+	}
+
+	@Test
+	void removalTest() {
+		List<byte[]> hashes = randomHashes(new Random(7), 1_000);
+		OffHeapAddressIndex index = new OffHeapAddressIndex(hashes.size());
+		for (byte[] hash : hashes) {
+			index.add(new AddressHash(P2SH, hash));
+		}
+
+		List<AddressHash> found = new ArrayList<>();
+		for (int i = 0; i < hashes.size(); i += 2) {
+			found.add(new AddressHash(P2SH, hashes.get(i)));
+		}
+		index.markFound(found);
+
+		assertEquals(hashes.size() / 2, index.size());
+		assertEquals(hashes.size() / 2, index.findAddressHashes(hashes, ALL_TYPES).size());
+		assertFalse(index.remove(found.get(0)));
+
+		// reuse of the tombstones
+		index.add(found.get(0));
+		assertEquals(1, index.findAddressHashes(singletonList(found.get(0).getHash()), ALL_TYPES).size());
+	}
+
+	private static List<byte[]> randomHashes(Random random, int count) {
+		List<byte[]> hashes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] hash = new byte[20];
+			random.nextBytes(hash);
+			hashes.add(hash);
+		}
+		return hashes;
+	}
+}
@@ -0,0 +1,144 @@
+package com.mt.core;
+
+import static com.mt.config.ConfigurationKey.DATABASE_ENABLE_WALLET_SAVING;
+import static com.mt.config.ConfigurationKey.DATABASE_PASSWORD;
+import static com.mt.config.ConfigurationKey.DATABASE_URL;
+import static com.mt.config.ConfigurationKey.DATABASE_USER;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mt.config.ApplicationConfiguration;
+import com.mt.config.TestConfiguration;
+
+class WalletJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@BeforeAll
+	static void registerProvider() {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	@Test
+	void journalSurvivesRestartAndIsReplayed() throws IOException, SQLException, InterruptedException {
+		List<Wallet> generated = Arrays.asList(new BitcoinWallet(), new BitcoinWallet());
+		Wallet found = generated.get(1);
+
+		try (WalletJournal journal = WalletJournal.open(directory)) {
+			journal.append(WalletJournal.GENERATED, generated);
+			journal.append(WalletJournal.FOUND, Arrays.asList(found));
+			assertTrue(journal.getBacklog() > 0);
+		}
+		// a record torn by a crash
+		Files.write(directory.resolve("journal-0000000000000000.log"), new byte[] { WalletJournal.GENERATED, 0, 0, 0, 5, 1, 2 }, APPEND);
+
+		String url = "jdbc:h2:mem:journal" + System.nanoTime();
+		try (Connection setup = DriverManager.getConnection(url, "sa", "")) {
+			try (Statement stmt = setup.createStatement()) {
+				stmt.execute("CREATE SCHEMA bitcoin");
+				stmt.execute("CREATE TABLE bitcoin.t_address (s_address VARCHAR(74) PRIMARY KEY, s_private_key VARCHAR(64))");
+				stmt.execute("CREATE TABLE bitcoin.t_generated_address (s_address VARCHAR(74) NOT NULL, s_private_key VARCHAR(64) NOT NULL)");
+			}
+			try (PreparedStatement insert = setup.prepareStatement("INSERT INTO bitcoin.t_address VALUES (?, NULL)")) {
+				insert.setString(1, found.getAddress());
+				insert.execute();
+			}
+
+			try (Database db = new Database(configuration(url));
+				 WalletJournal journal = WalletJournal.open(directory)) {
+				journal.startDraining(db);
+				drain(journal);
+			}
+
+			assertEquals(6, count(setup, "SELECT COUNT(*) FROM bitcoin.t_generated_address"));
+			assertEquals(1, count(setup, "SELECT COUNT(*) FROM bitcoin.t_address WHERE s_private_key = '" + found.getPrivateKey() + "'"));
+		}
+
+		// everything has been applied already
+		try (WalletJournal journal = WalletJournal.open(directory)) {
+			assertEquals(0, journal.getBacklog());
+		}
+	}
+
+	@Test
+	void replayedRecordsSkipSavedWallets() throws SQLException, InterruptedException, IOException {
+		List<Wallet> applied = Arrays.asList(new BitcoinWallet(), new BitcoinWallet());
+		List<Wallet> partlyApplied = Arrays.asList(new BitcoinWallet(), new BitcoinWallet());
+
+		String url = "jdbc:h2:mem:journal" + System.nanoTime();
+		try (Connection setup = DriverManager.getConnection(url, "sa", "")) {
+			try (Statement stmt = setup.createStatement()) {
+				stmt.execute("CREATE SCHEMA bitcoin");
+				stmt.execute("CREATE TABLE bitcoin.t_address (s_address VARCHAR(74) PRIMARY KEY, s_private_key VARCHAR(64))");
+				stmt.execute("CREATE TABLE bitcoin.t_generated_address (s_address VARCHAR(74) PRIMARY KEY, s_private_key VARCHAR(64) NOT NULL)");
+			}
+
+			try (Database db = new Database(configuration(url))) {
+				try (WalletJournal journal = WalletJournal.open(directory)) {
+					journal.append(WalletJournal.GENERATED, applied);
+					journal.startDraining(db);
+					drain(journal);
+				}
+				// a crash after applying the record but before its checkpoint
+				Files.delete(directory.resolve("checkpoint"));
+				// and one interrupted in the middle of the batch
+				db.saveWallets(partlyApplied.subList(0, 1));
+
+				try (WalletJournal journal = WalletJournal.open(directory)) {
+					journal.append(WalletJournal.GENERATED, partlyApplied);
+					journal.startDraining(db);
+					drain(journal);
+				}
+			}
+
+			assertEquals(12, count(setup, "SELECT COUNT(*) FROM bitcoin.t_generated_address"));
+			assertFalse(Files.exists(directory.resolve("quarantine.log")));
+		}
+	}
+
+	private static void drain(WalletJournal journal) throws InterruptedException {
+		for (int i = 0; i < 100 && journal.getBacklog() > 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(0, journal.getBacklog());
+	}
+
+	private static long count(Connection connection, String query) throws SQLException {
+		try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private static ApplicationConfiguration configuration(String url) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(DATABASE_URL.toString(), url);
+		properties.put(DATABASE_USER.toString(), "sa");
+		properties.put(DATABASE_PASSWORD.toString(), "");
+		properties.put(DATABASE_ENABLE_WALLET_SAVING.toString(), "true");
+		return TestConfiguration.of(properties);
+	}
+}
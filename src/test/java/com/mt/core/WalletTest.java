@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.security.Security;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -53,6 +54,19 @@ class WalletTest {
 		assertTrue(publicLength >= 68 && publicLength <= 130);
 	}
 
+	@Test
+	void sharedPublicKeyHashTest() {
+		// private key 1, the public key is the generator point itself
+		Wallet known = new BitcoinWallet(
+			"0000000000000000000000000000000000000000000000000000000000000001",
+			"0479be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798"
+			+ "483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8");
+
+		assertEquals("91b24bf9f5288532960ac687abb035127b1d28a5", new String(Hex.encode(known.getPublicKeyHash())));
+		assertEquals("1EHNa6Q4Jz2uvNExL497mE43ikXhwF6kZm", known.getAddress(P2PKH));
+		assertEquals("bc1qjxeyh7049zzn99s2c6r6hvp4zfa362997dpu0h", known.getAddress(BECH32));
+	}
+
 	@Test
 	void walletActivenessTest() {
 		assertTrue(isAddressValid(wallet.getAddress(P2PKH)));
@@ -0,0 +1,72 @@
+package com.mt.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class Base58CheckTest {
+
+	@Test
+	void encodingMatchesGenericBase58() {
+		Random random = new Random(21);
+		byte[] output = new byte[Base58Check.MAX_ENCODED_LENGTH + 3];
+		for (int i = 0; i < 2000; i++) {
+			byte[] payload = payload(random, i % 25);
+			String expected = Base58.encode(payload);
+
+			int length = Base58Check.encode(payload, 0, output, 3);
+			assertEquals(expected, new String(output, 3, length));
+			assertEquals(expected, Base58Check.encode(payload, 0));
+
+			byte[] decoded = new byte[Base58Check.PAYLOAD_LENGTH];
+			Base58Check.decode(expected, decoded, 0);
+			assertArrayEquals(payload, decoded);
+		}
+	}
+
+	@Test
+	void knownAddresses() {
+		byte[] hash = Hash160.hash160(new byte[] { 1, 2, 3 });
+		BtcLegacyAddressGenerator legacy = new BtcLegacyAddressGenerator();
+		BtcSegWitAddressGenerator segWit = new BtcSegWitAddressGenerator();
+
+		byte[] genesis = Hex.decode("62e907b15cbf27d5425399ebf6f0fb50ebb88f18");
+		assertEquals("1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa", legacy.getAddressFromHash(genesis));
+		assertArrayEquals(genesis, legacy.getHashFromAddress("1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa"));
+		assertEquals("1111111111111111111114oLvT2", legacy.getAddressFromHash(new byte[20]));
+		assertArrayEquals(new byte[20], legacy.getHashFromAddress("1111111111111111111114oLvT2"));
+		assertArrayEquals(hash, legacy.getHashFromAddress(legacy.getAddressFromHash(hash)));
+		assertArrayEquals(hash, segWit.getHashFromAddress(segWit.getAddressFromHash(hash)));
+		assertThrows(IllegalArgumentException.class, () -> legacy.getHashFromAddress(segWit.getAddressFromHash(hash)));
+	}
+
+	@Test
+	void invalidEncodings() {
+		byte[] output = new byte[Base58Check.PAYLOAD_LENGTH];
+		String address = Base58Check.encode(payload(new Random(7), 0), 0);
+		char last = address.charAt(address.length() - 1);
+		String corrupted = address.substring(0, address.length() - 1) + (last == 'z' ? 'y' : 'z');
+
+		assertThrows(IllegalArgumentException.class, () -> Base58Check.decode(corrupted, output, 0));
+		assertThrows(IllegalArgumentException.class, () -> Base58Check.decode(address.replace(address.charAt(1), '0'), output, 0));
+		assertThrows(IllegalArgumentException.class, () -> Base58Check.decode("1" + address, output, 0));
+		assertThrows(IllegalArgumentException.class, () -> Base58Check.decode("zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz", output, 0));
+		assertThrows(IllegalArgumentException.class, () -> Base58Check.decode("", output, 0));
+	}
+
+	// version + hash + valid checksum, the given number of bytes zeroed from the start
+	private static byte[] payload(Random random, int zeros) {
+		byte[] payload = new byte[Base58Check.PAYLOAD_LENGTH];
+		random.nextBytes(payload);
+		for (int i = 0; i < zeros; i++) {
+			payload[i] = 0;
+		}
+		Hash160.checksum(payload, 0, Base58Check.PAYLOAD_LENGTH - 4, payload, Base58Check.PAYLOAD_LENGTH - 4);
+		return payload;
+	}
+}
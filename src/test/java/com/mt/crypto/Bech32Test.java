@@ -0,0 +1,44 @@
+package com.mt.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class Bech32Test {
+
+	@Test
+	void p2wpkhEncodingMatchesGenericBech32() {
+		Random random = new Random(22);
+		byte[] output = new byte[Bech32.P2WPKH_LENGTH + 2];
+		byte[] hash = new byte[Hash160.LENGTH + 1];
+		for (int i = 0; i < 1000; i++) {
+			random.nextBytes(hash);
+			byte[] data = new byte[33];
+			// the version followed by the hash regrouped into 5-bit values
+			for (int j = 0; j < 32; j++) {
+				int bit = j * 5;
+				int word = (hash[1 + bit / 8] & 0xFF) << 8 | (bit / 8 + 2 < hash.length ? hash[2 + bit / 8] & 0xFF : 0);
+				data[1 + j] = (byte) ((word >>> (11 - bit % 8)) & 0x1f);
+			}
+
+			Bech32.encodeP2wpkh(hash, 1, output, 2);
+			assertEquals(Bech32.encode("bc", data), new String(output, 2, Bech32.P2WPKH_LENGTH));
+		}
+	}
+
+	@Test
+	void knownAddress() {
+		BtcNativeSegWitAddressGenerator generator = new BtcNativeSegWitAddressGenerator();
+		byte[] hash = Hex.decode("751e76e8199196d454941c45d1b3a323f1433bd6");
+
+		assertEquals("bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4", generator.getAddressFromHash(hash));
+		assertArrayEquals(hash, generator.getHashFromAddress("bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4"));
+		assertArrayEquals(hash, generator.getHashFromAddress("BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4"));
+		assertThrows(IllegalArgumentException.class, () -> generator.getHashFromAddress("bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t5"));
+	}
+}
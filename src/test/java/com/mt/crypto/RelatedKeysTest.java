@@ -0,0 +1,53 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.Secp256k1.N;
+import static com.mt.crypto.Secp256k1.P;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RelatedKeysTest {
+
+	@Test
+	void cubeRootsOfUnity() {
+		assertEquals(BigInteger.ONE, RelatedKeys.LAMBDA.modPow(BigInteger.valueOf(3), N));
+		assertEquals(BigInteger.ONE, RelatedKeys.BETA.modPow(BigInteger.valueOf(3), P));
+	}
+
+	@Test
+	void relatedKeysMatchScalarMultiplication() {
+		Random random = new Random(25);
+		byte[][] privateKeys = RelatedKeys.newPrivateKeys();
+		byte[][] publicKeys = RelatedKeys.newPublicKeys();
+		for (int i = 0; i < 20; i++) {
+			BigInteger k = i == 0 ? BigInteger.ONE : new BigInteger(256, random).mod(N.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+			byte[] privateKey = new byte[32];
+			Secp256k1.writeUnsigned(k, privateKey, 0);
+			RelatedKeys.derive(privateKey, publicKey(k), privateKeys, publicKeys);
+
+			Set<BigInteger> distinct = new HashSet<>();
+			distinct.add(k);
+			for (int j = 0; j < privateKeys.length; j++) {
+				BigInteger related = new BigInteger(1, privateKeys[j]);
+				distinct.add(related);
+				assertArrayEquals(publicKey(related), publicKeys[j], "related key " + j + " of " + k.toString(16));
+			}
+			assertEquals(RelatedKeys.KEYS_PER_POINT, distinct.size());
+		}
+	}
+
+	private static byte[] publicKey(BigInteger k) {
+		BigInteger[] point = Secp256k1.multiplyG(k);
+		byte[] publicKey = new byte[65];
+		publicKey[0] = 0x04;
+		Secp256k1.writeUnsigned(point[0], publicKey, 1);
+		Secp256k1.writeUnsigned(point[1], publicKey, 33);
+		return publicKey;
+	}
+}
@@ -0,0 +1,225 @@
+package com.mt.crypto;
+
+import static com.mt.crypto.Secp256k1.N;
+import static com.mt.crypto.Secp256k1.P;
+import static com.mt.crypto.Secp256k1Field.LIMBS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class Secp256k1EngineTest {
+
+	private final Random random = new Random(23);
+
+	@Test
+	void fieldArithmeticMatchesBigInteger() {
+		BigInteger[] edges = { BigInteger.ZERO, BigInteger.ONE, P.subtract(BigInteger.ONE),
+			P.subtract(BigInteger.valueOf(2)), BigInteger.ONE.shiftLeft(255), BigInteger.ONE.shiftLeft(26).subtract(BigInteger.ONE) };
+		int[] a = new int[LIMBS];
+		int[] b = new int[LIMBS];
+		int[] r = new int[LIMBS];
+		for (int i = 0; i < 2000; i++) {
+			BigInteger x = i < edges.length * edges.length ? edges[i % edges.length] : randomElement();
+			BigInteger y = i < edges.length * edges.length ? edges[i / edges.length] : randomElement();
+			Secp256k1Field.fromBigInteger(x, a);
+			Secp256k1Field.fromBigInteger(y, b);
+
+			Secp256k1Field.mul(a, b, r);
+			assertEquals(x.multiply(y).mod(P), Secp256k1Field.toBigInteger(r));
+			Secp256k1Field.sqr(a, r);
+			assertEquals(x.multiply(x).mod(P), Secp256k1Field.toBigInteger(r));
+			Secp256k1Field.add(a, b, r);
+			assertEquals(x.add(y).mod(P), Secp256k1Field.toBigInteger(r));
+			Secp256k1Field.sub(a, b, r);
+			assertEquals(x.subtract(y).mod(P), Secp256k1Field.toBigInteger(r));
+			Secp256k1Field.negate(a, r);
+			assertEquals(x.negate().mod(P), Secp256k1Field.toBigInteger(r));
+			Secp256k1Field.mulInt(a, 8, r);
+			assertEquals(x.shiftLeft(3).mod(P), Secp256k1Field.toBigInteger(r));
+			assertEquals(x.signum() == 0, Secp256k1Field.isZero(a));
+		}
+	}
+
+	@Test
+	void chainedOperationsStayReduced() {
+		BigInteger x = randomElement();
+		BigInteger expected = x;
+		int[] a = new int[LIMBS];
+		Secp256k1Field.fromBigInteger(x, a);
+		// the results of one operation are the operands of the next one
+		for (int i = 0; i < 1000; i++) {
+			Secp256k1Field.add(a, a, a);
+			Secp256k1Field.sqr(a, a);
+			Secp256k1Field.mulInt(a, 3, a);
+			expected = expected.shiftLeft(1).pow(2).multiply(BigInteger.valueOf(3)).mod(P);
+		}
+		assertEquals(expected, Secp256k1Field.toBigInteger(a));
+
+		int[] p = new int[LIMBS];
+		Secp256k1Field.sub(a, a, p);
+		assertTrue(Secp256k1Field.isZero(p));
+	}
+
+	@Test
+	void inversion() {
+		Secp256k1Engine engine = new Secp256k1Engine();
+		int[] a = new int[LIMBS];
+		int[] r = new int[LIMBS];
+		for (int i = 0; i < 50; i++) {
+			BigInteger x = i == 0 ? P.subtract(BigInteger.ONE) : randomElement().max(BigInteger.ONE);
+			Secp256k1Field.fromBigInteger(x, a);
+			engine.invert(a, r);
+			assertEquals(x.modInverse(P), Secp256k1Field.toBigInteger(r));
+		}
+	}
+
+	@Test
+	void publicKeysMatchBouncyCastle() {
+		Secp256k1Engine engine = new Secp256k1Engine();
+		FixedBaseTable[] tables = { FixedBaseTable.build(1), FixedBaseTable.build(5), FixedBaseTable.getDefault(),
+			FixedBaseTable.build(11) };
+		BigInteger[] scalars = { BigInteger.ONE, BigInteger.valueOf(2), BigInteger.valueOf(3), N.subtract(BigInteger.ONE),
+			N.subtract(BigInteger.valueOf(2)), BigInteger.ONE.shiftLeft(255) };
+		byte[] privateKey = new byte[32];
+		byte[] publicKey = new byte[65];
+		for (int i = 0; i < 60; i++) {
+			BigInteger k = i < scalars.length ? scalars[i] : new BigInteger(256, random).mod(N.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+			Secp256k1.writeUnsigned(k, privateKey, 0);
+			byte[] expected = expectedPublicKey(k);
+			for (FixedBaseTable table : tables) {
+				engine.publicKey(table, privateKey, 0, publicKey, 0);
+				assertArrayEquals(expected, publicKey, "window bits " + table.getWindowBits());
+			}
+
+			// the double-and-add without the table
+			JacobianPoint point = new JacobianPoint();
+			engine.multiplyG(privateKey, 0, point);
+			int[] x = new int[LIMBS];
+			int[] y = new int[LIMBS];
+			engine.toAffine(point, x, y);
+			assertEquals(new BigInteger(1, Arrays.copyOfRange(expected, 1, 33)), Secp256k1Field.toBigInteger(x));
+			assertEquals(new BigInteger(1, Arrays.copyOfRange(expected, 33, 65)), Secp256k1Field.toBigInteger(y));
+		}
+	}
+
+	@Test
+	void tableSize() {
+		FixedBaseTable table = FixedBaseTable.build(4);
+		// 64 windows of 15 points, 20 ints each
+		assertEquals(64 * 15 * 20 * 4, table.getSizeBytes());
+		assertThrows(IllegalArgumentException.class, () -> FixedBaseTable.build(0));
+		assertThrows(IllegalArgumentException.class, () -> FixedBaseTable.build(FixedBaseTable.MAX_WINDOW_BITS + 1));
+	}
+
+	@Test
+	void pointAddition() {
+		Secp256k1Engine engine = new Secp256k1Engine();
+		BigInteger a = new BigInteger(255, random);
+		BigInteger b = new BigInteger(255, random);
+		JacobianPoint p = multiply(engine, a);
+		JacobianPoint q = multiply(engine, b);
+
+		engine.addPoint(p, q);
+		assertEquals(affine(engine, multiply(engine, a.add(b).mod(N))), affine(engine, p));
+
+		// equal points turn into doubling
+		p = multiply(engine, a);
+		engine.addPoint(p, multiply(engine, a));
+		assertEquals(affine(engine, multiply(engine, a.shiftLeft(1).mod(N))), affine(engine, p));
+
+		// opposite points cancel out
+		p = multiply(engine, a);
+		engine.addPoint(p, multiply(engine, N.subtract(a)));
+		assertTrue(p.infinity);
+
+		engine.addPoint(p, q);
+		assertFalse(p.infinity);
+		assertEquals(affine(engine, q), affine(engine, p));
+	}
+
+	@Test
+	void keyGeneratorsAgree() throws GeneralSecurityException {
+		Security.addProvider(new BouncyCastleProvider());
+		AsymetricKeyGenerator[] generators = { new Secp256k1KeyGenerator(), new BouncyCastleKeyGenerator() };
+		for (AsymetricKeyGenerator generator : generators) {
+			for (int i = 0; i < 10; i++) {
+				KeyPair keyPair = generator.generateAsymetricKeyPair();
+				byte[] privateKey = new byte[32];
+				byte[] publicKey = new byte[65];
+				generator.getPrivateKey(keyPair, privateKey, 0);
+				generator.getPublicKey(keyPair, publicKey, 0);
+
+				BigInteger k = new BigInteger(1, privateKey);
+				assertTrue(k.signum() > 0 && k.compareTo(N) < 0);
+				assertArrayEquals(expectedPublicKey(k), publicKey);
+				assertEquals(new String(Hex.encode(publicKey)), generator.getPublicKey(keyPair));
+				assertEquals(new String(Hex.encode(privateKey)), generator.getPrivateKey(keyPair));
+
+				// either generator reads the key pairs of the other one
+				byte[] read = new byte[65];
+				new Secp256k1KeyGenerator().getPublicKey(keyPair, read, 0);
+				assertArrayEquals(publicKey, read);
+			}
+		}
+	}
+
+	@Test
+	void privateKeyRange() {
+		byte[] key = new byte[32];
+		assertFalse(Secp256k1KeyGenerator.isValidPrivateKey(key));
+		key[31] = 1;
+		assertTrue(Secp256k1KeyGenerator.isValidPrivateKey(key));
+		key[1] = (byte) 0xFF;
+		assertTrue(Secp256k1KeyGenerator.isValidPrivateKey(key));
+
+		Secp256k1.writeUnsigned(N.subtract(BigInteger.ONE), key, 0);
+		assertTrue(Secp256k1KeyGenerator.isValidPrivateKey(key));
+		Secp256k1.writeUnsigned(N, key, 0);
+		assertFalse(Secp256k1KeyGenerator.isValidPrivateKey(key));
+		Secp256k1.writeUnsigned(N.add(BigInteger.ONE), key, 0);
+		assertFalse(Secp256k1KeyGenerator.isValidPrivateKey(key));
+		Arrays.fill(key, (byte) 0xFF);
+		assertFalse(Secp256k1KeyGenerator.isValidPrivateKey(key));
+	}
+
+	private BigInteger randomElement() {
+		return new BigInteger(256, random).mod(P);
+	}
+
+	private static JacobianPoint multiply(Secp256k1Engine engine, BigInteger k) {
+		byte[] scalar = new byte[32];
+		Secp256k1.writeUnsigned(k, scalar, 0);
+		JacobianPoint point = new JacobianPoint();
+		engine.multiplyG(scalar, 0, point);
+		return point;
+	}
+
+	private static String affine(Secp256k1Engine engine, JacobianPoint point) {
+		int[] x = new int[LIMBS];
+		int[] y = new int[LIMBS];
+		engine.toAffine(point, x, y);
+		return Secp256k1Field.toBigInteger(x).toString(16) + ":" + Secp256k1Field.toBigInteger(y).toString(16);
+	}
+
+	private static byte[] expectedPublicKey(BigInteger k) {
+		BigInteger[] point = Secp256k1.multiplyG(k);
+		byte[] publicKey = new byte[65];
+		publicKey[0] = 0x04;
+		Secp256k1.writeUnsigned(point[0], publicKey, 1);
+		Secp256k1.writeUnsigned(point[1], publicKey, 33);
+		return publicKey;
+	}
+}
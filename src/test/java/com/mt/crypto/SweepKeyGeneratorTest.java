@@ -0,0 +1,72 @@
+package com.mt.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SweepKeyGeneratorTest {
+
+	@Test
+	void consecutiveKeysMatchScalarMultiplication() {
+		BigInteger start = new BigInteger(256, new SecureRandom()).mod(Secp256k1.N.shiftRight(1)).add(BigInteger.TEN);
+		SweepKeyGenerator generator = new SweepKeyGenerator(start);
+
+		for (int batch = 0; batch < 3; batch++) {
+			byte[][] privateKeys = new byte[17][AsymetricKeyGenerator.PRIVATE_KEY_LENGTH];
+			byte[][] publicKeys = new byte[17][AsymetricKeyGenerator.PUBLIC_KEY_LENGTH];
+			generator.nextBatch(privateKeys, publicKeys);
+
+			for (int i = 0; i < privateKeys.length; i++) {
+				BigInteger key = new BigInteger(1, privateKeys[i]);
+				assertEquals(start.add(BigInteger.valueOf(batch * 17L + i)), key);
+				BigInteger[] point = Secp256k1.multiplyG(key);
+				assertEquals(0x04, publicKeys[i][0]);
+				assertEquals(point[0], new BigInteger(1, Arrays.copyOfRange(publicKeys[i], 1, 33)));
+				assertEquals(point[1], new BigInteger(1, Arrays.copyOfRange(publicKeys[i], 33, 65)));
+			}
+			assertEquals(start.add(BigInteger.valueOf(batch * 17L + 17)), generator.getNextPrivateKey());
+		}
+	}
+
+	@Test
+	void privateKeysCarryOverBytes() {
+		BigInteger start = BigInteger.ONE.shiftLeft(16).subtract(BigInteger.valueOf(2));
+		byte[][] privateKeys = new byte[4][AsymetricKeyGenerator.PRIVATE_KEY_LENGTH];
+		byte[][] publicKeys = new byte[4][AsymetricKeyGenerator.PUBLIC_KEY_LENGTH];
+		new SweepKeyGenerator(start).nextBatch(privateKeys, publicKeys);
+
+		for (int i = 0; i < privateKeys.length; i++) {
+			assertEquals(start.add(BigInteger.valueOf(i)), new BigInteger(1, privateKeys[i]));
+		}
+	}
+
+	@Test
+	void keySpaceBoundaries() {
+		assertThrows(IllegalArgumentException.class, () -> new SweepKeyGenerator(BigInteger.ONE));
+
+		SweepKeyGenerator generator = new SweepKeyGenerator(Secp256k1.N.subtract(BigInteger.valueOf(4)));
+		byte[][] privateKeys = new byte[5][AsymetricKeyGenerator.PRIVATE_KEY_LENGTH];
+		byte[][] publicKeys = new byte[5][AsymetricKeyGenerator.PUBLIC_KEY_LENGTH];
+		assertThrows(IllegalStateException.class, () -> generator.nextBatch(privateKeys, publicKeys));
+	}
+
+	@Test
+	void hexFormatting() {
+		assertEquals(64, Secp256k1.toHex64(BigInteger.ONE).length());
+		assertEquals("000000000000000000000000000000000000000000000000000000000000000f", Secp256k1.toHex64(BigInteger.valueOf(15)));
+
+		byte[] buffer = new byte[34];
+		Secp256k1.writeUnsigned(BigInteger.ONE.shiftLeft(255), buffer, 1);
+		assertEquals((byte) 0x80, buffer[1]);
+		assertEquals(0, buffer[32]);
+
+		Secp256k1.writeUnsigned(BigInteger.valueOf(15), buffer, 1);
+		assertEquals(0, buffer[1]);
+		assertEquals(15, buffer[32]);
+	}
+}
@@ -0,0 +1,41 @@
+package com.mt.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.mt.core.AddressType;
+import com.mt.core.KeyRange;
+import com.mt.core.Wallet;
+import com.mt.crypto.Secp256k1;
+
+class WalletDerivationTest {
+
+	@BeforeAll
+	static void registerProvider() {
+		Security.addProvider(new BouncyCastleProvider());
+	}
+
+	@Test
+	void derivedWalletsMatchTheKeys() {
+		// starts at the edge of the key space not covered by the sweep
+		List<Wallet> wallets = new ArrayList<>();
+		WalletDerivation.deriveWallets(new KeyRange(BigInteger.ONE, 1500), wallets::add);
+
+		assertEquals(1500, wallets.size());
+		assertEquals("1EHNa6Q4Jz2uvNExL497mE43ikXhwF6kZm", wallets.get(0).getAddress(AddressType.P2PKH));
+		for (int i : new int[] { 1, 999, 1000, 1499 }) {
+			BigInteger key = BigInteger.valueOf(i + 1L);
+			assertEquals(Secp256k1.toHex64(key), wallets.get(i).getPrivateKey());
+			BigInteger[] point = Secp256k1.multiplyG(key);
+			assertEquals("04" + Secp256k1.toHex64(point[0]) + Secp256k1.toHex64(point[1]), wallets.get(i).getPublicKey());
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.mt.main;
+
+import static com.mt.config.ConfigurationKey.DATABASE_ENABLE_WALLET_SAVING;
+import static com.mt.config.ConfigurationKey.DATABASE_TABLE_SAVE_WALLET_FORMAT;
+import static com.mt.config.ConfigurationKey.GENERATOR_MODE;
+import static com.mt.config.ConfigurationKey.GENERATOR_RELATED_KEYS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mt.config.ApplicationConfiguration;
+import com.mt.config.TestConfiguration;
+import com.mt.core.Wallet;
+import com.mt.crypto.RelatedKeys;
+import com.mt.crypto.Secp256k1;
+import com.mt.crypto.SweepKeyGenerator;
+import com.mt.metrics.Counter;
+
+class WalletGeneratorTest {
+
+	@Test
+	void relatedKeysFillTheBatch() {
+		for (String mode : new String[] { "random", "sweep" }) {
+			WalletGenerator generator = new WalletGenerator(configuration(mode, true));
+			assertEquals(RelatedKeys.KEYS_PER_POINT, generator.getWalletsPerKey());
+
+			List<Wallet> wallets = generator.generateWallets(20);
+			assertEquals(20, wallets.size());
+			assertValidAndDistinct(wallets);
+		}
+	}
+
+	@Test
+	void rangeWalksTheGivenKeys() {
+		BigInteger start = BigInteger.valueOf(1000);
+		SweepKeyGenerator keys = new SweepKeyGenerator(start);
+		long keysGenerated = Counter.KEYS_GENERATED.sum();
+		long walletsGenerated = Counter.WALLETS_GENERATED.sum();
+		List<Wallet> wallets = new WalletGenerator(configuration("range", true)).generateWallets(keys, 3);
+
+		assertEquals(3 * RelatedKeys.KEYS_PER_POINT, wallets.size());
+		assertEquals(3, Counter.KEYS_GENERATED.sum() - keysGenerated);
+		assertEquals(3 * RelatedKeys.KEYS_PER_POINT, Counter.WALLETS_GENERATED.sum() - walletsGenerated);
+		assertEquals(start.add(BigInteger.valueOf(3)), keys.getNextPrivateKey());
+		// the walked keys stay one run followed by the related keys
+		for (int i = 0; i < 3; i++) {
+			assertEquals(start.add(BigInteger.valueOf(i)), new BigInteger(1, wallets.get(i).getPrivateKeyBytes()));
+		}
+		assertValidAndDistinct(wallets);
+
+		WalletGenerator withoutRelated = new WalletGenerator(configuration("range", false));
+		assertEquals(1, withoutRelated.getWalletsPerKey());
+		assertEquals(3, withoutRelated.generateWallets(keys, 3).size());
+	}
+
+	@Test
+	void relatedKeysAreOffWhenSavingKeyRanges() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(GENERATOR_MODE.toString(), "range");
+		properties.put(DATABASE_ENABLE_WALLET_SAVING.toString(), "true");
+		properties.put(DATABASE_TABLE_SAVE_WALLET_FORMAT.toString(), "keys");
+		assertEquals(1, new WalletGenerator(TestConfiguration.of(properties)).getWalletsPerKey());
+
+		properties.put(DATABASE_TABLE_SAVE_WALLET_FORMAT.toString(), "addresses");
+		assertEquals(RelatedKeys.KEYS_PER_POINT, new WalletGenerator(TestConfiguration.of(properties)).getWalletsPerKey());
+
+		properties.put(DATABASE_TABLE_SAVE_WALLET_FORMAT.toString(), "keys");
+		properties.put(GENERATOR_RELATED_KEYS.toString(), "true");
+		assertEquals(RelatedKeys.KEYS_PER_POINT, new WalletGenerator(TestConfiguration.of(properties)).getWalletsPerKey());
+	}
+
+	private static void assertValidAndDistinct(List<Wallet> wallets) {
+		Set<BigInteger> privateKeys = new HashSet<>();
+		for (Wallet wallet : wallets) {
+			BigInteger k = new BigInteger(1, wallet.getPrivateKeyBytes());
+			privateKeys.add(k);
+			BigInteger[] point = Secp256k1.multiplyG(k);
+			byte[] expected = new byte[65];
+			expected[0] = 0x04;
+			Secp256k1.writeUnsigned(point[0], expected, 1);
+			Secp256k1.writeUnsigned(point[1], expected, 33);
+			assertArrayEquals(expected, wallet.getPublicKeyBytes());
+		}
+		assertEquals(wallets.size(), privateKeys.size());
+	}
+
+	private static ApplicationConfiguration configuration(String mode, boolean relatedKeys) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(GENERATOR_MODE.toString(), mode);
+		properties.put(GENERATOR_RELATED_KEYS.toString(), String.valueOf(relatedKeys));
+		return TestConfiguration.of(properties);
+	}
+}
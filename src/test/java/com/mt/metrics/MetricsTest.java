@@ -0,0 +1,87 @@
+package com.mt.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+	@Test
+	void histogramBuckets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(0);
+		histogram.record(1024);
+		histogram.record(1025);
+		histogram.record(2048);
+		histogram.record(Long.MAX_VALUE / 2);
+
+		long[] counts = histogram.getBucketCounts();
+		assertEquals(2, counts[0]);
+		assertEquals(2, counts[1]);
+		assertEquals(1, counts[LatencyHistogram.BUCKETS - 1]);
+		assertEquals(5, histogram.getCount());
+		assertEquals(1024, histogram.getQuantileNanos(0.4));
+		assertEquals(2048, histogram.getQuantileNanos(0.8));
+		assertEquals(Long.MAX_VALUE, histogram.getQuantileNanos(1));
+		assertEquals(0, new LatencyHistogram().getQuantileNanos(0.99));
+	}
+
+	@Test
+	void prometheusEndpoint() throws IOException {
+		Counter.KEYS_GENERATED.add(1000);
+		Stage.LOOKUP.getHistogram().record(5_000_000);
+		Metrics.registerGauge("test_depth", "Test gauge", () -> 7);
+
+		String text;
+		try (PrometheusEndpoint endpoint = PrometheusEndpoint.start(0)) {
+			HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + endpoint.getPort() + "/metrics").openConnection();
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+			try (InputStream input = connection.getInputStream()) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int read; (read = input.read(buffer)) > 0;) {
+					body.write(buffer, 0, read);
+				}
+				text = new String(body.toByteArray(), UTF_8);
+			}
+		}
+		assertTrue(text.contains("# TYPE bitguesser_keys_generated_total counter\n"));
+		assertTrue(text.matches("(?s).*\nbitguesser_keys_generated_total [1-9][0-9]{3,}\n.*"));
+		assertTrue(text.contains("bitguesser_test_depth 7\n"));
+		assertTrue(text.contains("bitguesser_stage_duration_seconds_bucket{stage=\"lookup\",le=\"+Inf\"} "));
+		assertTrue(text.contains("bitguesser_stage_duration_seconds_bucket{stage=\"lookup\",le=\"0.008388608\"} "));
+	}
+
+	@Test
+	void mbeanAttributes() throws JMException {
+		Metrics.registerMBean();
+		Metrics.registerMBean();
+		Counter.WALLETS_FOUND.increment();
+		Stage.SAVE.getHistogram().record(3000);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+		assertTrue((Long) server.getAttribute(name, "wallets_found_total") >= 1);
+		assertTrue((Long) server.getAttribute(name, "save_count") >= 1);
+		assertTrue((Long) server.getAttribute(name, "save_p99_micros") >= 4);
+		assertArrayEquals(new Object[0], server.getMBeanInfo(name).getOperations());
+		assertThrows(ReflectionException.class, () -> server.invoke(name, "reset", new Object[0], new String[0]));
+	}
+}
@@ -0,0 +1,110 @@
+package com.mt.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class BatchQueueTest {
+
+	@Test
+	void boundedFifo() {
+		BatchQueue<Integer> queue = new BatchQueue<>(3);
+		assertEquals(4, queue.capacity());
+		assertNull(queue.poll());
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(queue.offer(i));
+		}
+		assertFalse(queue.offer(4));
+		assertEquals(4, queue.size());
+		assertEquals(4, queue.getAndResetPeakSize());
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i, queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+		assertTrue(queue.offer(5));
+		assertEquals(5, queue.poll());
+		assertThrows(IllegalArgumentException.class, () -> new BatchQueue<>(0));
+	}
+
+	@Test
+	void blockingOperations() throws InterruptedException {
+		BatchQueue<Integer> queue = new BatchQueue<>(1);
+		assertEquals(2, queue.capacity());
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+		queue.put(0);
+		queue.put(1);
+
+		Thread producer = new Thread(() -> {
+			try {
+				queue.put(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+		Thread.sleep(50);
+		assertTrue(producer.isAlive(), "producer should wait for a free slot");
+		assertEquals(1, queue.getProducerWaits());
+
+		assertEquals(0, queue.poll(1, TimeUnit.SECONDS));
+		producer.join(5000);
+		assertEquals(1, queue.poll(1, TimeUnit.SECONDS));
+		assertEquals(2, queue.poll(1, TimeUnit.SECONDS));
+
+		Thread.currentThread().interrupt();
+		assertThrows(InterruptedException.class, () -> queue.poll(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void concurrentProducersAndConsumers() throws InterruptedException {
+		BatchQueue<Long> queue = new BatchQueue<>(8);
+		int producers = 4;
+		int perProducer = 20_000;
+		AtomicLong sum = new AtomicLong();
+		AtomicLong count = new AtomicLong();
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (long i = 1; i <= perProducer; i++) {
+						queue.put(i);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		}
+		for (int c = 0; c < 2; c++) {
+			threads.add(new Thread(() -> {
+				try {
+					Long value;
+					while ((value = queue.poll(200, TimeUnit.MILLISECONDS)) != null) {
+						sum.addAndGet(value);
+						count.incrementAndGet();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join(30_000);
+		}
+		assertEquals((long) producers * perProducer, count.get());
+		assertEquals(producers * (long) perProducer * (perProducer + 1) / 2, sum.get());
+		assertTrue(queue.getAndResetPeakSize() <= queue.capacity());
+	}
+}